@@ -24,8 +24,6 @@
  */
 package swarms.MTRR;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
@@ -34,7 +32,18 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -52,12 +61,31 @@ import com.swarms.thrift.Vehicle;
 import com.swarms.thrift.VehicleType;
 
 import swarms.DAM.SemanticQuery;
+import swarms.MTRR.util.AbortFanOut;
+import swarms.MTRR.util.AcousticScheduler;
+import swarms.MTRR.util.ActionDependencyGraph;
+import swarms.MTRR.util.CDTResponseTracker;
+import swarms.MTRR.util.CDTResponseTracker.PendingCDTRequest;
+import swarms.MTRR.util.DeliveryTracker;
+import swarms.MTRR.util.FramePool;
 import swarms.MTRR.util.MessageFormatter;
+import swarms.MTRR.util.MetricsRegistry;
+import swarms.MTRR.util.MissionIndex;
 import swarms.MTRR.util.MissionParser;
-import swarms.MTRR.util.StoredEvent;
-import swarms.MTRR.util.StoredTask;
+import swarms.MTRR.util.ReportDeduplicator;
+import swarms.MTRR.util.ReportStore;
+import swarms.MTRR.util.ReusableFrame;
+import swarms.MTRR.util.SCITimingLog;
+import swarms.MTRR.util.SemanticQueryReportStore;
+import swarms.MTRR.util.SingleFlightRefresh;
+import swarms.MTRR.util.StateVectorBatcher;
+import swarms.MTRR.util.StatusRefreshTracker;
 import swarms.MTRR.util.TaskHelper;
 import swarms.MTRR.util.ThriftClientToMMT;
+import swarms.MTRR.util.TimedReportStore;
+import swarms.MTRR.util.VehicleMailboxDispatcher;
+import swarms.MTRR.util.VehicleRegistry;
+import swarms.MTRR.util.WriteBehindReportStore;
 import swarms.PSManager.PSManagerCONSTANTS;
 import swarms.PSManager.PSManagerGlobalVariables;
 import swarms.PSManager.PSManagerInterfaces;
@@ -77,61 +105,98 @@ public class MTRR implements MTFeeder, MTReporter {
     public static final int STOPPED = 3;
     
     // Maps 
-    private HashMap<Integer, Vehicle> vehicleMap = new HashMap<Integer, Vehicle>();
-    private HashMap<Integer, LinkedList<Action>> vehiclePlansMap = new HashMap<Integer, LinkedList<Action>>();
-    private HashMap<Integer, SWARMsDDSFrame> lastMessagePerVehicle = new HashMap<Integer, SWARMsDDSFrame>();
-    private HashMap<Integer, Action> currentActionMap = new HashMap<Integer, Action>();
-    private HashMap<Integer, Boolean> vehicleAvailability = new HashMap<Integer, Boolean>();
-	private HashMap<Integer, Byte> stateVectorVehicleRequestIdMap = new HashMap<Integer, Byte>();
-	private HashMap<Integer, Action> awaitingActions = new HashMap<Integer, Action>();
+    // Per vehicle state (plan, current action, last message) for the vehicles in the active mission
+    private ConcurrentHashMap<Integer, VehicleState> vehicleStates = new ConcurrentHashMap<Integer, VehicleState>();
+    private ConcurrentHashMap<Integer, Boolean> vehicleAvailability = new ConcurrentHashMap<Integer, Boolean>();
+	private ConcurrentHashMap<Integer, Byte> stateVectorVehicleRequestIdMap = new ConcurrentHashMap<Integer, Byte>();
+	private StatusRefreshTracker statusRefresh = new StatusRefreshTracker();
+	private ConcurrentHashMap<Integer, Action> awaitingActions = new ConcurrentHashMap<Integer, Action>();
     
-    // Lists
-	private ArrayList<StoredEvent> receivedEvents = new ArrayList<StoredEvent>();
-	private ArrayList<StoredTask> receivedTasks = new ArrayList<StoredTask>();
+    // Duplicate detection for received reports
+	private ReportDeduplicator receivedEvents = new ReportDeduplicator(MessagesCONSTANTS.DEFAULT_DEDUP_WINDOW_SIZE);
+	private ReportDeduplicator receivedTasks = new ReportDeduplicator(MessagesCONSTANTS.DEFAULT_DEDUP_WINDOW_SIZE);
     
     
     // Booleans    
-    private boolean missionActive = false;
-    private boolean requestUpdate = false;
-	private boolean notifyStatusToMMT = true;
-    private boolean isCDTDiscoveryRequired = false;
-	private boolean internalRequestUpdatedStatus = false;
-    private boolean requestedUpdatedStatus = false;
-    private boolean CDTavailable = false;
-    private boolean doGetNeighbours = false;
+    private final AtomicBoolean missionActive = new AtomicBoolean(false);
+    private volatile boolean requestUpdate = false;
+	private final boolean notifyStatusToMMT = true;
+    private volatile boolean requestedUpdatedStatus = false;
     
     // Values
-    private int currentMissionID;
-    private double refCoordsLongitude = MessagesCONSTANTS.DEFAULT_REFERENCE_COORDINATE_LONGITUDE;
-    private double refCoordsLatitude = MessagesCONSTANTS.DEFAULT_REFERENCE_COORDINATE_LATITUDE;
+    private volatile int currentMissionID;
+    
+    // Settings read from the configuration file, replaced as a whole when it is reloaded
+    private volatile MTRRConfiguration configuration = null;
 
     private PSManagerInterfaces psManager;
    
-    private byte requestID = 0;
-    private byte assignmentMode = MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE;
+    private AtomicInteger requestID = new AtomicInteger(0);
+    
+    // Reusable frames for the published messages
+    private FramePool framePool = new FramePool(MessagesCONSTANTS.FRAME_POOL_SIZE);
+    
+    // Runs the status updates one at a time, sharing them among the concurrent requests
+    private SingleFlightRefresh statusUpdates = null;
+    
+    // Scheduling of the acoustic messages
+    private AcousticScheduler acousticScheduler = null;
+    private DeliveryTracker deliveryTracker = new DeliveryTracker();
+    private volatile AbortFanOut abortFanOut = null;
 
     private FileHandler fh;
     private FileHandler fhsci;
     private Logger logsci = Logger.getLogger("SCILog");
+    private MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private SCITimingLog sciTiming = new SCITimingLog(logsci, MessagesCONSTANTS.SCI_LOG_BUFFER_SIZE, MessagesCONSTANTS.SCI_LOG_DRAIN_INTERVAL);
     private Logger logger = Logger.getLogger("MyMTRRLog");
     private ThriftProxyServer thriftProxy;
     
     public static MTRR instance = null;
     
     // new variables
-    private long stateVectorTimeout = MessagesCONSTANTS.DEFAULT_STATE_VECTOR_TIMEOUT;
-    private int stateVectorRefreshTimeIP = MessagesCONSTANTS.DEFAULT_ENVIRONMENT_STATE_VECTOR_REFRESH_TIME_IP;
-    private int stateVectorRefreshTimeAcoustic = MessagesCONSTANTS.DEFAULT_ENVIRONMENT_STATE_VECTOR_REFRESH_TIME_ACOUSTIC;
-    private long getNeighboursTimeout = MessagesCONSTANTS.DEFAULT_GET_NEIGHBOURS_TIMEOUT;
-    private long setNeighboursTimeout = MessagesCONSTANTS.DEFAULT_SET_NEIGHBOURS_TIMEOUT;
-    private int getNeighboursMaxTryouts = MessagesCONSTANTS.DEFAULT_GET_NEIGHBOURS_TOTAL_TRYOUTS;
+    private CDTResponseTracker cdtResponses = new CDTResponseTracker();
+    
+    // Prepares the first task of each vehicle in parallel (null prepares them in the calling thread)
+    private ExecutorService preparationExecutor = null;
+    
+    // Per vehicle mailboxes for the received reports (null handles them in the delivering thread)
+    private volatile VehicleMailboxDispatcher mailboxes = null;
+    
+    // Persistence of the received reports (ontology and database)
+    private ReportStore reportStore = new TimedReportStore(new SemanticQueryReportStore(), "sq");
+    private StateVectorBatcher stateVectorBatcher = null;
+    
+    // Cache of the vehicles metadata and their latest state vectors
+    private VehicleRegistry vehicleRegistry = new VehicleRegistry(new VehicleRegistry.VehicleSource() {
+    	public Vehicle getVehicle(int vehicleId) {
+    		long start = System.nanoTime();
+    		
+    		try {
+    			return SemanticQuery.getInstance().getVehicle(vehicleId);
+    		} finally {
+    			metrics.recordSince("sq.getVehicle", start);
+    		}
+    	}
+    	
+    	public List<Vehicle> getAllVehicles() {
+    		long start = System.nanoTime();
+    		
+    		try {
+    			return SemanticQuery.getInstance().getAllVehicles();
+    		} finally {
+    			metrics.recordSince("sq.getAllVehicles", start);
+    		}
+    	}
+    }, MessagesCONSTANTS.DEFAULT_VEHICLE_CACHE_TTL);
     private DecimalFormat df = new DecimalFormat("#0.000000");
-    private String neighbourDiscoveryStyle = MessagesCONSTANTS.DEFAULT_NEIGHBOUR_DISCOVERY_STYLE;
     
     /**
      * Constructor setting the PSManager available to this instance
+     * 
+     * @param startThriftProxy	False to run without the Thrift proxy server (e.g. in benchmarks)
      */
-    private MTRR() {
+    private MTRR(boolean startThriftProxy) {
         try {            
             SimpleFormatter formatter = new SimpleFormatter();
 
@@ -162,10 +227,58 @@ public class MTRR implements MTFeeder, MTReporter {
             
             // Load configuration
             loadConfiguration();
+            
+            if (configuration.persistenceMode.equals(MessagesCONSTANTS.PERSISTENCE_MODE_WRITE_BEHIND)) {
+            	reportStore = new WriteBehindReportStore(reportStore, configuration.persistenceQueueSize, configuration.persistenceBatchSize, configuration.persistenceFlushInterval, logger);
+            	logger.log(Level.INFO, "--- Received reports will be stored using a write-behind queue");
+            }
+            
+            metrics.startPeriodicDump(logger, configuration.metricsDumpPeriod);
+            
+            if (configuration.stateVectorBatching) {
+            	stateVectorBatcher = new StateVectorBatcher(reportStore, configuration.stateVectorBatchSize, configuration.stateVectorBatchInterval, logger);
+            	logger.log(Level.INFO, "--- Received state vectors will be stored in batches");
+            }
+            
+            if (configuration.preparationThreads > 0) {
+            	preparationExecutor = Executors.newFixedThreadPool(configuration.preparationThreads, new ThreadFactory() {
+            		private final AtomicInteger threadCount = new AtomicInteger();
+            		
+            		public Thread newThread(Runnable runnable) {
+            			Thread thread = new Thread(runnable, "MTRR-preparation-" + threadCount.incrementAndGet());
+            			thread.setDaemon(true);
+            			return thread;
+            		}
+            	});
+            	logger.log(Level.INFO, "--- The first task of each vehicle will be prepared using {0} threads", configuration.preparationThreads);
+            }
+            
+            if (configuration.mailboxWorkerThreads > 0) {
+            	mailboxes = new VehicleMailboxDispatcher(configuration.mailboxWorkerThreads, configuration.mailboxCapacity, configuration.mailboxOfferTimeout, logger);
+            	logger.log(Level.INFO, "--- Received reports will be handled in per vehicle mailboxes using {0} threads", configuration.mailboxWorkerThreads);
+            }
+            
+            statusUpdates = new SingleFlightRefresh("MTRR-status-update", new SingleFlightRefresh.Refresh() {
+            	public void refresh() {
+            		long start = System.nanoTime();
+            		
+            		try {
+            			performUpdatedStatusRequest();
+            		} finally {
+            			metrics.recordSince("mtrr.requestUpdatedStatus", start);
+            		}
+            	}
+            	
+            	public void notifyCompleted() {
+            		ThriftClientToMMT.getInstance().sendUpdatedStatusNotification();
+            	}
+            }, configuration.statusFreshness);
 
             // WARNING! The ThriftProxyServer should be started by swarms.Main!!!
-            thriftProxy = new ThriftProxyServer();
-            thriftProxy.startThriftProxy();
+            if (startThriftProxy) {
+            	thriftProxy = new ThriftProxyServer();
+            	thriftProxy.startThriftProxy();
+            }
 
         } catch (SecurityException e) {
         	logger.log(Level.SEVERE, "!!! Security exception while creating the MTRR instance.");
@@ -174,14 +287,131 @@ public class MTRR implements MTFeeder, MTReporter {
         	logger.log(Level.SEVERE, "!!! I/O exception while creating the MTRR instance.");
         	logger.log(Level.SEVERE, e.getMessage());
         }
+        
+        if (configuration == null) {
+        	loadConfiguration();
+        }
     }
 
     public static MTRR getInstance() {
             if(instance == null)
-                instance = new MTRR();
+                instance = new MTRR(true);
             
             return instance;	
     }
+    
+    /**
+     * Gets the instance, creating it without the Thrift proxy server if it does not exist yet,
+     * for the harnesses running the MTRR in process with no MMT connected (e.g. benchmarks).
+     * 
+     * @return The instance
+     */
+    static MTRR getInstanceWithoutThriftProxy() {
+    	if (instance == null) {
+    		instance = new MTRR(false);
+    	}
+    	return instance;
+    }
+    
+    /**
+     * Marks the status of the vehicles as already requested, so starting a mission does not
+     * request it first. Only for the harnesses with simulated vehicles, which do not answer.
+     */
+    void markStatusRequested() {
+    	requestedUpdatedStatus = true;
+    }
+
+    /**
+     * Sets the store for the received reports, replacing the Semantic Query (e.g. for tests).
+     * 
+     * @param reportStore The store for the received reports
+     */
+    public void setReportStore(ReportStore reportStore) {
+    	this.reportStore = reportStore;
+    	
+    	if (stateVectorBatcher != null) {
+    		stateVectorBatcher.setReportStore(reportStore);
+    	}
+    }
+    
+    public ReportStore getReportStore() {
+    	return reportStore;
+    }
+    
+    public VehicleRegistry getVehicleRegistry() {
+    	return vehicleRegistry;
+    }
+    
+    /**
+     * Sets the cache of the vehicles, replacing the one backed by the Semantic Query (e.g. for benchmarks).
+     * 
+     * @param vehicleRegistry The cache of the vehicles
+     */
+    public void setVehicleRegistry(VehicleRegistry vehicleRegistry) {
+    	this.vehicleRegistry = vehicleRegistry;
+    }
+    
+    /**
+     * Gets the per vehicle mailboxes, to check their queue depths.
+     * 
+     * @return The mailboxes, or null if the reports are handled in the delivering thread
+     */
+    public VehicleMailboxDispatcher getMailboxes() {
+    	return mailboxes;
+    }
+    
+    /**
+     * Sets the per vehicle mailboxes handling the received reports.
+     * 
+     * @param mailboxes		The mailboxes, or null to handle the reports in the delivering thread
+     */
+    public void setMailboxes(VehicleMailboxDispatcher mailboxes) {
+    	this.mailboxes = mailboxes;
+    }
+    
+    /**
+     * Appends the frames in the frame trace to a file.
+     * 
+     * @param fileName The file name
+     * @return True if the trace was written
+     */
+    public boolean dumpFrameTrace(String fileName) {
+    	try {
+    		MessageFormatter.getInstance().getFrameTrace().dumpToFile(fileName);
+    		logger.log(Level.INFO, "--- Frame trace written to {0}", fileName);
+    		return true;
+    	} catch (IOException e) {
+    		logger.log(Level.WARNING, "+++ Error writing the frame trace to {0}: {1}", new Object[] {fileName, e.getMessage()});
+    		return false;
+    	}
+    }
+    
+    /**
+     * Gets a snapshot of the latency histograms and counters of the MTRR operations
+     * and outbound calls.
+     * 
+     * @return The current metrics, one line per timer or counter
+     */
+    public String getMetricsSnapshot() {
+    	return metrics.getSnapshot();
+    }
+    
+    /**
+     * Appends the snapshot of the metrics to a file.
+     * 
+     * @param fileName The file name
+     * @return True if the snapshot was written
+     */
+    public boolean dumpMetrics(String fileName) {
+    	try {
+    		metrics.dumpToFile(fileName);
+    		logger.log(Level.INFO, "--- Metrics written to {0}", fileName);
+    		return true;
+    	} catch (IOException e) {
+    		logger.log(Level.WARNING, "+++ Error writing the metrics to {0}: {1}", new Object[] {fileName, e.getMessage()});
+    		return false;
+    	}
+    }
 
     public void setPSManager(PSManagerInterfaces psmanager) {
         this.psManager = psmanager;
@@ -190,67 +420,88 @@ public class MTRR implements MTFeeder, MTReporter {
 
     /**
      * Requests the status update for all available, and updates their availability upon the result.
+     * Waits until the update, and the notification to the MMT, has finished.
      * 
      */
-    public synchronized void requestUpdatedStatus() {
-    	String methodName = "requestUpdatedStatus";
-    	logsci.log(Level.INFO, methodName + ",entry," + System.currentTimeMillis());
+    public void requestUpdatedStatus() {
+    	awaitStatusUpdate(statusUpdates.request(true));
+    }
+    
+    /**
+     * Requests the status update for all available vehicles without waiting for it. The MMT
+     * is notified once the update has finished.
+     * 
+     * A request made while an update is running joins it, and a request made within the
+     * status freshness period of the last finished update is served by it.
+     * 
+     * @return	Completes once the MMT has been notified
+     */
+    public Future<?> requestUpdatedStatusAsync() {
+    	return statusUpdates.request(true);
+    }
+    
+    private void awaitStatusUpdate(Future<?> update) {
+    	try {
+    		update.get();
+    	} catch (InterruptedException e) {
+    		logger.log(Level.WARNING, "+++ Interrupted while waiting for the status update");
+    		Thread.currentThread().interrupt();
+    	} catch (ExecutionException e) {
+    		logger.log(Level.SEVERE, "!!! Exception while updating the status: {0}", e.getCause());
+    	}
+    }
+    
+    private void performUpdatedStatusRequest() {
+    	sciTiming.probe("requestUpdatedStatus,entry");
     	requestedUpdatedStatus = true;
     	requestUpdate = true;
     	
     	// Reload configuration
     	loadConfiguration();
     	
-    	// Get the list of vehicles that can be used in the mission planning
-    	logsci.log(Level.INFO, methodName + ",call to SQ.getAllVehicles: before," + System.currentTimeMillis());
-    	List<Vehicle> availableVehicles = SemanticQuery.getInstance().getAllVehicles();
-    	logsci.log(Level.INFO, methodName + ",call to SQ.getAllVehicles: after," + System.currentTimeMillis());
+    	// Get the list of vehicles that can be used in the mission planning, reloaded from the
+    	// SQ so the vehicles registered since it was cached are also polled
+    	sciTiming.probe("requestUpdatedStatus,call to SQ.getAllVehicles: before");
+    	vehicleRegistry.invalidateAll();
+    	List<Vehicle> availableVehicles = vehicleRegistry.getAllVehicles();
+    	sciTiming.probe("requestUpdatedStatus,call to SQ.getAllVehicles: after");
     	stateVectorVehicleRequestIdMap.clear();
 
     	// Create availability map for the MTRR
     	vehicleAvailability.clear();
+    	List<Integer> availableVehicleIds = new ArrayList<Integer>(availableVehicles.size());
     	for (Vehicle vehicle : availableVehicles) {
     		vehicleAvailability.put(vehicle.getId(), false);
+    		availableVehicleIds.add(vehicle.getId());
     	}
+    	statusRefresh.start(availableVehicleIds);
     	
     	// Request the STATE_VECTOR using the IP channel
     	for (Vehicle vehicle : availableVehicles) {    		
-    		requestStateVectorIP(vehicle, requestID);    		
-    		stateVectorVehicleRequestIdMap.put(vehicle.getId(), (byte) requestID);
-    		requestID++;
+    		byte stateVectorRequestID = nextRequestID();
+    		requestStateVectorIP(vehicle, stateVectorRequestID);    		
+    		stateVectorVehicleRequestIdMap.put(vehicle.getId(), stateVectorRequestID);
     	}
     	
-    	if (CDTavailable) {
-    		if (neighbourDiscoveryStyle.toLowerCase().equals(MessagesCONSTANTS.NEIGHBOUR_DISCOVERY_STYLE_SLEEP)) {
+    	if (configuration.CDTavailable) {
+    		if (configuration.neighbourDiscoveryStyle.toLowerCase().equals(MessagesCONSTANTS.NEIGHBOUR_DISCOVERY_STYLE_SLEEP)) {
     			logger.log(Level.INFO, "--- Performing neighbour discovery using sleeps");
-    			sendSetNeighbours(availableVehicles);
-    	    	
-    	    	try {
-    	    		Thread.sleep(getNeighboursTimeout);
-    	    	} catch (InterruptedException e) {
-    	    		logger.log(Level.WARNING, "+++ SET_NEIGHBOURS WAIT INTERRUPTED IN REQUEST UPDATED STATUS");
-    	    	}    	
-    	    	
-    	    	sendGetNeighbours();
-    	    	
-    	    	try {
-    	    		Thread.sleep(getNeighboursTimeout);
-    	    	} catch (InterruptedException e) {
-    	    		logger.log(Level.WARNING, "+++ GET_NEIGHBOURS WAIT INTERRUPTED IN REQUEST UPDATED STATUS");
-    	    	}    	
+    			
+    			// Each sleep ends as soon as the CDT answers
+    			awaitNeighbourDiscoveryStep(MessagesCONSTANTS.SUBTYPE_SET_NEIGHBOURS, availableVehicles, configuration.getNeighboursTimeout);
+    			awaitNeighbourDiscoveryStep(MessagesCONSTANTS.SUBTYPE_GET_NEIGHBOURS, availableVehicles, configuration.getNeighboursTimeout);
     	    	
     	    	// Request the STATE_VECTOR using the ACOUSTIC channel
-    	    	for (Vehicle vehicle : availableVehicles) {
-    	    		if (vehicle.getType().equals(VehicleType.AUV)) {
-    	   				requestStateVectorAcoustic(vehicle, stateVectorVehicleRequestIdMap.get(vehicle.getId()));
-    	    		}
-    	    	}
+    	    	requestPendingStateVectorsAcoustic(availableVehicles);
     	    	
-    	    	// Wait for STATE_VECTOR response
+    	    	// Wait for STATE_VECTOR response, until all the vehicles have answered
     	    	try {
-    				Thread.sleep(stateVectorTimeout);
+    	    		if (statusRefresh.awaitAll(configuration.stateVectorTimeout)) {
+    	    			logger.log(Level.INFO, "--- All the vehicles answered the status request");
+    	    		}
     			} catch (InterruptedException e) {
     				 logger.log(Level.WARNING, "+++ STATE VECTOR WAIT INTERRUPTED IN REQUEST UPDATED STATUS");
+    				 Thread.currentThread().interrupt();
     			}    	
     		}
     		else {
@@ -259,66 +510,75 @@ public class MTRR implements MTFeeder, MTReporter {
     			// Uncomment these two lines to allow the requestUpdatedStatus method to ALLWAYS send the SET_NEIGHBOURS request 
 //    			MTRRContext.getInstance().setSetNeighboursResponseSuccessful(false);
 
-		    	logsci.log(Level.INFO, methodName + ",set_neighbours procedure: begin," + System.currentTimeMillis());
+		    	sciTiming.probe("requestUpdatedStatus,set_neighbours procedure: begin");
+    			int setNeighboursTry = 0;
+    			while ((!MTRRContext.getInstance().isSetNeighboursResponseSuccessful()) && (setNeighboursTry < configuration.setNeighboursMaxTryouts)) {
+    				setNeighboursTry++;
+    				byte cdtRequestID = nextRequestID();
+    				PendingCDTRequest request = cdtResponses.register(MessagesCONSTANTS.SUBTYPE_SET_NEIGHBOURS, cdtRequestID);
+    				sendSetNeighbours(availableVehicles, cdtRequestID);
+    				awaitCDTResponse(request, configuration.setNeighboursTimeout);
+    			}
+    			
     			if (!MTRRContext.getInstance().isSetNeighboursResponseSuccessful()) {
-    				sendSetNeighbours(availableVehicles);
-    				while (!MTRRContext.getInstance().isSetNeighboursResponseSuccessful());
+    				logger.log(Level.WARNING, "+++ RequestUpdatedStatus -> No successful SET_NEIGHBOURS response after {0} tryouts", setNeighboursTry);
     			}
-		    	logsci.log(Level.INFO, methodName + ",set_neighbours procedure: end," + System.currentTimeMillis());
+		    	sciTiming.probe("requestUpdatedStatus,set_neighbours procedure: end");
 
-    			if (doGetNeighbours) {
+    			if (configuration.doGetNeighbours) {
     				// GET_NEIGHBOURS
     				// Uncomment these two lines to allow the requestUpdatedStatus method to ALLWAYS send the GET_NEIGHBOURS request   	
 //    				MTRRContext.getInstance().setGetNeighboursResponseReceived(false);
 //    				MTRRContext.getInstance().setGetNeighboursResponseSuccessful(false);
 
-    		    	logsci.log(Level.INFO, methodName + ",get_neighbours procedure: begin," + System.currentTimeMillis());
+    		    	sciTiming.probe("requestUpdatedStatus,get_neighbours procedure: begin");
     				int getNeighboursTry = 0;
-    				while ((!MTRRContext.getInstance().isGetNeighboursResponseSuccessful()) && (getNeighboursTry < getNeighboursMaxTryouts)) {
+    				while ((!MTRRContext.getInstance().isGetNeighboursResponseSuccessful()) && (getNeighboursTry < configuration.getNeighboursMaxTryouts)) {
     					getNeighboursTry++;
-    					sendGetNeighbours();
-    					while (!MTRRContext.getInstance().isGetNeighboursResponseReceived());
+    					byte cdtRequestID = nextRequestID();
+    					PendingCDTRequest request = cdtResponses.register(MessagesCONSTANTS.SUBTYPE_GET_NEIGHBOURS, cdtRequestID);
+    					sendGetNeighbours(cdtRequestID);
 
-    					if (MTRRContext.getInstance().isGetNeighboursResponseSuccessful()) {
+    					if (awaitCDTResponse(request, configuration.getNeighboursTimeout)) {
     						logger.log(Level.INFO, "--- RequestUpdatedStatus -> Received successful GET_NEIGHBOURS response (result == 0)");
     					}
-    					else {
+    					else if (request.isReceived()) {
     						logger.log(Level.INFO, "--- RequestUpdatedStatus -> Received unsuccessful GET_NEIGHBOURS response (result != 0)");    			
     					}
     				}
 
     				// START_DISCOVERY
     				if (!MTRRContext.getInstance().isGetNeighboursResponseSuccessful()) {    		
-    					while (!MTRRContext.getInstance().isStart_discoveryResponseSuccessful()) {
-    						sendStartDiscovery();
-    						while (!MTRRContext.getInstance().isStart_discoveryResponseReceived());
-
-    						if (MTRRContext.getInstance().isStart_discoveryResponseSuccessful()) {
+    					int startDiscoveryTry = 0;
+    					while ((!MTRRContext.getInstance().isStart_discoveryResponseSuccessful()) && (startDiscoveryTry < configuration.startDiscoveryMaxTryouts)) {
+    						startDiscoveryTry++;
+    						byte cdtRequestID = nextRequestID();
+    						PendingCDTRequest request = cdtResponses.register(MessagesCONSTANTS.SUBTYPE_START_DISCOVERY, cdtRequestID);
+    						sendStartDiscovery(cdtRequestID);
+
+    						if (awaitCDTResponse(request, configuration.startDiscoveryTimeout)) {
     							logger.log(Level.INFO, "--- RequestUpdatedStatus -> Received successful START_DISCOVERY response (result == 0)");
     						}
-    						else {
+    						else if (request.isReceived()) {
     							logger.log(Level.INFO, "--- RequestUpdatedStatus -> Received unsuccessful START_DISCOVERY response (result != 0)");    			
     						}        		    			
     					}
     				}
-    		    	logsci.log(Level.INFO, methodName + ",get_neighbours procedure: end," + System.currentTimeMillis());
+    		    	sciTiming.probe("requestUpdatedStatus,get_neighbours procedure: end");
     			}
     			
     	    	// Request the STATE_VECTOR using the ACOUSTIC channel
-    	    	for (Vehicle vehicle : availableVehicles) {
-    	    		if (vehicle.getType().equals(VehicleType.AUV)) {
-    	   				requestStateVectorAcoustic(vehicle, stateVectorVehicleRequestIdMap.get(vehicle.getId()));
-    	    		}
-    	    	}    	    	
+    	    	requestPendingStateVectorsAcoustic(availableVehicles);
     		}
     	}
-    	    	    	
-    	if (!internalRequestUpdatedStatus) {
-    		ThriftClientToMMT.getInstance().sendUpdatedStatusNotification();
-    	}
     	
+    	Set<Integer> pendingVehicles = statusRefresh.getPendingVehicles();
+    	if (!pendingVehicles.isEmpty()) {
+    		logger.log(Level.INFO, "--- Vehicles {0} have not answered the status request yet", pendingVehicles);
+    	}
+    	    	    	
     	requestUpdate = false;
-    	logsci.log(Level.INFO, methodName + ",exit," + System.currentTimeMillis());
+    	sciTiming.probe("requestUpdatedStatus,exit");
     }
     
 	/**
@@ -330,26 +590,44 @@ public class MTRR implements MTFeeder, MTReporter {
      * @throws InterruptedException
      */
     public void startMission(Mission globalMissionPlan) throws InterruptedException {
-    	String methodName = "startMission";
-    	logsci.log(Level.INFO, methodName + ",entry," + System.currentTimeMillis());
+    	long start = System.nanoTime();
+    	
+    	try {
+    		handleStartMission(globalMissionPlan);
+    	} finally {
+    		metrics.recordSince("mtrr.startMission", start);
+    	}
+    }
+    
+    private void handleStartMission(Mission globalMissionPlan) throws InterruptedException {
+    	sciTiming.probe("startMission,entry");
     	// Extra verification
     	if (globalMissionPlan == null) {
     		logger.log(Level.WARNING, "+++ Global mission plan is NULL... Ignoring start mission request");
-        	logsci.log(Level.INFO, methodName + ",exit: mission is empty," + System.currentTimeMillis());
+        	sciTiming.probe("startMission,exit: mission is empty");
     		return;
     	}
     	
         logger.log(Level.INFO, "*** START MISSION: new mission plan received with ID {0}", globalMissionPlan.getMissionId());
         logger.log(Level.INFO, "--- The mission {0} has {1} actions", new Object[] {globalMissionPlan.getMissionId(), globalMissionPlan.getActions().size()});
 
-        if (missionActive) {
+        // An aborted mission whose vehicles have all been notified via IP ends right away,
+        // without waiting for its acoustic notifications
+        AbortFanOut previousFanOut = abortFanOut;
+        if ((previousFanOut != null) && previousFanOut.preempt()) {
+        	logger.log(Level.INFO, "--- Mission {0} preempts the acoustic abort notifications of mission {1}", new Object[] {globalMissionPlan.getMissionId(), previousFanOut.getMissionId()});
+        	endMission(previousFanOut.getMissionId(), MessagesCONSTANTS.END_REASON_ABORTED);
+        }
+
+        // Several MMT consoles may request a mission at the same time, only one of them starts it
+        if (!missionActive.compareAndSet(false, true)) {
         	ThriftClientToMMT.getInstance().sendError(1062, "Requested new mission " + globalMissionPlan.getMissionId() + " while mission " + currentMissionID + " is still running");
 
         	logger.log(Level.WARNING, "+++ Mission {0} requested while mission {1} still active", new Object[] {globalMissionPlan.getMissionId(), currentMissionID});
         	logger.log(Level.WARNING, "+++ Ignoring new mission request for mission {0}", globalMissionPlan.getMissionId());
         	       
         	// Exits the method without further processing of the new mission request
-        	logsci.log(Level.INFO, methodName + ",exit: there is an active mission," + System.currentTimeMillis());
+        	sciTiming.probe("startMission,exit: there is an active mission");
         	return;
         }
 
@@ -357,24 +635,29 @@ public class MTRR implements MTFeeder, MTReporter {
         
         if ((!globalMissionPlan.isSetActions()) || globalMissionPlan.getActions().isEmpty() ) {
             logger.log(Level.WARNING, "+++ Mission {0} plan is empty!", currentMissionID);
+            missionActive.set(false);
             
             // As the plan is empty, the method returns without further processing of the mission plan
-        	logsci.log(Level.INFO, methodName + ",exit: mission plan is empty," + System.currentTimeMillis());            
+        	sciTiming.probe("startMission,exit: mission plan is empty");            
             return;
         }     
         
         if ((!globalMissionPlan.isSetVehicles()) || globalMissionPlan.getVehicles().isEmpty() || globalMissionPlan.getVehiclesSize() == 0) {
             logger.log(Level.WARNING, "+++ Mission {0} vehicle list is empty!", currentMissionID);
+            missionActive.set(false);
             
             // As the plan is empty, the method returns without further processing of the mission plan
-        	logsci.log(Level.INFO, methodName + ",exit: mission has no vehicles," + System.currentTimeMillis());
+        	sciTiming.probe("startMission,exit: mission has no vehicles");
             return;        	
         }
 
-        missionActive = true; 
         loadConfiguration();
+        
+        // The reports of the mission are handled in the assignment mode it was started with,
+        // even if the configuration is reloaded while it runs
+        final byte assignmentMode = configuration.assignmentMode;
     	logger.log(Level.INFO, "### LOGGING ACTIONS IN THE PLAN PROVIDED BY THE MMT");
-    	logsci.log(Level.INFO, methodName + ",logging actions in the plan: begin," + System.currentTimeMillis());
+    	sciTiming.probe("startMission,logging actions in the plan: begin");
         for (Action action : globalMissionPlan.getActions()) {
         	// Area
         	Region area = action.getArea();
@@ -397,7 +680,7 @@ public class MTRR implements MTFeeder, MTReporter {
         	logger.log(Level.INFO, "### --- ACTION {0} ({1}): Assigned Vehicle ID = {2}", new Object[] {action.getRelatedTask().getDescription(), action.getActionId(), action.getAssignedVehicleId()});
         	logger.log(Level.INFO, "### --- ACTION {0} ({1}): Parent Action ID = {2}", new Object[] {action.getRelatedTask().getDescription(), action.getActionId(), action.getParentActionId()});
         }
-    	logsci.log(Level.INFO, methodName + ",logging actions in the plan: end," + System.currentTimeMillis());
+    	sciTiming.probe("startMission,logging actions in the plan: end");
         MissionParser missionParser = new MissionParser(); 
         missionParser.setLogger(logger);
         MTRRContext.getInstance().currentPlanHasAUVs = missionParser.hasAUVs(globalMissionPlan);
@@ -405,17 +688,17 @@ public class MTRR implements MTFeeder, MTReporter {
         PSManagerGlobalVariables.missionID = currentMissionID;
         logger.log(Level.INFO, "--- Mission ID: {0}", PSManagerGlobalVariables.missionID);
                 
-        MessageFormatter.getInstance().setMission_origin_latitude(refCoordsLatitude);
-        MessageFormatter.getInstance().setMission_origin_longitude(refCoordsLongitude);
+        MessageFormatter.getInstance().setMission_origin_latitude(configuration.refCoordsLatitude);
+        MessageFormatter.getInstance().setMission_origin_longitude(configuration.refCoordsLongitude);
         
         /////////////////////////////////////////////////////////////
         // STORE MISSION IN DATABASE
         /////////////////////////////////////////////////////////////
         try {
-        	logsci.log(Level.INFO, methodName + ",calling SQ.storeRefCoords: before," + System.currentTimeMillis());
-            SemanticQuery.getInstance().storeRefCoords(
+        	sciTiming.probe("startMission,calling SQ.storeRefCoords: before");
+            reportStore.storeRefCoords(
                     PSManagerGlobalVariables.missionID , MessageFormatter.getInstance().getMission_origin_latitude(), MessageFormatter.getInstance().getMission_origin_longitude());
-        	logsci.log(Level.INFO, methodName + ",calling SQ.storeRefCoords: after," + System.currentTimeMillis());
+        	sciTiming.probe("startMission,calling SQ.storeRefCoords: after");
         } catch (Exception e) {
             logger.log(Level.SEVERE, "!!! Exception while storing reference coordinates into the SQ");
             logger.log(Level.SEVERE, e.getMessage());
@@ -426,113 +709,156 @@ public class MTRR implements MTFeeder, MTReporter {
         /////////////////////////////////////////////////////////////       
         // Store mission in the database
         try {
-        	logsci.log(Level.INFO, methodName + ",calling SQ.storeMission: before," + System.currentTimeMillis());
-            SemanticQuery.getInstance().storeMission(globalMissionPlan);
-        	logsci.log(Level.INFO, methodName + ",calling SQ.storeMission: after," + System.currentTimeMillis());
+        	sciTiming.probe("startMission,calling SQ.storeMission: before");
+            reportStore.storeMission(globalMissionPlan);
+        	sciTiming.probe("startMission,calling SQ.storeMission: after");
         } 
         catch (Exception e) {
             logger.log(Level.SEVERE, "!!! Exception while storing the mission into the SQ");
             logger.log(Level.SEVERE, e.getMessage());
         }  
         
-        //Get vehicles involved in mission   
-    	logsci.log(Level.INFO, methodName + ",calling MP.parseVehiclesInMission: before," + System.currentTimeMillis());
-        List<Vehicle> vehicleList = missionParser.parseVehiclesInMission(globalMissionPlan); 
-    	logsci.log(Level.INFO, methodName + ",calling MP.parseVehiclesInMission: after," + System.currentTimeMillis());
+        // Index the plan once, and get the vehicles involved in mission
+    	sciTiming.probe("startMission,calling MP.indexMission: before");
+        MissionIndex missionIndex = missionParser.indexMission(globalMissionPlan);
+        List<Vehicle> vehicleList = missionIndex.getInvolvedVehicles(); 
+    	sciTiming.probe("startMission,calling MP.indexMission: after");
         
         // Store assigned vehicles to the mission in the database
         try {
-        	logsci.log(Level.INFO, methodName + ",calling SQ.storeAssignedVehicles: before," + System.currentTimeMillis());
-            SemanticQuery.getInstance().storeAssignedVehicles(globalMissionPlan.missionId, vehicleList);
-        	logsci.log(Level.INFO, methodName + ",calling SQ.storeAssignedVehicles: after," + System.currentTimeMillis());
+        	sciTiming.probe("startMission,calling SQ.storeAssignedVehicles: before");
+            reportStore.storeAssignedVehicles(globalMissionPlan.missionId, vehicleList);
+        	sciTiming.probe("startMission,calling SQ.storeAssignedVehicles: after");
         }
         catch (Exception e) {
         	logger.log(Level.SEVERE, "!!! Exception while storing the assigned vehicles into the SQ");
         	logger.log(Level.SEVERE, e.getMessage());
         } 
         
-        vehicleMap.clear();
-        vehiclePlansMap.clear();
-        lastMessagePerVehicle.clear();
+        // An abort requested once its mission had already ended may still be notifying the vehicles
+        previousFanOut = abortFanOut;
+        if (previousFanOut != null) {
+        	previousFanOut.cancel();
+        }
+        
+        // The task assignments and subscriptions of the previous mission still waiting for the acoustic channel are not needed
+        getAcousticScheduler().cancelAll(AcousticScheduler.PRIORITY_TASK, AcousticScheduler.PRIORITY_SUBSCRIPTION);
+        
+        vehicleStates.clear();
         awaitingActions.clear();
+        deliveryTracker.clear();
+        ThriftClientToMMT.getInstance().clearStatusReports();
+        vehicleRegistry.invalidateAll();
+        receivedEvents.setWindowSize(configuration.dedupWindowSize);
+        receivedTasks.setWindowSize(configuration.dedupWindowSize);
         receivedEvents.clear();
         receivedTasks.clear();
         
         // Check if a requestUpdatedStatus has been requested
         if (!requestedUpdatedStatus) {
         	logger.log(Level.INFO, "--- Requesting status update from startMission");
-        	internalRequestUpdatedStatus = true;
-        	requestUpdatedStatus();
-        	internalRequestUpdatedStatus = false;
+        	awaitStatusUpdate(statusUpdates.request(false));
         }
                 
         // SUBSCRIPTION TO EVENTS
-    	logsci.log(Level.INFO, methodName + ",subscription to events procedure: begin," + System.currentTimeMillis());
+    	sciTiming.probe("startMission,subscription to events procedure: begin");
         for (Vehicle vehicle : vehicleList) {
-        	byte subscriptionRequestID = (byte) requestID++;
+        	byte subscriptionRequestID = nextRequestID();
         	
         	requestEventsSubscription((byte) vehicle.getId(), (byte) subscriptionRequestID, PSManagerCONSTANTS.REQUEST_EVENTS_IP);
         	        	
         	if (vehicle.getType().equals(VehicleType.AUV)) {
-        		if (!isCDTDiscoveryRequired || MTRRContext.getInstance().CDTready) {
+        		if (!configuration.isCDTDiscoveryRequired || MTRRContext.getInstance().CDTready) {
                 	requestEventsSubscription((byte) vehicle.getId(), (byte) subscriptionRequestID, PSManagerCONSTANTS.REQUEST_EVENTS_ACOUSTIC);
         		}
         	}
         }
-    	logsci.log(Level.INFO, methodName + ",subscription to events procedure: end," + System.currentTimeMillis());
+    	sciTiming.probe("startMission,subscription to events procedure: end");
        
 
         // FIRST TASK ASSIGNMENT
         logger.log(Level.INFO, "--- Assignment of first task for each vehicle");
        
         // Task assignment per vehicle        
-        if (assignmentMode == MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE) {
-        	// For each vehicle taking part in the mission
-        	for (Vehicle vehicle : vehicleList) {        	
+        if ((assignmentMode == MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE) || (assignmentMode == MessagesCONSTANTS.ASSIGNMENT_LOOK_AHEAD)) {
+        	// Get the filtered and sorted plan for each vehicle and encode its first task,
+        	// in parallel if there are preparation threads
+        	sciTiming.probe("startMission,preparation of first tasks: before");
+        	List<PreparedTask> preparedTasks = prepareFirstTasks(vehicleList, missionIndex, assignmentMode);
+        	sciTiming.probe("startMission,preparation of first tasks: after");
+        	
+        	// For each vehicle taking part in the mission, in the order of the mission
+        	for (PreparedTask preparedTask : preparedTasks) {
+        		VehicleState vehicleState = preparedTask.vehicleState;
+        		Vehicle vehicle = vehicleState.getVehicle();
         		int vehicleID = vehicle.getId();         		
 
-        		// Update the vehicles map (will be used by the reportTask method)
-        		vehicleMap.put(vehicleID, vehicle);
+        		// Add the vehicle to the vehicles state map (will be used by the reportTask method)
         		logger.log(Level.INFO, "--- Adding vehicle {0} ({1}) to the internal MTRR vehicle map", new Object[] {vehicle.getName(), vehicleID});
-
-        		// Get the filtered and sorted plan for each vehicle
-        		vehiclePlansMap.put(vehicleID, missionParser.parseVehiclePlan(vehicle, globalMissionPlan));
         		
-        		// EXTRA LOG FOR TESTS 20180605
-        		logger.log(Level.INFO, "... Parsed plan for vehicle {0} ({1}) is as follows:", new Object[] {vehicle.getName(), vehicleID});
-        		for (Action action : vehiclePlansMap.get(vehicleID)) {
-        			logger.log(Level.INFO, "... --- Action {0} ({1}) starting at {2}", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), action.getStartTime()});
+        		synchronized (vehicleState) {
+        			vehicleStates.put(vehicleID, vehicleState);
+        			
+        			Action action = preparedTask.action;
+        			if (action == null) {
+        				logger.log(Level.WARNING, "+++ No tasks to assign to vehicle {0} ({1})", new Object[] {vehicle.getName(), vehicleID});
+        				continue;
+        			}
+        			vehicleState.setCurrentAction(action);
+
+        			// And assign the first task
+        			logger.log(Level.INFO, "--- Assigning task {0} ({1}) to vehicle {2} ({3})", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), vehicle.getName(), vehicle.getId()});
+        			publishTask(preparedTask.frame, action, vehicleState);
+        			
+        			if (assignmentMode == MessagesCONSTANTS.ASSIGNMENT_LOOK_AHEAD) {
+        				queueLookAheadTasks(vehicleState);
+        			}
         		}
 
-        		// Get the first task of the plan and remove it from the list
-        		Action action = vehiclePlansMap.get(vehicleID).poll();
-        		currentActionMap.put(vehicleID, action);
-
-        		// And assign the first task
-        		logger.log(Level.INFO, "--- Assigning task {0} ({1}) to vehicle {2} ({3})", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), vehicle.getName(), vehicle.getId()});
-        		assignTask(action, vehicle);
-
         		// NOTE: Next tasks are sent by the reportTask method upon receiving a COMPLETED status
         	}          
         }
         else if (assignmentMode == MessagesCONSTANTS.ASSIGNMENT_FULL_SEQUENCE) {        	
         // Tasks assignment by start time order
-        	logsci.log(Level.INFO, methodName + ",calling MP.parsePlan: before," + System.currentTimeMillis());
-        	Mission filteredMission = missionParser.parsePlan(globalMissionPlan);
-        	logsci.log(Level.INFO, methodName + ",calling MP.parsePlan: after," + System.currentTimeMillis());
-        	logsci.log(Level.INFO, methodName + ",calling MP.getVehiclesMap: before," + System.currentTimeMillis());
-        	HashMap<Integer, Vehicle> vehiclesMap = missionParser.getVehiclesMap(globalMissionPlan);
-        	logsci.log(Level.INFO, methodName + ",calling MP.getVehiclesMap: after," + System.currentTimeMillis());
-
-        	logsci.log(Level.INFO, methodName + ",first task assignment procedure for all vehicles: before," + System.currentTimeMillis());
-        	for (Action action : filteredMission.getActions()) {
+        	sciTiming.probe("startMission,calling MI.getFilteredPlan: before");
+        	List<Action> filteredActions = missionIndex.getFilteredPlan();
+        	sciTiming.probe("startMission,calling MI.getFilteredPlan: after");
+        	HashMap<Integer, Vehicle> vehiclesMap = missionIndex.getVehiclesMap();
+
+        	for (Vehicle vehicle : vehicleList) {
+        		vehicleStates.put(vehicle.getId(), new VehicleState(vehicle, new LinkedList<Action>(), assignmentMode));
+        	}
+        	
+        	sciTiming.probe("startMission,first task assignment procedure for all vehicles: before");
+        	for (Action action : filteredActions) {
         		Vehicle assignedVehicle = vehiclesMap.get(action.getAssignedVehicleId());
+        		VehicleState vehicleState = vehicleStates.get(assignedVehicle.getId());
         		logger.log(Level.INFO, "--- Assigning task {0} ({1}) to vehicle {2} ({3})", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), assignedVehicle.getName(), assignedVehicle.getId()});
-        		assignTask(action, assignedVehicle);
+        		synchronized (vehicleState) {
+        			vehicleState.setCurrentAction(action);
+        			assignTask(action, vehicleState);
+        		}
         	}
-        	logsci.log(Level.INFO, methodName + ",first task assignment procedure for all vehicles: after," + System.currentTimeMillis());
+        	sciTiming.probe("startMission,first task assignment procedure for all vehicles: after");
         }   
-    	logsci.log(Level.INFO, methodName + ",exit," + currentMissionID + "," + System.currentTimeMillis());
+        else if (assignmentMode == MessagesCONSTANTS.ASSIGNMENT_DEPENDENCY_GRAPH) {
+        	// Tasks assignment by dependencies: each vehicle gets every action with no pending dependencies
+        	sciTiming.probe("startMission,first task assignment procedure for all vehicles: before");
+        	for (Vehicle vehicle : vehicleList) {
+        		VehicleState vehicleState = new VehicleState(vehicle, new LinkedList<Action>(), assignmentMode);
+        		vehicleState.setDependencyGraph(new ActionDependencyGraph(missionIndex.getVehiclePlan(vehicle), configuration.inFlightWindow));
+        		logger.log(Level.INFO, "--- Adding vehicle {0} ({1}) to the internal MTRR vehicle map", new Object[] {vehicle.getName(), vehicle.getId()});
+        		
+        		synchronized (vehicleState) {
+        			vehicleStates.put(vehicle.getId(), vehicleState);
+        			assignReadyActions(vehicleState);
+        		}
+        		
+        		// NOTE: Next tasks are released by the reportTask method upon receiving a COMPLETED status
+        	}
+        	sciTiming.probe("startMission,first task assignment procedure for all vehicles: after");
+        }
+    	sciTiming.probe("startMission,exit", currentMissionID);
     }
 
     /**
@@ -543,9 +869,33 @@ public class MTRR implements MTFeeder, MTReporter {
      */
     @Override
     public void endMission(int missionID, byte reason) {
-    	String methodName = "endMission";
-    	logsci.log(Level.INFO, methodName + ",entry," + missionID + "," + reason + "," + System.currentTimeMillis());
-    	missionActive = false;
+    	long start = System.nanoTime();
+    	
+    	try {
+    		handleEndMission(missionID, reason);
+    	} finally {
+    		metrics.recordSince("mtrr.endMission", start);
+    	}
+    }
+    
+    private void handleEndMission(int missionID, byte reason) {
+    	sciTiming.probe("endMission,entry", missionID, reason);
+    	
+    	// Several vehicles may complete their last task at the same time, the mission ends only once
+    	if ((missionID != currentMissionID) || !missionActive.compareAndSet(true, false)) {
+    		logger.log(Level.INFO, "--- Mission {0} has already ended", missionID);
+    		sciTiming.probe("endMission,exit: mission already ended", missionID, reason);
+    		return;
+    	}
+    	
+    	if (configuration.frameTraceEnabled) {
+    		dumpFrameTrace(MessagesCONSTANTS.FRAME_TRACE_FILENAME);
+    	}
+    	
+    	// Write the pending timing probes and the metrics of the mission
+    	sciTiming.drain();
+    	dumpMetrics(MessagesCONSTANTS.METRICS_FILENAME);
+    	
     	switch(reason) {
     	case MessagesCONSTANTS.END_REASON_FINISHED:
     		logger.log(Level.INFO, "*** LAST TASK IN MISSION HAS BEEN ASSIGNED ***");
@@ -557,7 +907,7 @@ public class MTRR implements MTFeeder, MTReporter {
     		logger.log(Level.INFO, "*** MISSION END ***");
     	
     	}
-    	logsci.log(Level.INFO, methodName + ",exit," + missionID + "," + "reason" + "," + System.currentTimeMillis());
+    	sciTiming.probe("endMission,exit", missionID, reason);
     }
 
     /**
@@ -566,10 +916,20 @@ public class MTRR implements MTFeeder, MTReporter {
      */
     @Override
     public void enablePeriodicEnvironmentalReport() {
+    	long start = System.nanoTime();
+    	
+    	try {
+    		handleEnablePeriodicEnvironmentalReport();
+    	} finally {
+    		metrics.recordSince("mtrr.enablePeriodicEnvironmentalReport", start);
+    	}
+    }
+    
+    private void handleEnablePeriodicEnvironmentalReport() {
         SWARMsmsg msg;
         SWARMsDDSFrame ddsFrame = new SWARMsDDSFrame();
         msg = ddsFrame;
-        psManager.publish(msg, PSManagerCONSTANTS.REQUEST_ENVIRONMENT_ACOUSTIC);
+        publish(msg, PSManagerCONSTANTS.REQUEST_ENVIRONMENT_ACOUSTIC);
     }
 
     /**
@@ -578,34 +938,99 @@ public class MTRR implements MTFeeder, MTReporter {
      */
     @Override
     public void disablePeriodicEnvironmentalReport() {
+    	long start = System.nanoTime();
+    	
+    	try {
+    		handleDisablePeriodicEnvironmentalReport();
+    	} finally {
+    		metrics.recordSince("mtrr.disablePeriodicEnvironmentalReport", start);
+    	}
+    }
+    
+    private void handleDisablePeriodicEnvironmentalReport() {
         psManager.unpublish(PSManagerCONSTANTS.REQUEST_ENVIRONMENT_ACOUSTIC);
     }
 
+    /**
+     * Hands a received report to the mailbox of its vehicle, so the reports of each vehicle
+     * are handled one at a time in arrival order whatever their type, and the reports of
+     * different vehicles in parallel. Without mailboxes, the report is handled right away.
+     * 
+     * @param vehicleId		The vehicle the report comes from
+     * @param reportType	The type of the report, for the logs
+     * @param droppable		True if the report can be dropped when the mailbox is full, false to wait for room
+     * @param report		The handling of the report
+     */
+    private void dispatchReport(byte vehicleId, String reportType, boolean droppable, Runnable report) {
+    	VehicleMailboxDispatcher dispatcher = mailboxes;
+    	
+    	if (dispatcher == null) {
+    		report.run();
+    		return;
+    	}
+    	
+    	try {
+    		if (!dispatcher.dispatch(vehicleId, reportType, droppable, report)) {
+    			logger.log(Level.WARNING, "+++ Mailbox for vehicle {0} is full, dropped {1} report ({2} dropped so far)", new Object[] {vehicleId, reportType, dispatcher.getDropped()});
+    		}
+    	} catch (InterruptedException e) {
+    		logger.log(Level.SEVERE, "!!! Interrupted while queueing a {0} report for vehicle {1}", new Object[] {reportType, vehicleId});
+    		Thread.currentThread().interrupt();
+    	}
+    }
+    
     @Override
-	public void reportEnvironment(ProcessedEnvironmentalData data, int missionId) {
-    	String methodName = "reportEnvironment";
-    	logsci.log(Level.INFO, methodName + ",entry," + missionId + "," + data.seOperation + "," + System.currentTimeMillis());
+    public void reportEnvironment(final ProcessedEnvironmentalData data, final int missionId) {
+    	// The state vectors are sent periodically, so they are the only reports that can be dropped
+    	dispatchReport(data.getVid(), "environment", true, new Runnable() {
+    		public void run() {
+    			long start = System.nanoTime();
+    			
+    			try {
+    				handleReportEnvironment(data, missionId);
+    			} finally {
+    				metrics.recordSince("mtrr.reportEnvironment", start);
+    			}
+    		}
+    	});
+    }
+    
+    private void handleReportEnvironment(ProcessedEnvironmentalData data, int missionId) {
+    	sciTiming.probe("reportEnvironment,entry", missionId, data.seOperation);
 		if (requestUpdate) {    		
 			vehicleAvailability.put((int) data.getVid(), true);
+			
+			long latency = statusRefresh.respond(data.getVid());
+			if (latency >= 0) {
+				metrics.getTimer("status.response").record(latency);
+				logger.log(Level.INFO, "--- Vehicle {0} answered the status request after {1} ms", new Object[] {data.getVid(), TimeUnit.NANOSECONDS.toMillis(latency)});
+			}
 		}
 		
+		vehicleRegistry.updateStateVector(data);
+		
 		logger.info(" @@@@@@@@@@@	   STORE REPORT in DDBB and ONTOLOGY ");
 	    try {
-	    	logsci.log(Level.INFO, methodName + ",calling SQ.storeStateVectorInDB: before," + System.currentTimeMillis());
-	        SemanticQuery.getInstance().storeStateVectorInDB(missionId, data.getVid(), data.getLatitude(), data.getLongitude(), data.getAltitude(), data.getDepth(), 
-	        		data.getPitch(), data.getRoll(), data.getYaw(), data.getSpeed(), data.getRemaining_battery(), data.getTimems(), data.getResult());
-	    	logsci.log(Level.INFO, methodName + ",calling SQ.storeStateVectorInDB: after," + System.currentTimeMillis());
-
-	    	logsci.log(Level.INFO, methodName + ",calling SQ.storeStateVector: before," + System.currentTimeMillis());
-	        SemanticQuery.getInstance().storeStateVector(data.getVid(), data.getLatitude(), data.getLongitude(), data.getAltitude(), data.getDepth(), 
-			data.getPitch(), data.getRoll(), data.getYaw(), data.getSpeed(), data.getRemaining_battery(), data.getTimems());
-	    	logsci.log(Level.INFO, methodName + ",calling SQ.storeStateVector: after," + System.currentTimeMillis());
+	    	if (stateVectorBatcher != null) {
+	    		stateVectorBatcher.add(missionId, data);
+	    	}
+	    	else {
+	    		sciTiming.probe("reportEnvironment,calling SQ.storeStateVectorInDB: before");
+	    		reportStore.storeStateVectorInDB(missionId, data.getVid(), data.getLatitude(), data.getLongitude(), data.getAltitude(), data.getDepth(), 
+	    				data.getPitch(), data.getRoll(), data.getYaw(), data.getSpeed(), data.getRemaining_battery(), data.getTimems(), data.getResult());
+	    		sciTiming.probe("reportEnvironment,calling SQ.storeStateVectorInDB: after");
+
+	    		sciTiming.probe("reportEnvironment,calling SQ.storeStateVector: before");
+	    		reportStore.storeStateVector(data.getVid(), data.getLatitude(), data.getLongitude(), data.getAltitude(), data.getDepth(), 
+	    				data.getPitch(), data.getRoll(), data.getYaw(), data.getSpeed(), data.getRemaining_battery(), data.getTimems());
+	    		sciTiming.probe("reportEnvironment,calling SQ.storeStateVector: after");
+	    	}
 
 	        // If the concentration measurement is not zero
 	        if (data.getConcentration() != 0) {
 	        	logger.log(Level.INFO, ">>> REPORT ENVIRONMENT: Received environment report with salinity concentration value of {0}", data.getConcentration());
-	        	logsci.log(Level.INFO, methodName + ",calling SQ.storeSalinity: before," + System.currentTimeMillis());
-	        	SemanticQuery.getInstance().storeSalinity(missionId,
+	        	sciTiming.probe("reportEnvironment,calling SQ.storeSalinity: before");
+	        	reportStore.storeSalinity(missionId,
 	        			data.getVid(),
 	        			data.getLatitude(),
 	        			data.getLongitude(),
@@ -613,31 +1038,41 @@ public class MTRR implements MTFeeder, MTReporter {
 	        			data.getAltitude(),
 	        			data.getConcentration(),
 	        			data.getTimems());
-	        	logsci.log(Level.INFO, methodName + ",calling SQ.storeSalinty: after," + System.currentTimeMillis());
+	        	sciTiming.probe("reportEnvironment,calling SQ.storeSalinty: after");
 	        }
 	
 	    } catch (Exception e) {
 	        logger.log(Level.SEVERE, "MTRR: Report Environment Exception: {0}", e.getMessage());            
 	    }
-    	logsci.log(Level.INFO, methodName + ",exit," + missionId + "," + data.seOperation + "," + System.currentTimeMillis());
+    	sciTiming.probe("reportEnvironment,exit", missionId, data.seOperation);
 	}
 
-	@Override
-    public void reportEvent(SWARMsDDSFrame data, int missionId) {
-		String methodName = "reportEvent";
-    	logsci.log(Level.INFO, methodName + ",entry," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+    @Override
+    public void reportEvent(final SWARMsDDSFrame data, final int missionId) {
+    	dispatchReport(data.vid, "event", false, new Runnable() {
+    		public void run() {
+    			long start = System.nanoTime();
+    			
+    			try {
+    				handleReportEvent(data, missionId);
+    			} finally {
+    				metrics.recordSince("mtrr.reportEvent", start);
+    			}
+    		}
+    	});
+    }
+    
+    private void handleReportEvent(SWARMsDDSFrame data, int missionId) {
+    	sciTiming.probe("reportEvent,entry", missionId, data.sequenceOperation);	
     	logger.log(Level.INFO, "@@@ EVENT REPORT > MTRR");
     	
-    	StoredEvent event = new StoredEvent(missionId, data.vid, data.subtype, data.seqoperation);
-    	    	    	
-    	if (receivedEvents.contains(event)) { 
-    		logger.log(Level.INFO, "--- Duplicated event report {0} ({1}: {2}) for vehicle {3} ({4})", new Object[] {data.event_description, data.subtype, data.eventID, vehicleMap.get(data.vid).getName(), data.vid});
+    	if (!receivedEvents.register(missionId, data.vid, data.subtype, data.seqoperation, 0)) { 
+    		logger.log(Level.INFO, "--- Duplicated event report {0} ({1}: {2}) for vehicle {3}", new Object[] {data.event_description, data.subtype, data.eventID, data.vid});
     	}
     	else {
-    		receivedEvents.add(event);
     		try {
-    	    	logsci.log(Level.INFO, methodName + ",calling SQ.storeEvent: before," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
-    			SemanticQuery.getInstance().storeEvent(data.vid,
+    	    	sciTiming.probe("reportEvent,calling SQ.storeEvent: before", missionId, data.sequenceOperation);	
+    			reportStore.storeEvent(data.vid,
     					missionId,
     					data.subtype,
     					data.seqoperation,
@@ -645,37 +1080,50 @@ public class MTRR implements MTFeeder, MTReporter {
     					data.id_error,
     					data.event_description,
     					data.eventID);
-    	    	logsci.log(Level.INFO, methodName + ",calling SQ.storeEvent: after," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+    	    	sciTiming.probe("reportEvent,calling SQ.storeEvent: after", missionId, data.sequenceOperation);	
     		} catch (TException e) {
     			logger.log(Level.WARNING, "There was an exception while trying to store an event report from {0}: {1}", new Object[] {data.vid, data.event_description});
     			logger.log(Level.WARNING, "Exception received: {0}", e.getMessage());
     		}
 
 //    		if (notifyStatusToMMT) {
-//    	    	logsci.log(Level.INFO, methodName + ",calling CTM.sendError: before," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+//    	    	sciTiming.probe("reportEvent,calling CTM.sendError: before", missionId, data.sequenceOperation);	
 //    			ThriftClientToMMT.getInstance().sendError(data.id_error, data.event_description);
-//    	    	logsci.log(Level.INFO, methodName + ",calling CTM.sendError: after," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+//    	    	sciTiming.probe("reportEvent,calling CTM.sendError: after", missionId, data.sequenceOperation);	
 //    		}
     	}
-    	logsci.log(Level.INFO, methodName + ",exit," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());		
+    	sciTiming.probe("reportEvent,exit", missionId, data.sequenceOperation);		
     }
     
     @Override
-    public synchronized void reportTask(SWARMsDDSFrame data, int missionId) {
-    	String methodName = "reportTask";
-    	logsci.log(Level.INFO, methodName + ",entry," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+    public void reportTask(final SWARMsDDSFrame data, final int missionId) {
+    	dispatchReport(data.vid, "task", false, new Runnable() {
+    		public void run() {
+    			long start = System.nanoTime();
+    			
+    			try {
+    				handleReportTask(data, missionId);
+    			} finally {
+    				metrics.recordSince("mtrr.reportTask", start);
+    			}
+    		}
+    	});
+    }
+    
+    private void handleReportTask(SWARMsDDSFrame data, int missionId) {
+    	sciTiming.probe("reportTask,entry", missionId, data.sequenceOperation);	
     	//Information provided:vehicle id, type, subtype, sequence operation, data 
     	logger.log(Level.INFO, "@@@ RECEIVED TASK REPORT");
     	
-    	if (!missionActive) {
+    	if (!missionActive.get()) {
     		logger.log(Level.INFO, "--- Received a task status report with no active mission running");
-        	logsci.log(Level.INFO, methodName + ",exit: no active mission running," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+        	sciTiming.probe("reportTask,exit: no active mission running", missionId, data.sequenceOperation);	
     		return;
     	}
     	
     	if (currentMissionID != missionId) {
     		logger.log(Level.INFO, "--- Received a task status report for mission ID {0} while running mission ID {1}", new Object[] {missionId, currentMissionID});
-        	logsci.log(Level.INFO, methodName + ",exit: report for different mission ID," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+        	sciTiming.probe("reportTask,exit: report for different mission ID", missionId, data.sequenceOperation);	
     		return;
     	}
     		
@@ -683,47 +1131,107 @@ public class MTRR implements MTFeeder, MTReporter {
 		byte taskID = data.subtype;
 		int status = data.id_error;
 		String vehicleName;
-		vehicleName = SemanticQuery.getInstance().getVehicle(vehicleID).getName();
+		Vehicle reportingVehicle = vehicleRegistry.getVehicle(vehicleID);
+		vehicleName = (reportingVehicle != null) ? reportingVehicle.getName() : "unknown";
 		String taskName = TaskHelper.getTaskName(taskID);
 		String statusName = TaskHelper.getStatusName(status);
     	logger.log(Level.INFO, "--- TASK REPORT > Vehicle: {0} ({1}) | Task: ({2}) {3} | Status: ({4}) {5} | SeqOp: {6}", new Object[] {vehicleName, vehicleID, taskID, taskName, status, statusName, data.sequenceOperation});
-    	logsci.log(Level.INFO, methodName + ",entry_point," + System.currentTimeMillis() + "," + vehicleName + "," + vehicleID + "," + taskID + "," + taskName + "," + status + "," + statusName + "," + data.sequenceOperation);
+    	sciTiming.probe("reportTask,entry_point", vehicleID, taskID, status, data.sequenceOperation);
     	
-    	StoredTask task = new StoredTask(missionId, data.vid, data.subtype, data.sequenceOperation, data.id_error);
-    	
-    	if (receivedTasks.contains(task)) {
+    	if (!receivedTasks.register(missionId, data.vid, data.subtype, data.sequenceOperation, data.id_error)) {
     		logger.log(Level.INFO, "--- Duplicated task report {0} ({1}: {2}) for vehicle {3} ({4}) [seqOp: {5}]", new Object[] {data.task_description, data.subtype, data.id_error, vehicleName, data.vid, data.sequenceOperation});
-        	logsci.log(Level.INFO, methodName + ",exit: duplicated task report," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());
+        	sciTiming.probe("reportTask,exit: duplicated task report", missionId, data.sequenceOperation);
         	return;
     	}
 
-    	receivedTasks.add(task);
     	try 
     	{    			
     		// STEP 0.0: Store the report into the ontology
-    		logsci.log(Level.INFO, methodName + ",calling SQ.storeTaskReport: begin," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
-    		SemanticQuery.getInstance().storeTaskReport(data.vid, missionId, data.subtype, data.sequenceOperation, data.id_error, data.data_epoch_time);
-    		logsci.log(Level.INFO, methodName + ",calling SQ.storeTaskReport: end," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
-
-    		// STEP 0.1: Send the report to the MMT
-    		boolean currentActionMapError = false;
-    		boolean supportedMMTStatus = true;
-    		boolean statusError = false;
-    		int errorId = data.id_error;
-    		String errorMessage = "";
-    		Action action = new Action();
-
-    		if (currentActionMap.isEmpty()) {
-    			logger.log(Level.SEVERE, "### Unexpected task report: there are no active/pending tasks");
-    			currentActionMapError = true;
-    		}
-    		else if (!currentActionMap.containsKey((int) data.vid)) {
-    			logger.log(Level.SEVERE, "### Unexpected task report for vehicle {0} ({1}): vehicle has no active/pending tasks", new Object[] {vehicleName, vehicleID});
-    			currentActionMapError = true;
+    		sciTiming.probe("reportTask,calling SQ.storeTaskReport: begin", missionId, data.sequenceOperation);	
+    		reportStore.storeTaskReport(data.vid, missionId, data.subtype, data.sequenceOperation, data.id_error, data.data_epoch_time);
+    		sciTiming.probe("reportTask,calling SQ.storeTaskReport: end", missionId, data.sequenceOperation);	
+
+    		// Reports for the same vehicle are processed in order, reports for different vehicles in parallel
+    		VehicleState vehicleState = vehicleStates.get((int) data.vid);
+    		
+    		if (vehicleState == null) {
+    			processTaskReport(data, missionId, vehicleName, null);
     		}
     		else {
-    			action = currentActionMap.get((int) data.vid);
+    			synchronized (vehicleState) {
+    				processTaskReport(data, missionId, vehicleName, vehicleState);
+    			}
+    		}
+    	} catch (Exception e) {
+    		logger.log(Level.SEVERE, "!!! Exception while processing a task report");
+    		logger.log(Level.SEVERE, e.getMessage());
+    	}
+    	sciTiming.probe("reportTask,exit", missionId, data.sequenceOperation);	
+    }
+    
+    /**
+     * Processes a task report for a vehicle. The caller must hold the lock of the vehicle state.
+     * 
+     * @param data				The task report
+     * @param missionId			The mission ID of the report
+     * @param vehicleName		The name of the reporting vehicle
+     * @param vehicleState		The state of the reporting vehicle, or null if the vehicle is not in the mission
+     */
+    private void processTaskReport(SWARMsDDSFrame data, int missionId, String vehicleName, VehicleState vehicleState) {
+    	byte vehicleID = data.vid;
+
+    	// STEP 0.1: Send the report to the MMT
+    	boolean currentActionMapError = false;
+    	boolean supportedMMTStatus = true;
+    	boolean statusError = false;
+    	boolean queuedActionReport = false;
+    	int errorId = data.id_error;
+    	String errorMessage = "";
+    	Action action = new Action();
+    	Action reportedAction = (vehicleState != null) ? vehicleState.getReportedAction(data.subtype) : null;
+
+    	if (vehicleStates.isEmpty()) {
+    		logger.log(Level.SEVERE, "### Unexpected task report: there are no active/pending tasks");
+    		currentActionMapError = true;
+    	}
+    	else if (reportedAction == null) {
+    		logger.log(Level.SEVERE, "### Unexpected task report for vehicle {0} ({1}): vehicle has no active/pending tasks", new Object[] {vehicleName, vehicleID});
+    		currentActionMapError = true;
+    	}
+    	else {
+    		action = reportedAction;
+    		
+    		// With tasks queued in the vehicle, a PENDING report may be the receipt of a queued task,
+    		// so it is attributed to the oldest task not acknowledged yet instead of the current one
+    		if ((data.id_error == MessagesCONSTANTS.TASK_REPORT_CODE_PENDING) && (vehicleState.getDependencyGraph() == null) && !vehicleState.getQueuedActions().isEmpty()) {
+    			action = vehicleState.getPendingReportedAction(data.subtype);
+    			
+    			if (action == null) {
+    				logger.log(Level.INFO, "--- Ignoring PENDING report for task {0} of vehicle {1} ({2}): all its tasks sent are acknowledged", new Object[] {data.subtype, vehicleName, vehicleID});
+    				action = reportedAction;
+    				supportedMMTStatus = false;
+    			}
+    			else {
+    				queuedActionReport = (action != reportedAction);
+    			}
+    		}
+    		if (vehicleState.getDependencyGraph() == null) {
+    			vehicleState.acknowledgeAction(action);
+    		}
+    		
+    		// A vehicle reporting a task as pending or running has received it, so its acoustic copy is not needed
+    		if (supportedMMTStatus) {
+    			if ((data.id_error == MessagesCONSTANTS.TASK_REPORT_CODE_PENDING) || (data.id_error == MessagesCONSTANTS.TASK_REPORT_CODE_RUNNING)) {
+    				if (deliveryTracker.acknowledge(vehicleID, action.getActionId(), data.subtype)) {
+    					metrics.increment("acoustic.suppressed");
+    				}
+    			}
+    			else {
+    				deliveryTracker.forget(vehicleID, action.getActionId());
+    			}
+    		}
 
+    		if (supportedMMTStatus) {
     			switch(data.id_error) {
     			case MessagesCONSTANTS.TASK_REPORT_CODE_PENDING:
     				action.setStatus(TaskStatus.NotStarted);
@@ -761,93 +1269,143 @@ public class MTRR implements MTFeeder, MTReporter {
     				break;
     			}
     		}
+    	}
 
-    		// STEP 1: EXTRA TEST
-    		if (lastMessagePerVehicle.isEmpty() || !lastMessagePerVehicle.containsKey((int) data.vid)) {
-    			logger.log(Level.WARNING, "There is no previous message sent stored for vehicle {0}", (int) data.vid);
-    		}
-    		else {
-    			SWARMsDDSFrame lastMessageSentToVehicle = lastMessagePerVehicle.get((int) data.vid);
-
-    			if (lastMessageSentToVehicle.subtype != data.subtype) {
-    				//    					statusError = true;
-    				//    					errorId = 400;
-    				//    					errorMessage = "Received status report from old task, old mission";
-    				supportedMMTStatus = false;
-    				logger.log(Level.INFO, "--- Subtype mismatch {0} {1})", new Object[]{lastMessageSentToVehicle.subtype, data.subtype});
-    				return;
-    			}
+    	// STEP 1: EXTRA TEST
+    	if ((vehicleState == null) || !vehicleState.hasLastMessage()) {
+    		logger.log(Level.WARNING, "There is no previous message sent stored for vehicle {0}", (int) data.vid);
+    	}
+    	else if ((vehicleState.getDependencyGraph() == null) && !queuedActionReport) {
+    		// With a dependency graph, the reported action has been found by its subtype, and so has
+    		// a receipt of a queued task, whose subtype may differ from the one of the last message
+    		byte lastMessageSubtype = vehicleState.getLastMessageSubtype();
+
+    		if (lastMessageSubtype != data.subtype) {
+    			//    					statusError = true;
+    			//    					errorId = 400;
+    			//    					errorMessage = "Received status report from old task, old mission";
+    			supportedMMTStatus = false;
+    			logger.log(Level.INFO, "--- Subtype mismatch {0} {1})", new Object[]{lastMessageSubtype, data.subtype});
+    			return;
     		}
+    	}
 
-    		if (notifyStatusToMMT) {
-    			if (currentActionMapError) {
-    				logger.log(Level.WARNING, "### Unexpected task report from non existing task in active mission: errorId={0}", errorId);
-//    				logsci.log(Level.INFO, methodName + ",calling CTM.sendError: before," + missionId + "," + data.sequenceOperation + "," + errorId + ","+ System.currentTimeMillis());	
+    	if (notifyStatusToMMT) {
+    		if (currentActionMapError) {
+    			logger.log(Level.WARNING, "### Unexpected task report from non existing task in active mission: errorId={0}", errorId);
+//    				sciTiming.probe("reportTask,calling CTM.sendError: before", missionId, data.sequenceOperation, errorId);	
 //    				ThriftClientToMMT.getInstance().sendError(errorId, "Unexpected task report for non existing task");   
-//    				logsci.log(Level.INFO, methodName + ",calling CTM.sendError: after," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+//    				sciTiming.probe("reportTask,calling CTM.sendError: after", missionId, data.sequenceOperation);	
+    		}
+    		else {
+    			if (!statusError) {        				
+    				if (supportedMMTStatus) {
+    					logger.log(Level.INFO, "--- Sending task status report to MMT for action {0} ({1}): {2} ({3})", new Object[] {action.getRelatedTask().getDescription(), action.getActionId(), TaskHelper.getStatusName(errorId), errorId});
+    					sciTiming.probe("reportTask,calling CTM.sendStatusReport: before", missionId, data.sequenceOperation);	
+    					ThriftClientToMMT.getInstance().sendStatusReport(action);
+    					sciTiming.probe("reportTask,calling CTM.sendStatusReport: after", missionId, data.sequenceOperation);
+    				} 
     			}
     			else {
-    				if (!statusError) {        				
-    					if (supportedMMTStatus) {
-    						logger.log(Level.INFO, "--- Sending task status report to MMT for action {0} ({1}): {2} ({3})", new Object[] {action.getRelatedTask().getDescription(), action.getActionId(), TaskHelper.getStatusName(errorId), errorId});
-    						logsci.log(Level.INFO, methodName + ",calling CTM.sendStatusReport: before," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
-    						ThriftClientToMMT.getInstance().sendStatusReport(action);
-    						logsci.log(Level.INFO, methodName + ",calling CTM.sendStatusReport: after," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());
-    					} 
-    				}
-    				else {
-    					logger.log(Level.INFO, "### Sending error from task status report: {0}: {1}", new Object[] {errorId, errorMessage});
-//    					logsci.log(Level.INFO, methodName + ",calling CTM.sendError: before," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+    				logger.log(Level.INFO, "### Sending error from task status report: {0}: {1}", new Object[] {errorId, errorMessage});
+//    					sciTiming.probe("reportTask,calling CTM.sendError: before", missionId, data.sequenceOperation);	
 //    					ThriftClientToMMT.getInstance().sendError(errorId, errorMessage);
-//    					logsci.log(Level.INFO, methodName + ",calling CTM.sendError: after," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
-    				}
+//    					sciTiming.probe("reportTask,calling CTM.sendError: after", missionId, data.sequenceOperation);	
     			}
     		}
+    	}
 
-    		// STEP 2: If the assignment mode is WAIT_TO_COMPLETE 
-    		//         AND the status is COMPLETED
-    		//         AND the vehicle plan has pending tasks, send the next one to the vehicle
-    		if (assignmentMode == MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE) {
-    			if (data.id_error == MessagesCONSTANTS.TASK_REPORT_CODE_COMPLETED) {
-    				logsci.log(Level.INFO, methodName + ",next task assignment procedure: begin," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
-    				logger.log(Level.INFO, "--- Removing action {1} ({0}) from awaiting list", new Object[] {action.getRelatedTask().getDescription(), action.getActionId()});
-    				awaitingActions.remove((int) action.getActionId());        			
-
-    				if (!vehiclePlansMap.get((int) data.vid).isEmpty()) {
-    					action = vehiclePlansMap.get((int) data.vid).poll();
-    					Vehicle vehicle = vehicleMap.get((int) data.vid);
-    					currentActionMap.put((int) data.vid, action);
-
-    					logger.log(Level.INFO, "--- Assigning task {0} ({1}) to vehicle {2} ({3})", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), vehicle.getName(), vehicle.getId()});
-    					assignTask(action, vehicle);
+    	// STEP 2: If the assignment mode is WAIT_TO_COMPLETE or LOOK_AHEAD
+    	//         AND the status is COMPLETED
+    	//         AND the vehicle plan has pending tasks, send the next one to the vehicle
+    	//         (in LOOK_AHEAD mode, the next one may have already been queued in the vehicle)
+    	if (!currentActionMapError && ((vehicleState.getAssignmentMode() == MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE) || (vehicleState.getAssignmentMode() == MessagesCONSTANTS.ASSIGNMENT_LOOK_AHEAD))) {
+    		if (data.id_error == MessagesCONSTANTS.TASK_REPORT_CODE_COMPLETED) {
+    			sciTiming.probe("reportTask,next task assignment procedure: begin", missionId, data.sequenceOperation);	
+    			logger.log(Level.INFO, "--- Removing action {1} ({0}) from awaiting list", new Object[] {action.getRelatedTask().getDescription(), action.getActionId()});
+    			awaitingActions.remove((int) action.getActionId());        			
+
+    			if (!vehicleState.getQueuedActions().isEmpty()) {
+    				action = vehicleState.getQueuedActions().poll();
+    				Vehicle vehicle = vehicleState.getVehicle();
+    				vehicleState.setCurrentAction(action);
+    				vehicleState.setLastMessageSubtype((byte) action.getRelatedTask().getTaskTypeId());
+
+    				logger.log(Level.INFO, "--- Task {0} ({1}) already queued in vehicle {2} ({3}) is now the current one", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), vehicle.getName(), vehicle.getId()});
+    				queueLookAheadTasks(vehicleState);
+    			}
+    			else if (!vehicleState.getPlan().isEmpty()) {
+    				action = vehicleState.getPlan().poll();
+    				Vehicle vehicle = vehicleState.getVehicle();
+    				vehicleState.setCurrentAction(action);
+
+    				logger.log(Level.INFO, "--- Assigning task {0} ({1}) to vehicle {2} ({3})", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), vehicle.getName(), vehicle.getId()});
+    				assignTask(action, vehicleState);
+    				
+    				if (vehicleState.getAssignmentMode() == MessagesCONSTANTS.ASSIGNMENT_LOOK_AHEAD) {
+    					queueLookAheadTasks(vehicleState);
+    				}
+    			}
+    			else {
+    				if (awaitingActions.isEmpty()) {
+    					logger.log(Level.INFO, "--- There are no more pending tasks in the mission.");
+    					logger.log(Level.INFO, "--- Ending mission.");         					
+    					endMission(currentMissionID, MessagesCONSTANTS.END_REASON_FINISHED);
     				}
     				else {
-    					if (awaitingActions.isEmpty()) {
-    						logger.log(Level.INFO, "--- There are no more pending tasks in the mission.");
-    						logger.log(Level.INFO, "--- Ending mission.");         					
-    						endMission(currentMissionID, MessagesCONSTANTS.END_REASON_FINISHED);
-    					}
-    					else {
-    						for (int id : awaitingActions.keySet()) {
-    							logger.log(Level.INFO, "--- Task {1} ({0}) still in waiting list (awaiting for COMPLETED status)", new Object[] {awaitingActions.get(id).getRelatedTask().getDescription(), id});
-    						}
+    					for (Map.Entry<Integer, Action> awaiting : awaitingActions.entrySet()) {
+    						logger.log(Level.INFO, "--- Task {1} ({0}) still in waiting list (awaiting for COMPLETED status)", new Object[] {awaiting.getValue().getRelatedTask().getDescription(), awaiting.getKey()});
     					}
     				}
-    				logsci.log(Level.INFO, methodName + ",next task assignment procedure: end," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
     			}
+    			sciTiming.probe("reportTask,next task assignment procedure: end", missionId, data.sequenceOperation);	
+    		}
+    	}
+    	// STEP 2 (DEPENDENCY_GRAPH): If the status is COMPLETED, send the actions released by the completed one
+    	else if (!currentActionMapError && (vehicleState.getAssignmentMode() == MessagesCONSTANTS.ASSIGNMENT_DEPENDENCY_GRAPH)) {
+    		if (data.id_error == MessagesCONSTANTS.TASK_REPORT_CODE_COMPLETED) {
+    			sciTiming.probe("reportTask,next task assignment procedure: begin", missionId, data.sequenceOperation);	
+    			ActionDependencyGraph dependencyGraph = vehicleState.getDependencyGraph();
+    			dependencyGraph.complete(action);
+    			
+    			// The released actions are awaited before removing the completed one,
+    			// so the awaiting list is never empty while there are pending tasks
+    			assignReadyActions(vehicleState);
+    			logger.log(Level.INFO, "--- Removing action {1} ({0}) from awaiting list", new Object[] {action.getRelatedTask().getDescription(), action.getActionId()});
+    			awaitingActions.remove((int) action.getActionId());
+    			
+    			if (awaitingActions.isEmpty()) {
+    				logger.log(Level.INFO, "--- There are no more pending tasks in the mission.");
+    				logger.log(Level.INFO, "--- Ending mission.");         					
+    				endMission(currentMissionID, MessagesCONSTANTS.END_REASON_FINISHED);
+    			}
+    			else if (dependencyGraph.isFinished()) {
+    				for (Map.Entry<Integer, Action> awaiting : awaitingActions.entrySet()) {
+    					logger.log(Level.INFO, "--- Task {1} ({0}) still in waiting list (awaiting for COMPLETED status)", new Object[] {awaiting.getValue().getRelatedTask().getDescription(), awaiting.getKey()});
+    				}
+    			}
+    			sciTiming.probe("reportTask,next task assignment procedure: end", missionId, data.sequenceOperation);	
     		}
-
-    	} catch (Exception e) {
-    		logger.log(Level.SEVERE, "!!! Exception while processing a task report");
-    		logger.log(Level.SEVERE, e.getMessage());
     	}
-    	logsci.log(Level.INFO, methodName + ",exit," + missionId + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
     }
     
     @Override
-    public void reportCDT(SWARMsDDSFrame data, int missionId) {
-    	String methodName = "reportCDT";
-    	logsci.log(Level.INFO, methodName + ",entry," + missionId + "," + data.subtype + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+    public void reportCDT(final SWARMsDDSFrame data, final int missionId) {
+    	dispatchReport(data.vid, "CDT", false, new Runnable() {
+    		public void run() {
+    			long start = System.nanoTime();
+    			
+    			try {
+    				handleReportCDT(data, missionId);
+    			} finally {
+    				metrics.recordSince("mtrr.reportCDT", start);
+    			}
+    		}
+    	});
+    }
+    
+    private void handleReportCDT(SWARMsDDSFrame data, int missionId) {
+    	sciTiming.probe("reportCDT,entry", missionId, data.subtype, data.sequenceOperation);	
     	logger.log(Level.INFO, "*** Received CDT report of subtype {0} ({1})", new Object[] {MessageFormatter.getInstance().getSubtypeName(data.type, data.subtype), data.subtype});
     	
     	switch(data.subtype) {
@@ -872,7 +1430,11 @@ public class MTRR implements MTFeeder, MTReporter {
     		else {
     			MTRRContext.getInstance().setSetNeighboursResponseSuccessful(false);
     			logger.log(Level.INFO, "--- SET_NEIGHBOURS response NOT OK: result != 0");
-    			sendSetNeighbours(SemanticQuery.getInstance().getAllVehicles());
+    			
+    			// If requestUpdatedStatus is awaiting for this response, it will retry by itself
+    			if (!cdtResponses.isAwaited(MessagesCONSTANTS.SUBTYPE_SET_NEIGHBOURS)) {
+    				sendSetNeighbours(vehicleRegistry.getAllVehicles(), nextRequestID());
+    			}
     		}
     		break;
     	case MessagesCONSTANTS.SUBTYPE_GET_NEIGHBOURS:
@@ -889,154 +1451,173 @@ public class MTRR implements MTFeeder, MTReporter {
     		break;
     	case MessagesCONSTANTS.SUBTYPE_STOP_POLLING:
     		logger.log(Level.INFO, "--- CDT reports STOP POLLING");
-			sendSetNeighbours(SemanticQuery.getInstance().getAllVehicles());
+			sendSetNeighbours(vehicleRegistry.getAllVehicles(), nextRequestID());
     		break;
     	}
-    	logsci.log(Level.INFO, methodName + ",exit," + missionId + "," + data.subtype + "," + data.sequenceOperation + "," + System.currentTimeMillis());	
+    	
+    	// Wake up any thread awaiting for this response
+    	cdtResponses.complete(data.subtype, data.seqoperation, data.result);
+    	sciTiming.probe("reportCDT,exit", missionId, data.subtype, data.sequenceOperation);	
     }
     
     public String abortVehiclePlan(int vehicleId) {
-    	String methodName = "abortVehiclePlan";
-    	logsci.log(Level.INFO, methodName + ",entry," + vehicleId + "," + System.currentTimeMillis());
-    	
-    	if (!vehicleMap.containsKey(vehicleId)) {
-        	logsci.log(Level.INFO, methodName + ",exit: vehicle is not active in the mission," + vehicleId + System.currentTimeMillis());
-    		return "NOK: Vehicle " + vehicleId + " is not active in the mission " + PSManagerGlobalVariables.missionID;
-    	}
-    	
-		vehiclePlansMap.get(vehicleId).clear();
-    	
-    	// DDS Frame preparation
-    	SWARMsmsg msg;
-        SWARMsDDSFrame frame = new SWARMsDDSFrame();
-        int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
-        Arrays.fill(data, 0);
-
-    	frame.setType(MessagesCONSTANTS.TYPE_NOTIFICATION_MESSAGE);
-    	frame.setVid((byte) vehicleId);
-    	frame.setSubtype(MessagesCONSTANTS.NOTIFY_ABORT_PLAN);
-    	frame.setSeqoperation((byte) requestID++);
-
-    	frame.setDataInt(data);
-    	msg = frame;
-
-        logger.log(Level.INFO, "--- Notifying vehicle plan abort for vehicle {0} via IP link", vehicleId);
-        
-        this.psManager.publish(msg, PSManagerCONSTANTS.NOTIFY_IP + "_" + vehicleId);
-
-        // And if the vehicle is not a ROV, also send it through the ACOUSTIC channel
-        if (!vehicleMap.get(vehicleId).type.equals(VehicleType.ROV)) {
-            logger.log(Level.INFO, "--- Notifying vehicle plan abort for vehicle {0} via acoustic link", vehicleId);
-            this.psManager.publish(msg, PSManagerCONSTANTS.NOTIFY_ACOUSTIC + "_" + vehicleId);
-        }
-        
-    	logsci.log(Level.INFO, methodName + ",exit," + vehicleId + System.currentTimeMillis());
-    	return "OK";
+    	return abortVehicle(vehicleId, false, null);
     }
     
     public String abortMissionPlan(int missionId) {
-    	String methodName = "abortMissionPlan";
-    	logsci.log(Level.INFO, methodName + ",entry," + missionId + System.currentTimeMillis());
-    	
-    	if (missionId != PSManagerGlobalVariables.missionID) {
-        	logsci.log(Level.INFO, methodName + ",exit: mission ID mismatch," + missionId + System.currentTimeMillis());
-    		return "NOK: Specified mission ID " + missionId + " does not match current active mission ID " + PSManagerGlobalVariables.missionID;
-    	}
+    	return abortMission(missionId, false);
+    }
 
-    	if (vehicleMap.isEmpty()) {
-    		logger.log(Level.WARNING, "+++ Aborting mission plan: There are no vehicles in the map");
-    	}
+    public String abortVehiclePlanHard(int vehicleId) {
+    	return abortVehicle(vehicleId, true, null);
+    }
+    
+    public String abortMissionPlanHard(int missionId) {
+    	return abortMission(missionId, true);
+    }
+    
+    /**
+     * Gets the progress of the abort of a mission, which goes on after the abort request has returned.
+     * 
+     * @param missionId	The aborted mission
+     * @return			"OK" once all the vehicles have been notified, "PENDING: ..." while the acoustic
+     * 					notifications are being sent, or "NOK: ..." if there is no such abort
+     */
+    public String getAbortStatus(int missionId) {
+    	AbortFanOut fanOut = abortFanOut;
     	
-    	for (int vehicleId : vehicleMap.keySet()) {
-    		logger.log(Level.INFO, "--- Aborting mission plan -> aborting vehicle plan for vehicle {0}", vehicleId);
-    		abortVehiclePlan(vehicleId);
-
-    		// Sleep added to prevent communication issues due to fast notification
-    		try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
-				logger.log(Level.WARNING, "+++ Sleep interrupted while aborting mission plan {0}", missionId);
-			}     	            
+    	if ((fanOut == null) || (fanOut.getMissionId() != missionId)) {
+    		return "NOK: There is no abort of mission " + missionId;
     	}
-    	
-    	endMission(missionId, MessagesCONSTANTS.END_REASON_ABORTED);
-    	
-    	logsci.log(Level.INFO, methodName + ",exit," + missionId + System.currentTimeMillis());
-        return "OK";
+    	return fanOut.getStatus();
     }
-
-    public String abortVehiclePlanHard(int vehicleId) {
-    	String methodName = "abortVehiclePlanHard";
-    	logsci.log(Level.INFO, methodName + ",entry," + vehicleId + System.currentTimeMillis());
+    
+    /**
+     * Notifies a vehicle to abort its plan. The IP notification is published right away, 
+     * while the acoustic one is queued in the acoustic pacer when notifying a mission abort.
+     * 
+     * @param vehicleId		The vehicle
+     * @param hard			True for a hard abort (safety action)
+     * @param fanOut		The mission abort the vehicle is notified for, or null for a single vehicle abort
+     * @return				"OK", or "NOK: ..." if the vehicle is not in the mission
+     */
+    private String abortVehicle(final int vehicleId, final boolean hard, final AbortFanOut fanOut) {
+    	sciTiming.probe(hard ? "abortVehiclePlanHard,entry" : "abortVehiclePlan,entry", vehicleId);
     	
-    	if (!vehicleMap.containsKey(vehicleId)) {
-        	logsci.log(Level.INFO, methodName + ",exit: vehicle is not active in the mission," + vehicleId + System.currentTimeMillis());
+    	VehicleState vehicleState = vehicleStates.get(vehicleId);
+    	
+    	if (vehicleState == null) {
+        	sciTiming.probe(hard ? "abortVehiclePlanHard,exit: vehicle is not active in the mission" : "abortVehiclePlan,exit: vehicle is not active in the mission", vehicleId);
     		return "NOK: Vehicle " + vehicleId + " is not active in the mission " + PSManagerGlobalVariables.missionID;
     	}
     	
-		vehiclePlansMap.get(vehicleId).clear();
+    	synchronized (vehicleState) {
+    		vehicleState.clearPlan();
+    	}
+    	
+    	// Neither are the task assignments and subscriptions still waiting for the acoustic channel
+    	int cancelled = getAcousticScheduler().cancel(vehicleId, AcousticScheduler.PRIORITY_TASK, AcousticScheduler.PRIORITY_SUBSCRIPTION);
+    	if (cancelled > 0) {
+    		logger.log(Level.INFO, "--- Cancelled {0} task and subscription messages still queued in the acoustic channel for vehicle {1}", new Object[] {cancelled, vehicleId});
+    	}
     	
     	// DDS Frame preparation
-    	SWARMsmsg msg;
+    	final SWARMsmsg msg;
         SWARMsDDSFrame frame = new SWARMsDDSFrame();
         int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
         Arrays.fill(data, 0);
 
     	frame.setType(MessagesCONSTANTS.TYPE_NOTIFICATION_MESSAGE);
     	frame.setVid((byte) vehicleId);
-    	frame.setSubtype(MessagesCONSTANTS.NOTIFY_SAFETY_ACTION);
-    	frame.setSeqoperation((byte) requestID++);
+    	frame.setSubtype(hard ? MessagesCONSTANTS.NOTIFY_SAFETY_ACTION : MessagesCONSTANTS.NOTIFY_ABORT_PLAN);
+    	frame.setSeqoperation(nextRequestID());
 
     	frame.setDataInt(data);
     	msg = frame;
 
         logger.log(Level.INFO, "--- Notifying vehicle plan abort for vehicle {0} via IP link", vehicleId);
         
-        this.psManager.publish(msg, PSManagerCONSTANTS.NOTIFY_IP + "_" + vehicleId);
+        publish(msg, PSManagerCONSTANTS.NOTIFY_IP + "_" + vehicleId);
 
         // And if the vehicle is not a ROV, also send it through the ACOUSTIC channel
-        if (!vehicleMap.get(vehicleId).type.equals(VehicleType.ROV)) {
+        // (paced by the acoustic scheduler to prevent communication issues due to fast notification)
+        if (!vehicleState.getVehicle().type.equals(VehicleType.ROV)) {
             logger.log(Level.INFO, "--- Notifying vehicle plan abort for vehicle {0} via acoustic link", vehicleId);
-            this.psManager.publish(msg, PSManagerCONSTANTS.NOTIFY_ACOUSTIC + "_" + vehicleId);
+            
+        	if (fanOut == null) {
+        		publishAcoustic(vehicleId, AcousticScheduler.PRIORITY_SAFETY, msg, PSManagerCONSTANTS.NOTIFY_ACOUSTIC + "_" + vehicleId, null);
+        	}
+        	else {
+        		fanOut.notificationQueued();
+        		getAcousticScheduler().submit(vehicleId, AcousticScheduler.PRIORITY_SAFETY, msg, PSManagerCONSTANTS.NOTIFY_ACOUSTIC + "_" + vehicleId, new AcousticScheduler.Listener() {
+        			public boolean isCancelled() {
+        				return fanOut.isCancelled();
+        			}
+        			
+        			public void done(boolean transmitted) {
+        				sciTiming.probe(hard ? "abortVehiclePlanHard,acoustic notification done" : "abortVehiclePlan,acoustic notification done", vehicleId, transmitted ? 1 : 0);
+        				if (fanOut.notificationDone(transmitted)) {
+        					finishMissionAbort(fanOut);
+        				}
+        			}
+        		});
+        	}
         }
         
-    	logsci.log(Level.INFO, methodName + ",exit," + vehicleId + System.currentTimeMillis());
+    	sciTiming.probe(hard ? "abortVehiclePlanHard,exit" : "abortVehiclePlan,exit", vehicleId);
     	return "OK";
     }
     
-    public String abortMissionPlanHard(int missionId) {
-    	String methodName = "abortMissionPlanHard";
-    	logsci.log(Level.INFO, methodName + ",entry," + missionId + System.currentTimeMillis());
-
+    private void finishMissionAbort(AbortFanOut fanOut) {
+    	if (fanOut.complete()) {
+    		endMission(fanOut.getMissionId(), MessagesCONSTANTS.END_REASON_ABORTED);
+    	}
+    }
+    
+    /**
+     * Notifies all the vehicles in the mission to abort their plans, and ends the mission
+     * once they have been notified. Returns without waiting for the acoustic notifications,
+     * whose progress can be polled with {@link #getAbortStatus(int)}.
+     * 
+     * @param missionId		The mission to be aborted
+     * @param hard			True for a hard abort (safety action)
+     * @return				"OK", or "NOK: ..." if the mission is not the active one
+     */
+    private String abortMission(int missionId, boolean hard) {
+    	sciTiming.probe(hard ? "abortMissionPlanHard,entry" : "abortMissionPlan,entry", missionId);
+    	
     	if (missionId != PSManagerGlobalVariables.missionID) {
-        	logsci.log(Level.INFO, methodName + ",exit: mission mismatch," + missionId + System.currentTimeMillis());
+        	sciTiming.probe(hard ? "abortMissionPlanHard,exit: mission ID mismatch" : "abortMissionPlan,exit: mission ID mismatch", missionId);
     		return "NOK: Specified mission ID " + missionId + " does not match current active mission ID " + PSManagerGlobalVariables.missionID;
     	}
 
-    	if (vehicleMap.isEmpty()) {
-    		logger.log(Level.WARNING,"+++ Aborting mission plan: There are no vehicles in the map");
+    	if (vehicleStates.isEmpty()) {
+    		logger.log(Level.WARNING, "+++ Aborting mission plan: There are no vehicles in the map");
     	}
     	
-    	for (int vehicleId : vehicleMap.keySet()) {
+    	final AbortFanOut fanOut = new AbortFanOut(missionId);
+    	AbortFanOut previousFanOut = abortFanOut;
+    	if (previousFanOut != null) {
+    		previousFanOut.cancel();
+    	}
+    	abortFanOut = fanOut;
+    	
+    	for (int vehicleId : vehicleStates.keySet()) {
     		logger.log(Level.INFO, "--- Aborting mission plan -> aborting vehicle plan for vehicle {0}", vehicleId);
-    		abortVehiclePlanHard(vehicleId);
-
-    		// Sleep added to prevent communication issues due to fast notification
-    		try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
-				logger.log(Level.WARNING, "--- Sleep interrupted while aborting mission plan {0}", missionId);
-			}     	            
+    		abortVehicle(vehicleId, hard, fanOut);
     	}
     	
-    	endMission(missionId, MessagesCONSTANTS.END_REASON_ABORTED);
+    	// The mission ends once the last acoustic notification has left the scheduler
+    	if (fanOut.allQueued()) {
+    		finishMissionAbort(fanOut);
+    	}
     	
-    	logsci.log(Level.INFO, methodName + ",exit," + missionId + System.currentTimeMillis());    	
+    	sciTiming.probe(hard ? "abortMissionPlanHard,exit" : "abortMissionPlan,exit", missionId);
         return "OK";
     }
     
     public int getOngoingMissionID() {
-    	if (missionActive) {
+    	if (missionActive.get()) {
     		return currentMissionID;
     	}
     	else {
@@ -1044,244 +1625,442 @@ public class MTRR implements MTFeeder, MTReporter {
     	}
     }
     
-    private void sendSetNeighbours(List<Vehicle> availableVehicles) {
-    	String methodName = "sendSetNeighbours";
-    	logsci.log(Level.INFO, methodName + ",entry," + System.currentTimeMillis());
+    /**
+     * Sends a SET_NEIGHBOURS or GET_NEIGHBOURS request and waits for the CDT up to the
+     * timeout, returning as soon as it answers. As reportCDT does when no one awaits the
+     * response, an unsuccessful SET_NEIGHBOURS response is followed by a new request.
+     * 
+     * @param subtype				The CDT subtype of the request
+     * @param availableVehicles		The vehicles to be set as neighbours
+     * @param timeout				Maximum time to wait, in milliseconds
+     */
+    private void awaitNeighbourDiscoveryStep(byte subtype, List<Vehicle> availableVehicles, long timeout) {
+    	long deadline = System.currentTimeMillis() + timeout;
+    	long remaining = timeout;
+    	
+    	while (remaining > 0) {
+    		byte cdtRequestID = nextRequestID();
+    		PendingCDTRequest request = cdtResponses.register(subtype, cdtRequestID);
+    		
+    		if (subtype == MessagesCONSTANTS.SUBTYPE_SET_NEIGHBOURS) {
+    			sendSetNeighbours(availableVehicles, cdtRequestID);
+    		}
+    		else {
+    			sendGetNeighbours(cdtRequestID);
+    		}
+    		
+    		if (awaitCDTResponse(request, remaining) || !request.isReceived() || (subtype != MessagesCONSTANTS.SUBTYPE_SET_NEIGHBOURS)) {
+    			return;
+    		}
+    		remaining = deadline - System.currentTimeMillis();
+    	}
+    }
+    
+    /**
+     * Requests the STATE_VECTOR through the acoustic channel to the AUVs that have not answered yet.
+     * 
+     * @param availableVehicles		The vehicles in the status refresh
+     */
+    private void requestPendingStateVectorsAcoustic(List<Vehicle> availableVehicles) {
+    	for (Vehicle vehicle : availableVehicles) {
+    		if (vehicle.getType().equals(VehicleType.AUV) && statusRefresh.isPending(vehicle.getId())) {
+    			requestStateVectorAcoustic(vehicle, stateVectorVehicleRequestIdMap.get(vehicle.getId()));
+    		}
+    	}
+    }
+    
+    /**
+     * Waits for the response to a CDT request without busy waiting.
+     * 
+     * @param request		The pending CDT request
+     * @param timeout		Maximum time to wait for the response, in milliseconds
+     * @return				True if a successful response was received before the timeout
+     */
+    private boolean awaitCDTResponse(PendingCDTRequest request, long timeout) {
+    	String subtypeName = MessageFormatter.getInstance().getSubtypeName(MessagesCONSTANTS.TYPE_CDT_MESSAGE, request.getSubtype());
+    	
+    	try {
+    		if (!request.await(timeout)) {
+    			cdtResponses.cancel(request);
+    			logger.log(Level.WARNING, "+++ No response received for {0} request id {1} after {2} ms", new Object[] {subtypeName, request.getRequestID(), timeout});
+    			return false;
+    		}
+    	} catch (InterruptedException e) {
+    		cdtResponses.cancel(request);
+    		logger.log(Level.WARNING, "+++ {0} WAIT INTERRUPTED IN REQUEST UPDATED STATUS", subtypeName);
+    		Thread.currentThread().interrupt();
+    		return false;
+    	}
+    	
+    	if (request.getResponseRequestID() != request.getRequestID()) {
+    		logger.log(Level.INFO, "--- {0} response request id {1} does not match request id {2}", new Object[] {subtypeName, request.getResponseRequestID(), request.getRequestID()});
+    	}
+    	
+    	return request.isSuccessful();
+    }
+    
+    private void sendSetNeighbours(List<Vehicle> availableVehicles, byte requestID) {
+    	sciTiming.probe("sendSetNeighbours,entry");
 
 		MTRRContext.getInstance().setSetNeighboursResponseReceived(false);
 		MTRRContext.getInstance().setSetNeighboursResponseSuccessful(false);
-    	ArrayList<Integer> auvIDs = new ArrayList<Integer>();
-    	
+		ReusableFrame frame = framePool.acquire();
+		SWARMsmsg msg = MessageFormatter.getInstance().writeSetNeighboursMessage(frame, availableVehicles, requestID);
+		
+		logger.log(Level.INFO, "--- Sending SET_NEIGHBOURS with request id {0} and vehicle IDs: ", requestID);
 		for (Vehicle vehicle : availableVehicles) {
     		if (vehicle.getType().equals(VehicleType.AUV)) {
-    			auvIDs.add(vehicle.getId());
+    			logger.log(Level.INFO, "------ VID: {0}", vehicle.getId());
     		}
 		}
+		publish(msg, MessagesCONSTANTS.TOPIC_SET_NEIGHBOURS_REQUEST);
+		framePool.release(frame);
 		
-		SWARMsmsg msg = MessageFormatter.getInstance().getSetNeighboursMessage(auvIDs, requestID);
-		
-		logger.log(Level.INFO, "--- Sending SET_NEIGHBOURS with request id {0} and vehicle IDs: ", requestID);
-		for (int vehicleID : auvIDs) {
-			logger.log(Level.INFO, "------ VID: {0}", vehicleID);
-		}
-		psManager.publish(msg, MessagesCONSTANTS.TOPIC_SET_NEIGHBOURS_REQUEST);
-		
-		requestID++;
-    	logsci.log(Level.INFO, methodName + ",exit," + System.currentTimeMillis());
+    	sciTiming.probe("sendSetNeighbours,exit");
 	}
     
-    private void sendGetNeighbours() {
-    	String methodName = "sendGetNeighbours";
-    	logsci.log(Level.INFO, methodName + ",entry," + System.currentTimeMillis());
+    private void sendGetNeighbours(byte requestID) {
+    	sciTiming.probe("sendGetNeighbours,entry");
 
     	MTRRContext.getInstance().setGetNeighboursResponseReceived(false);
     	MTRRContext.getInstance().setGetNeighboursResponseSuccessful(false);
-		SWARMsmsg msg = MessageFormatter.getInstance().getGetNeighboursMessage(requestID);
+		ReusableFrame frame = framePool.acquire();
+		SWARMsmsg msg = MessageFormatter.getInstance().writeGetNeighboursMessage(frame, requestID);
 
 		logger.log(Level.INFO, "--- Sending GET_NEIGHBOURS request id {0}", requestID);
-    	psManager.publish(msg, MessagesCONSTANTS.TOPIC_GET_NEIGHBOURS_REQUEST);
+    	publish(msg, MessagesCONSTANTS.TOPIC_GET_NEIGHBOURS_REQUEST);
+    	framePool.release(frame);
     	
-    	requestID++;
-    	logsci.log(Level.INFO, methodName + ",exit," + System.currentTimeMillis());
+    	sciTiming.probe("sendGetNeighbours,exit");
     }
 
-	private void sendStartDiscovery() {
-		String methodName = "sendSartDiscovery";
-    	logsci.log(Level.INFO, methodName + ",entry," + System.currentTimeMillis());
+	private void sendStartDiscovery(byte requestID) {
+    	sciTiming.probe("sendSartDiscovery,entry");
 
 		MTRRContext.getInstance().setStart_discoveryResponseReceived(false);
 		MTRRContext.getInstance().setStart_discoveryResponseSuccessful(false);
-		SWARMsmsg msg = MessageFormatter.getInstance().getStartDiscoveryMessage(requestID);
+		ReusableFrame frame = framePool.acquire();
+		SWARMsmsg msg = MessageFormatter.getInstance().writeStartDiscoveryMessage(frame, requestID);
 		
 		logger.log(Level.INFO, "--- Sending a START_DISCOVERY request id {0}", requestID);
-		psManager.publish(msg, PSManagerCONSTANTS.REQUEST_CDT);
+		publish(msg, PSManagerCONSTANTS.REQUEST_CDT);
+		framePool.release(frame);
 
-    	requestID++;
-    	logsci.log(Level.INFO, methodName + ",exit," + System.currentTimeMillis());
+    	sciTiming.probe("sendSartDiscovery,exit");
 	}
        
     /**
      * This method is internal to the class, and is used to assign each task in
-     * the plan for each vehicle
+     * the plan for each vehicle. The caller must hold the lock of the vehicle state.
      *
      * @param action
+     * @param vehicleState
      */
-    private void assignTask(Action action, Vehicle vehicle) { 
-    	String methodName = "assignTask";
-    	logsci.log(Level.INFO, methodName + ",entry," + vehicle.getId() + "," + action.actionId + "," + System.currentTimeMillis());
-
-    	SWARMsmsg msg = MessageFormatter.getInstance().getSWARMsTaskMessage(action, requestID++);
-    	lastMessagePerVehicle.put(vehicle.getId(), (SWARMsDDSFrame) msg);
+    private void assignTask(Action action, VehicleState vehicleState) { 
+    	Vehicle vehicle = vehicleState.getVehicle();
+    	sciTiming.probe("assignTask,entry", vehicle.getId(), action.actionId);
+
+    	ReusableFrame frame = framePool.acquire();
+    	MessageFormatter.getInstance().writeTaskMessage(frame, action, nextRequestID());
+    	publishTask(frame, action, vehicleState);
+    	sciTiming.probe("assignTask,exit", vehicle.getId(), action.actionId);
+    }
+    
+    /**
+     * Publishes an already encoded task assignment over the channels of the vehicle, 
+     * taking the ownership of its frame. The caller must hold the lock of the vehicle state.
+     *
+     * @param frame			The frame with the encoded task assignment
+     * @param action		The assigned action
+     * @param vehicleState	The state of the assigned vehicle
+     */
+    private void publishTask(ReusableFrame frame, Action action, VehicleState vehicleState) {
+    	SWARMsDDSFrame msg = frame.getFrame();
+    	Vehicle vehicle = vehicleState.getVehicle();
+    	vehicleState.setLastMessageSubtype(msg.subtype);
     	awaitingActions.put(action.getActionId(), action);
     	
     	int actionID = action.getActionId();
     	int vehicleID = action.getAssignedVehicleId();
     	String actionName = action.getRelatedTask().getDescription();
-    	String vehicleName = vehicleMap.get(vehicleID).getName();
+    	String vehicleName = vehicle.getName();
 
     	logger.log(Level.INFO, "--- Sending task assignment {0} ({1}) to {2} ({3}) over IP channel", new Object[] {actionName, actionID, vehicleName, vehicleID});                
     	
-    	this.psManager.publish(msg, PSManagerCONSTANTS.REQUEST_TASK_IP + "_" + vehicleID);
+    	publish(msg, PSManagerCONSTANTS.REQUEST_TASK_IP + "_" + vehicleID);
 
     	if (vehicle.type.equals(VehicleType.AUV)) {
-    		if (!isCDTDiscoveryRequired || MTRRContext.getInstance().CDTready) {
+    		if (!configuration.isCDTDiscoveryRequired || MTRRContext.getInstance().CDTready) {
     			logger.log(Level.INFO, "--- Sending task assignment {0} ({1}) to {2} ({3}) over Acoustic channel", new Object[] {actionName, actionID, vehicleName, vehicleID});                
-    	    	logsci.log(Level.INFO, "::: assingTask {0} ({1}) to {2} ({3}) over acoustic channel - timestamp = {4}", new Object[] {actionName, actionID, vehicleName, vehicleID, System.currentTimeMillis()});
-    			this.psManager.publish(msg, PSManagerCONSTANTS.REQUEST_TASK_ACOUSTIC + "_" + vehicleID);
+    	    	sciTiming.probe("assignTask,acoustic channel", actionID, vehicleID);
+    			publishTaskAcoustic(vehicleID, actionID, frame);
+    			return;
     		}
     	}
-    	logsci.log(Level.INFO, methodName + ",exit," + vehicle.getId() + "," + action.actionId + "," + System.currentTimeMillis());
+    	framePool.release(frame);
     }
+    
+    /**
+     * Sends to a vehicle the next tasks of its plan, up to the look-ahead, so the vehicle
+     * can start each one without waiting for the MTRR after completing the current one.
+     * The caller must hold the lock of the vehicle state.
+     *
+     * @param vehicleState	The state of the vehicle
+     */
+    private void queueLookAheadTasks(VehicleState vehicleState) {
+    	Vehicle vehicle = vehicleState.getVehicle();
+    	LinkedList<Action> queuedActions = vehicleState.getQueuedActions();
+    	
+    	while ((queuedActions.size() < configuration.lookAhead) && !vehicleState.getPlan().isEmpty()) {
+    		Action action = vehicleState.getPlan().poll();
+    		queuedActions.add(action);
+    		
+    		logger.log(Level.INFO, "--- Queuing task {0} ({1}) in vehicle {2} ({3})", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), vehicle.getName(), vehicle.getId()});
+    		assignTask(action, vehicleState);
+    	}
+    	
+    	// The reports still refer to the current task, not to the last one sent
+    	vehicleState.setLastMessageSubtype((byte) vehicleState.getCurrentAction().getRelatedTask().getTaskTypeId());
+    }
+    
+    /**
+     * Assigns to a vehicle the actions released by its dependency graph.
+     * The caller must hold the lock of the vehicle state.
+     *
+     * @param vehicleState	The state of the vehicle
+     */
+    private void assignReadyActions(VehicleState vehicleState) {
+    	Vehicle vehicle = vehicleState.getVehicle();
+    	
+    	for (Action action : vehicleState.getDependencyGraph().releaseReadyActions()) {
+    		vehicleState.setCurrentAction(action);
+    		logger.log(Level.INFO, "--- Assigning task {0} ({1}) to vehicle {2} ({3})", new Object[]{action.getRelatedTask().getDescription(), action.getActionId(), vehicle.getName(), vehicle.getId()});
+    		assignTask(action, vehicleState);
+    	}
+    }
+    
+    /**
+     * Gets the filtered and sorted plan of each vehicle and encodes its first task.
+     * The vehicles are prepared in parallel when there are preparation threads, but
+     * the prepared tasks are always returned in the order of the vehicle list.
+     *
+     * @param vehicleList	The vehicles involved in the mission
+     * @param missionIndex	The index of the mission plan
+     * @param assignmentMode	The assignment mode of the mission
+     * @return				The prepared first task of each vehicle
+     * @throws InterruptedException
+     */
+    private List<PreparedTask> prepareFirstTasks(List<Vehicle> vehicleList, final MissionIndex missionIndex, final byte assignmentMode) throws InterruptedException {
+    	List<PreparedTask> preparedTasks = new ArrayList<PreparedTask>(vehicleList.size());
+    	
+    	if (preparationExecutor == null) {
+    		for (Vehicle vehicle : vehicleList) {
+    			preparedTasks.add(prepareFirstTask(vehicle, missionIndex, assignmentMode));
+    		}
+    		return preparedTasks;
+    	}
+    	
+    	List<Future<PreparedTask>> futures = new ArrayList<Future<PreparedTask>>(vehicleList.size());
+    	for (final Vehicle vehicle : vehicleList) {
+    		futures.add(preparationExecutor.submit(new Callable<PreparedTask>() {
+    			public PreparedTask call() {
+    				return prepareFirstTask(vehicle, missionIndex, assignmentMode);
+    			}
+    		}));
+    	}
+    	
+    	for (Future<PreparedTask> future : futures) {
+    		try {
+    			preparedTasks.add(future.get());
+    		} catch (ExecutionException e) {
+    			logger.log(Level.SEVERE, "!!! Exception while preparing the first task of a vehicle");
+    			
+    			if (e.getCause() instanceof RuntimeException) {
+    				throw (RuntimeException) e.getCause();
+    			}
+    			throw new IllegalStateException(e.getCause());
+    		}
+    	}
+    	return preparedTasks;
+    }
+    
+    private PreparedTask prepareFirstTask(Vehicle vehicle, MissionIndex missionIndex, byte assignmentMode) {
+    	VehicleState vehicleState = new VehicleState(vehicle, missionIndex.getVehiclePlan(vehicle), assignmentMode);
+    	
+    	// EXTRA LOG FOR TESTS 20180605
+    	StringBuilder planLog = new StringBuilder();
+    	for (Action action : vehicleState.getPlan()) {
+    		planLog.append("\n... --- Action ").append(action.getRelatedTask().getDescription()).append(" (").append(action.getActionId()).append(") starting at ").append(action.getStartTime());
+    	}
+    	logger.log(Level.INFO, "... Parsed plan for vehicle {0} ({1}) is as follows:{2}", new Object[] {vehicle.getName(), vehicle.getId(), planLog});
+    	
+    	// Get the first task of the plan and remove it from the list
+    	PreparedTask preparedTask = new PreparedTask(vehicleState, vehicleState.getPlan().poll());
+    	
+    	if (preparedTask.action != null) {
+    		preparedTask.frame = framePool.acquire();
+    		MessageFormatter.getInstance().writeTaskMessage(preparedTask.frame, preparedTask.action, nextRequestID());
+    	}
+    	return preparedTask;
+    }
+
+	/**
+	 * Gets a new request ID for the frames sent to the vehicles and the CDT.
+	 * 
+	 * @return The request ID
+	 */
+	private byte nextRequestID() {
+		return (byte) requestID.getAndIncrement();
+	}
 
 	private void requestStateVectorIP(Vehicle vehicle, int requestID) {
-		String methodName = "requestStateVectorIP";
-    	logsci.log(Level.INFO, methodName + ",entry," + vehicle.getId() + "," + requestID + "," + System.currentTimeMillis());
-		SWARMsmsg msg = MessageFormatter.getInstance().getSWARMsStateVectorRequest((byte) vehicle.getId(), (byte) requestID, stateVectorRefreshTimeIP);
+    	sciTiming.probe("requestStateVectorIP,entry", vehicle.getId(), requestID);
+		ReusableFrame frame = framePool.acquire();
+		SWARMsmsg msg = MessageFormatter.getInstance().writeStateVectorRequest(frame, (byte) vehicle.getId(), (byte) requestID, configuration.stateVectorRefreshTimeIP);
 
     	// Publish the message using the IP topic
     	logger.log(Level.INFO, "--- Sending REQUEST_ENVIRONMENT for vehicle {0} with request ID {1} over IP channel", new Object[]{vehicle.getId(), requestID});
-    	psManager.publish(msg, PSManagerCONSTANTS.REQUEST_ENVIRONMENT_IP); 
-    	logsci.log(Level.INFO, methodName + ",exit," + vehicle.getId() + "," + requestID + "," + System.currentTimeMillis());
+    	publish(msg, PSManagerCONSTANTS.REQUEST_ENVIRONMENT_IP); 
+    	framePool.release(frame);
+    	sciTiming.probe("requestStateVectorIP,exit", vehicle.getId(), requestID);
     }
 	
 	private void requestStateVectorAcoustic(Vehicle vehicle, int requestID) {
-		String methodName = "requestStateVectorAcoustic";
-    	logsci.log(Level.INFO, methodName + ",entry," + vehicle.getId() + "," + requestID + "," + System.currentTimeMillis());
+    	sciTiming.probe("requestStateVectorAcoustic,entry", vehicle.getId(), requestID);
 
         if (vehicle.getType().equals(VehicleType.AUV)) {
-        	SWARMsmsg msg = MessageFormatter.getInstance().getSWARMsStateVectorRequest((byte) vehicle.getId(), (byte) requestID, stateVectorRefreshTimeAcoustic);
+        	ReusableFrame frame = framePool.acquire();
+        	SWARMsmsg msg = MessageFormatter.getInstance().writeStateVectorRequest(frame, (byte) vehicle.getId(), (byte) requestID, configuration.stateVectorRefreshTimeAcoustic);
 
         	// Publish the message using the Acoustic topic
         	logger.log(Level.INFO, "--- Sending REQUEST_ENVIRONMENT for vehicle {0} with request ID {1} over ACOUSTIC channel", new Object[]{vehicle.getId(), requestID});
-        	psManager.publish(msg, PSManagerCONSTANTS.REQUEST_ENVIRONMENT_ACOUSTIC);
+        	publishAcoustic(vehicle.getId(), AcousticScheduler.PRIORITY_STATE_VECTOR, msg, PSManagerCONSTANTS.REQUEST_ENVIRONMENT_ACOUSTIC, frame);
     	}
-    	logsci.log(Level.INFO, methodName + ",exit," + vehicle.getId() + "," + requestID + "," + System.currentTimeMillis());
+    	sciTiming.probe("requestStateVectorAcoustic,exit", vehicle.getId(), requestID);
 	}
 
-	private void requestEventsSubscription(byte vehicleID, byte subscriptionRequestID, String topic) {
-		String methodName = "requestEventsSubscription";
-    	logsci.log(Level.INFO, methodName + ",entry," + vehicleID + "," + subscriptionRequestID + "," + topic + "," + System.currentTimeMillis());
-		SWARMsmsg msg = MessageFormatter.getInstance().getSWARMsEventsSubscription(vehicleID, subscriptionRequestID);
-
-		logger.log(Level.INFO, "--- Sending SUBSCRIPTION_TO_VEHICLE_EVENTS for vehicle {0} using topic {1}", new Object[] {vehicleID, topic});
-		psManager.publish(msg, topic);
-    	logsci.log(Level.INFO, methodName + ",exit," + vehicleID + "," + subscriptionRequestID + "," + topic + "," + System.currentTimeMillis());
-	}
-
-	private void loadConfiguration() {
-		String methodName = "loadConfiguration";
-    	logsci.log(Level.INFO, methodName + ",entry," + System.currentTimeMillis());
-		String propertyValue;
-        Properties configurationProperties = new Properties();
-        FileInputStream in;
-		try {
-			in = new FileInputStream(MessagesCONSTANTS.CONFIGURATION_FILENAME);
-			configurationProperties.load(in);
-			in.close();
-
-			logger.log(Level.INFO, "--- Loaded SWARSMs properties file");
-
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_DO_GET_NEIGHBOURS)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_DO_GET_NEIGHBOURS).trim();
-				doGetNeighbours = Boolean.parseBoolean(propertyValue);				
-				logger.log(Level.INFO, "--- Read DO GET NEIGHBOURS property as {0}, set to {1}", new Object[] {propertyValue, doGetNeighbours});
-			} else {
-				logger.log(Level.INFO, "--- Using default DO GET NEIGHBOURS as {0}", doGetNeighbours);
-			}
-
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_IS_CDT_AVAILABLE)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_IS_CDT_AVAILABLE).trim();
-				CDTavailable = Boolean.parseBoolean(propertyValue);				
-				logger.log(Level.INFO, "--- Read CDT available property as {0}, set to {1}", new Object[] {propertyValue, CDTavailable});
-			} else {
-				logger.log(Level.INFO, "--- Using default CDT available as {0}", CDTavailable);
-			}
-			
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_NEIGHBOUR_DISCOVERY_STYLE)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_NEIGHBOUR_DISCOVERY_STYLE).trim();
-				neighbourDiscoveryStyle = propertyValue;				
-				logger.log(Level.INFO, "--- Read neighbour discovery style property as {0}, set to {1}", new Object[] {propertyValue, neighbourDiscoveryStyle});
-			} else {
-				logger.log(Level.INFO, "--- Using default neighbour discovery style as {0}", neighbourDiscoveryStyle);
-			}
-			
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TRYOUTS)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TRYOUTS).trim();
-				getNeighboursMaxTryouts = Integer.parseInt(propertyValue);				
-				logger.log(Level.INFO, "--- Read GET_NEIGHBOURS tryouts property as {0}, set to {1}", new Object[] {propertyValue, getNeighboursMaxTryouts});
-			} else {
-				logger.log(Level.INFO, "--- Using default GET_NEIGHBOURS tryouts as {0}", getNeighboursMaxTryouts);
+	/**
+	 * Queues a message in the acoustic scheduler. The frame, if any, is given back to
+	 * the pool once the message has left the scheduler, so the caller must not release it.
+	 * 
+	 * @param vehicleId		The destination vehicle
+	 * @param priority		The priority class of the message
+	 * @param msg			The message to be published
+	 * @param topic			The acoustic topic for the message
+	 * @param frame			The pooled frame of the message, or null
+	 */
+	private void publishAcoustic(int vehicleId, int priority, SWARMsmsg msg, String topic, final ReusableFrame frame) {
+		getAcousticScheduler().submit(vehicleId, priority, msg, topic, (frame == null) ? null : new AcousticScheduler.Listener() {
+			public boolean isCancelled() {
+				return false;
 			}
 			
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TIMEOUT)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TIMEOUT).trim();
-				getNeighboursTimeout = Long.parseLong(propertyValue);				
-				logger.log(Level.INFO, "--- Read GET_NEIGHBOURS timeout property as {0}, set to {1}", new Object[] {propertyValue, getNeighboursTimeout});
-			} else {
-				logger.log(Level.INFO, "--- Using default GET_NEIGHBOURS timeout as {0}", getNeighboursTimeout);
+			public void done(boolean transmitted) {
+				framePool.release(frame);
 			}
-			
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_SET_NEIGHBOURS_TIMEOUT)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_SET_NEIGHBOURS_TIMEOUT).trim();
-				setNeighboursTimeout = Long.parseLong(propertyValue);				
-				logger.log(Level.INFO, "--- Read SET_NEIGHBOURS timeout property as {0}, set to {1}", new Object[] {propertyValue, setNeighboursTimeout});
-			} else {
-				logger.log(Level.INFO, "--- Using default SET_NEIGHBOURS timeout as {0}", setNeighboursTimeout);
+		});
+	}
+	
+	/**
+	 * Queues the acoustic copy of a task frame, held for the grace period so it can be
+	 * cancelled if the vehicle acknowledges the copy sent through the IP channel.
+	 * 
+	 * @param vehicleId		The destination vehicle
+	 * @param actionId		The action assigned by the task
+	 * @param frame			The pooled frame of the task, given back to the pool once the copy has left the scheduler
+	 */
+	private void publishTaskAcoustic(int vehicleId, int actionId, final ReusableFrame frame) {
+		SWARMsDDSFrame msg = frame.getFrame();
+		final DeliveryTracker.Delivery delivery = deliveryTracker.register(vehicleId, actionId, msg.subtype);
+		
+		getAcousticScheduler().submit(vehicleId, AcousticScheduler.PRIORITY_TASK, msg, PSManagerCONSTANTS.REQUEST_TASK_ACOUSTIC + "_" + vehicleId, new AcousticScheduler.Listener() {
+			public boolean isCancelled() {
+				return delivery.isAcknowledged();
 			}
 			
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_TIMEOUT)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_TIMEOUT).trim();
-				stateVectorTimeout = Long.parseLong(propertyValue);				
-				logger.log(Level.INFO, "--- Read STATE_VECTOR timeout property as {0}, set to {1}", new Object[] {propertyValue, stateVectorTimeout});
-			} else {
-				logger.log(Level.INFO, "--- Using default STATE_VECTOR timeout as {0}", stateVectorTimeout);
-			}
-
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_IP)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_IP).trim();
-				stateVectorRefreshTimeIP = Integer.parseInt(propertyValue);
-				logger.log(Level.INFO, "--- Read STATE_VECTOR IP refresh time property as {0}, set to {1}", new Object[] {propertyValue, stateVectorRefreshTimeIP});
-			} else {
-				logger.log(Level.INFO, "--- Using default STATE_VECTOR IP refresh time as {0}", stateVectorRefreshTimeIP);
+			public void done(boolean transmitted) {
+				deliveryTracker.release(delivery, transmitted);
+				framePool.release(frame);
 			}
+		}, configuration.acousticGracePeriod);
+	}
+	
+	/**
+	 * Gets the acoustic scheduler, creating it on first use. Its rates, burst and link
+	 * capacity are start-up settings, so they are the same whenever it is created.
+	 * 
+	 * @return The acoustic scheduler
+	 */
+	private synchronized AcousticScheduler getAcousticScheduler() {
+		if (acousticScheduler == null) {
+			acousticScheduler = new AcousticScheduler(new AcousticScheduler.Transmitter() {
+				public void transmit(SWARMsmsg msg, String topic) {
+					publish(msg, topic);
+				}
+			}, configuration.acousticLinkRate, configuration.acousticChannelRate, configuration.acousticBurst, configuration.acousticLinkCapacity, metrics);
+		}
+		return acousticScheduler;
+	}
+	
+	/**
+	 * Publishes a message through the P/S Manager, measuring the latency of the call.
+	 * 
+	 * @param msg			The message to be published
+	 * @param topic			The topic for the message
+	 */
+	private void publish(SWARMsmsg msg, String topic) {
+		long start = System.nanoTime();
+		
+		try {
+			psManager.publish(msg, topic);
+		} finally {
+			metrics.recordSince("ps.publish", start);
+		}
+	}
+	
+	private void requestEventsSubscription(byte vehicleID, byte subscriptionRequestID, String topic) {
+    	sciTiming.probe("requestEventsSubscription,entry", vehicleID, subscriptionRequestID);
+		ReusableFrame frame = framePool.acquire();
+		SWARMsmsg msg = MessageFormatter.getInstance().writeEventsSubscription(frame, vehicleID, subscriptionRequestID);
 
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_ACOUSTIC)) {
-				propertyValue =	configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_ACOUSTIC).trim();
-				stateVectorRefreshTimeAcoustic = Integer.parseInt(propertyValue);
-				logger.log(Level.INFO, "--- Read STATE_VECTOR acoustic refresh time property as {0}, set to {1}", new Object[] {propertyValue, stateVectorRefreshTimeAcoustic});
-			} else {
-				logger.log(Level.INFO, "--- Using default STATE_VECTOR acoustic refresh time as {0}", stateVectorRefreshTimeAcoustic);
-			}
-			
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_IS_CDT_DISCOVERY_REQUIRED)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_IS_CDT_DISCOVERY_REQUIRED).trim();
-				isCDTDiscoveryRequired = Boolean.parseBoolean(propertyValue);
-				logger.log(Level.INFO, "--- Read CDT DISCOVERY required property as {0}, set to {1}", new Object[] {propertyValue, isCDTDiscoveryRequired});
-			} else {
-				logger.log(Level.INFO, "--- Using default CDT required as {0}", isCDTDiscoveryRequired);
-			}
-	        
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_REF_COORDS_LONGITUDE)) {
-				propertyValue = configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_REF_COORDS_LONGITUDE).trim();
-				refCoordsLongitude = Double.parseDouble(propertyValue);
-				logger.log(Level.INFO, "--- Read LONGITUDE reference coordinate property as {0}, set to {1}", new Object[] {propertyValue, refCoordsLongitude});
-			} else {
-				logger.log(Level.INFO, "--- Using default LONGITUDE reference coordinate as {0}", refCoordsLongitude);
-			}
-	        
-			if (configurationProperties.containsKey(MessagesCONSTANTS.PROPERTY_REF_COORDS_LATITUDE)) {
-				propertyValue =	configurationProperties.getProperty(MessagesCONSTANTS.PROPERTY_REF_COORDS_LATITUDE).trim();
-				refCoordsLatitude = Double.parseDouble(propertyValue);
-				logger.log(Level.INFO, "--- Read LATITUDE reference coordinate property as {0}, set to {1}", new Object[] {propertyValue, String.valueOf(refCoordsLatitude)});
-			} else {
-				logger.log(Level.INFO, "--- Using default LATITUDE reference coordinate as {0}", refCoordsLatitude);
-			}
-			
-		} catch (FileNotFoundException e) {
-			logger.log(Level.WARNING, "+++ Properties file {0} not found. Using default values", MessagesCONSTANTS.CONFIGURATION_FILENAME);
-		} catch (IOException e) {
-			logger.log(Level.WARNING, "+++ Error reading configuration file {0}", MessagesCONSTANTS.CONFIGURATION_FILENAME);
+		logger.log(Level.INFO, "--- Sending SUBSCRIPTION_TO_VEHICLE_EVENTS for vehicle {0} using topic {1}", new Object[] {vehicleID, topic});
+		if (topic.equals(PSManagerCONSTANTS.REQUEST_EVENTS_ACOUSTIC)) {
+			publishAcoustic(vehicleID, AcousticScheduler.PRIORITY_SUBSCRIPTION, msg, topic, frame);
 		}
-    	logsci.log(Level.INFO, methodName + ",exit," + System.currentTimeMillis());	
+		else {
+			publish(msg, topic);
+			framePool.release(frame);
+		}
+    	sciTiming.probe("requestEventsSubscription,exit", vehicleID, subscriptionRequestID);
+	}
+
+	/**
+	 * Reads the configuration file and applies it. The settings are published at once,
+	 * as an immutable configuration, to the threads handling the reports.
+	 */
+	private void loadConfiguration() {
+    	sciTiming.probe("loadConfiguration,entry");
+    	MTRRConfiguration loaded = MTRRConfiguration.load(logger, configuration);
+    	
+    	vehicleRegistry.setTtl(loaded.vehicleCacheTtl);
+    	MessageFormatter.getInstance().getFrameTrace().setEnabled(loaded.frameTraceEnabled);
+    	MessageFormatter.getInstance().setVerboseLogging(loaded.frameVerboseLog);
+    	sciTiming.setEnabled(loaded.sciLogEnabled);
+    	configuration = loaded;
+    	sciTiming.probe("loadConfiguration,exit");	
 	}
+
+    /**
+     * First task of a vehicle, encoded and waiting to be published.
+     */
+    private static class PreparedTask {
+    	private final VehicleState vehicleState;
+    	private final Action action;
+    	private ReusableFrame frame;
+    	
+    	private PreparedTask(VehicleState vehicleState, Action action) {
+    		this.vehicleState = vehicleState;
+    		this.action = action;
+    	}
+    }
 }
@@ -0,0 +1,318 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.swarms.thrift.Action;
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.Vehicle;
+
+import swarms.MTRR.util.InMemoryReportStore;
+import swarms.MTRR.util.LatencyHistogram;
+import swarms.MTRR.util.MessageFormatter;
+import swarms.MTRR.util.MissionParser;
+import swarms.MTRR.util.ReportDeduplicator;
+import swarms.MTRR.util.VehicleRegistry;
+import swarms.PSManager.PSManagerInterfaces;
+import swarmsPDUs.basic.SWARMsDDSFrame;
+
+/**
+ * Micro benchmarks for the MTRR hot paths, giving a baseline before any optimisation.
+ * 
+ * Each benchmark runs warm up rounds before the measured rounds, and reports the
+ * average time per operation and the percentiles of the measured rounds. Usage:
+ * 
+ *     MTRRBenchmark [formatter|parser|dedup|reportTask|all] [rounds]
+ * 
+ * The reportTask benchmark runs a full mission in the MTRR with a no-op P/S Manager,
+ * an in memory report store standing for the Semantic Query (also for the mission
+ * stored by startMission) and a vehicle registry built from the mission plan. The MTRR
+ * runs without its Thrift proxy server and does not poll the status of the vehicles
+ * before the mission. The status reports to the MMT are queued to the MMT client as
+ * usual, so the MMT does not need to be running.
+ *
+ */
+public class MTRRBenchmark {
+	private static final int DEFAULT_ROUNDS = 10;
+	private static final int[] MISSION_SIZES = {10, 100, 1000, 10000, 100000};
+	private static final int MISSION_VEHICLES = 10;
+	private static final int DEDUP_HISTORY = 1000000;
+	private static final int[] DEDUP_WINDOW_SIZES = {64, 1024, 16384};
+	private static final int REPORT_TASK_ACTIONS = 10000;
+	
+	// Keeps the benchmarked results alive, so the JIT does not remove the calls
+	private static long blackhole = 0;
+	
+	public static void main(String[] args) throws Exception {
+		String benchmark = (args.length > 0) ? args[0] : "all";
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+		
+		// The benchmarked code logs heavily, only the benchmark results are printed
+		Logger quietLogger = Logger.getLogger("MTRRBenchmarkQuietLog");
+		quietLogger.setUseParentHandlers(false);
+		quietLogger.setLevel(Level.OFF);
+		
+		if (benchmark.equals("formatter") || benchmark.equals("all")) {
+			benchmarkFormatter(quietLogger, rounds);
+		}
+		if (benchmark.equals("parser") || benchmark.equals("all")) {
+			benchmarkParser(quietLogger, rounds);
+		}
+		if (benchmark.equals("dedup") || benchmark.equals("all")) {
+			benchmarkDeduplicator(rounds);
+		}
+		if (benchmark.equals("reportTask") || benchmark.equals("all")) {
+			benchmarkReportTask(rounds);
+		}
+		
+		System.out.println("(blackhole " + blackhole + ")");
+		System.exit(0);
+	}
+	
+	/**
+	 * Encoding of a task message, for every task type.
+	 */
+	private static void benchmarkFormatter(Logger logger, int rounds) {
+		MessageFormatter formatter = MessageFormatter.getInstance();
+		formatter.setLogger(logger);
+		Mission mission = MTRRMissionPlanTest.getSyntheticMissionPlan(1, MTRRMissionPlanTest.TASK_TYPES.length);
+		final int operations = 10000;
+		
+		for (final Action action : mission.getActions()) {
+			final MessageFormatter target = formatter;
+			run("formatter.getSWARMsTaskMessage[" + action.getRelatedTask().getDescription() + "]", rounds, operations, new Runnable() {
+				public void run() {
+					for (int i = 0; i < operations; i++) {
+						SWARMsDDSFrame frame = (SWARMsDDSFrame) target.getSWARMsTaskMessage(action, (byte) i);
+						blackhole += frame.subtype;
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Parsing of the full plan and of the plan of each vehicle, for several mission sizes.
+	 */
+	private static void benchmarkParser(Logger logger, int rounds) {
+		final MissionParser parser = new MissionParser();
+		parser.setLogger(logger);
+		
+		for (final int size : MISSION_SIZES) {
+			final Mission mission = MTRRMissionPlanTest.getSyntheticMissionPlan(MISSION_VEHICLES, size);
+			final List<Action> actions = new ArrayList<Action>(mission.getActions());
+			
+			run("parser.parsePlan[" + size + " actions]", rounds, 1, new Runnable() {
+				public void run() {
+					// parsePlan replaces the actions in the plan, so each round starts from the original list
+					mission.setActions(new ArrayList<Action>(actions));
+					blackhole += parser.parsePlan(mission).getActions().size();
+				}
+			});
+			
+			mission.setActions(actions);
+			run("parser.parseVehiclePlan[" + size + " actions, all vehicles]", rounds, MISSION_VEHICLES, new Runnable() {
+				public void run() {
+					for (Vehicle vehicle : mission.getVehicles()) {
+						blackhole += parser.parseVehiclePlan(vehicle, mission).size();
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Duplicate detection of the received reports along a long mission history.
+	 */
+	private static void benchmarkDeduplicator(int rounds) {
+		for (final int windowSize : DEDUP_WINDOW_SIZES) {
+			final ReportDeduplicator deduplicator = new ReportDeduplicator(windowSize);
+			
+			run("dedup.register[" + DEDUP_HISTORY + " reports, window " + windowSize + "]", rounds, 2 * DEDUP_HISTORY, new Runnable() {
+				public void run() {
+					deduplicator.clear();
+					for (int i = 0; i < DEDUP_HISTORY; i++) {
+						byte vehicleID = (byte) (i % MISSION_VEHICLES);
+						int seqOp = i / MISSION_VEHICLES;
+						
+						// One new report and one duplicated report
+						if (deduplicator.register(1, vehicleID, MessagesCONSTANTS.GOTO_WAYPOINT, seqOp, MessagesCONSTANTS.TASK_REPORT_CODE_RUNNING)) {
+							blackhole++;
+						}
+						if (deduplicator.register(1, vehicleID, MessagesCONSTANTS.GOTO_WAYPOINT, seqOp, MessagesCONSTANTS.TASK_REPORT_CODE_RUNNING)) {
+							blackhole++;
+						}
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Processing of the task reports of a full mission: RUNNING and COMPLETED reports for
+	 * every action, each COMPLETED report assigning the next action of the vehicle.
+	 */
+	private static void benchmarkReportTask(int rounds) throws Exception {
+		final Mission mission = MTRRMissionPlanTest.getSyntheticMissionPlan(MISSION_VEHICLES, REPORT_TASK_ACTIONS);
+		final MTRR mtrr = MTRR.getInstanceWithoutThriftProxy();
+		mtrr.markStatusRequested();
+		
+		final HashMap<Integer, Vehicle> vehicles = new HashMap<Integer, Vehicle>();
+		for (Vehicle vehicle : mission.getVehicles()) {
+			vehicles.put(vehicle.getId(), vehicle);
+		}
+		
+		mtrr.setPSManager((PSManagerInterfaces) Proxy.newProxyInstance(PSManagerInterfaces.class.getClassLoader(), new Class<?>[] {PSManagerInterfaces.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				Class<?> returnType = method.getReturnType();
+				
+				if (returnType.equals(boolean.class)) {
+					return true;
+				}
+				else if (returnType.isPrimitive() && !returnType.equals(void.class)) {
+					return 0;
+				}
+				return null;
+			}
+		}));
+		mtrr.setReportStore(new InMemoryReportStore());
+		
+		// The reports are handled in the calling thread, so the rounds measure their processing
+		mtrr.setMailboxes(null);
+		mtrr.setVehicleRegistry(new VehicleRegistry(new VehicleRegistry.VehicleSource() {
+			public Vehicle getVehicle(int vehicleId) {
+				return vehicles.get(vehicleId);
+			}
+			
+			public List<Vehicle> getAllVehicles() {
+				return new ArrayList<Vehicle>(vehicles.values());
+			}
+		}, MessagesCONSTANTS.DEFAULT_VEHICLE_CACHE_TTL));
+		
+		// Expected sequence of actions for each vehicle, as assigned by the MTRR
+		MissionParser parser = new MissionParser();
+		Logger quietLogger = Logger.getLogger("MTRRBenchmarkQuietLog");
+		parser.setLogger(quietLogger);
+		final List<SWARMsDDSFrame> reports = new ArrayList<SWARMsDDSFrame>();
+		HashMap<Integer, LinkedList<Action>> plans = new HashMap<Integer, LinkedList<Action>>();
+		
+		for (Vehicle vehicle : mission.getVehicles()) {
+			plans.put(vehicle.getId(), parser.parseVehiclePlan(vehicle, mission));
+		}
+		
+		boolean pending = true;
+		while (pending) {
+			pending = false;
+			for (LinkedList<Action> plan : plans.values()) {
+				Action action = plan.poll();
+				
+				if (action != null) {
+					reports.add(getTaskReport(action, MessagesCONSTANTS.TASK_REPORT_CODE_RUNNING));
+					reports.add(getTaskReport(action, MessagesCONSTANTS.TASK_REPORT_CODE_COMPLETED));
+					pending = true;
+				}
+			}
+		}
+		
+		run("mtrr.reportTask[" + REPORT_TASK_ACTIONS + " actions mission]", rounds, reports.size(), new Runnable() {
+			public void run() {
+				try {
+					mtrr.startMission(mission.deepCopy());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, new Runnable() {
+			public void run() {
+				for (SWARMsDDSFrame report : reports) {
+					mtrr.reportTask(report, mission.getMissionId());
+				}
+			}
+		});
+	}
+	
+	private static SWARMsDDSFrame getTaskReport(Action action, byte status) {
+		SWARMsDDSFrame report = new SWARMsDDSFrame();
+		report.type = MessagesCONSTANTS.TYPE_TASK_MESSAGE;
+		report.vid = (byte) action.getAssignedVehicleId();
+		report.subtype = (byte) action.getRelatedTask().getTaskTypeId();
+		report.sequenceOperation = action.getActionId();
+		report.id_error = status;
+		report.data_epoch_time = System.currentTimeMillis();
+		report.task_description = action.getRelatedTask().getDescription();
+		return report;
+	}
+	
+	private static void run(String name, int rounds, int operations, Runnable round) {
+		run(name, rounds, operations, null, round);
+	}
+	
+	/**
+	 * Runs a benchmark: half the rounds (at least one) to warm up, then the measured rounds.
+	 * 
+	 * @param name			The benchmark name
+	 * @param rounds		Number of measured rounds
+	 * @param operations	Number of operations performed by each round
+	 * @param setup			Code run before each round and not measured, or null
+	 * @param round			The code of a round
+	 */
+	private static void run(String name, int rounds, int operations, Runnable setup, Runnable round) {
+		LatencyHistogram histogram = new LatencyHistogram(name);
+		long total = 0;
+		
+		for (int i = 0; i < Math.max(1, rounds / 2); i++) {
+			if (setup != null) {
+				setup.run();
+			}
+			round.run();
+		}
+		
+		for (int i = 0; i < rounds; i++) {
+			if (setup != null) {
+				setup.run();
+			}
+			long start = System.nanoTime();
+			round.run();
+			long elapsed = System.nanoTime() - start;
+			
+			total += elapsed;
+			histogram.record(elapsed / operations);
+		}
+		
+		double nanosPerOperation = (double) total / ((long) rounds * operations);
+		System.out.println(String.format("%-70s %12.1f ns/op %14.1f ops/s   p50=%dns p99=%dns max=%dns",
+				name, nanosPerOperation, 1e9 / nanosPerOperation,
+				histogram.getPercentileNanos(50), histogram.getPercentileNanos(99), histogram.getMaxNanos()));
+	}
+}
@@ -0,0 +1,536 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Settings of the MTRR, read from the configuration file.
+ * 
+ * An instance is never modified once read. Reloading the configuration file publishes
+ * a new instance, so the threads handling the reports always see a consistent set of
+ * settings, without locking.
+ * 
+ * The settings of the components created with the MTRR (the status updates, the
+ * mailboxes, the persistence, the preparation threads, the metrics dump and the
+ * budgets of the acoustic scheduler) are only read at start-up. A reload keeps them,
+ * as changing them requires a restart.
+ *
+ */
+final class MTRRConfiguration {
+	final boolean doGetNeighbours;
+	final boolean CDTavailable;
+	final String neighbourDiscoveryStyle;
+	final int getNeighboursMaxTryouts;
+	final int setNeighboursMaxTryouts;
+	final int startDiscoveryMaxTryouts;
+	final long startDiscoveryTimeout;
+	final long getNeighboursTimeout;
+	final long setNeighboursTimeout;
+	final long stateVectorTimeout;
+	final int stateVectorRefreshTimeIP;
+	final int stateVectorRefreshTimeAcoustic;
+	final int dedupWindowSize;
+	final String persistenceMode;
+	final int persistenceQueueSize;
+	final int persistenceBatchSize;
+	final long persistenceFlushInterval;
+	final boolean stateVectorBatching;
+	final int stateVectorBatchSize;
+	final long stateVectorBatchInterval;
+	final long vehicleCacheTtl;
+	final boolean frameTraceEnabled;
+	final boolean frameVerboseLog;
+	final boolean sciLogEnabled;
+	final long metricsDumpPeriod;
+	final int preparationThreads;
+	final int mailboxWorkerThreads;
+	final int mailboxCapacity;
+	final long mailboxOfferTimeout;
+	final byte assignmentMode;
+	final int inFlightWindow;
+	final int lookAhead;
+	final double acousticLinkRate;
+	final double acousticChannelRate;
+	final int acousticBurst;
+	final long acousticGracePeriod;
+	final int acousticLinkCapacity;
+	final long statusFreshness;
+	final boolean isCDTDiscoveryRequired;
+	final double refCoordsLongitude;
+	final double refCoordsLatitude;
+	
+	/**
+	 * Reads the configuration file. The start-up settings are only read without previous settings.
+	 * 
+	 * @param logger		Logger for the settings read
+	 * @param previous		The settings in use, kept if the file cannot be read, or null to use the default values then
+	 * @return				The settings read
+	 */
+	static MTRRConfiguration load(Logger logger, MTRRConfiguration previous) {
+		Properties properties = new Properties();
+		
+		try {
+			FileInputStream in = new FileInputStream(MessagesCONSTANTS.CONFIGURATION_FILENAME);
+			properties.load(in);
+			in.close();
+			
+			logger.log(Level.INFO, "--- Loaded SWARSMs properties file");
+		} catch (FileNotFoundException e) {
+			logger.log(Level.WARNING, "+++ Properties file {0} not found. Using default values", MessagesCONSTANTS.CONFIGURATION_FILENAME);
+			if (previous != null) {
+				return previous;
+			}
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "+++ Error reading configuration file {0}", MessagesCONSTANTS.CONFIGURATION_FILENAME);
+			if (previous != null) {
+				return previous;
+			}
+		}
+		return new MTRRConfiguration(properties, previous, logger);
+	}
+	
+	/**
+	 * @param properties	The properties read from the configuration file
+	 * @param startup		The settings in use, whose start-up settings are kept, or null at start-up
+	 * @param logger		Logger for the settings read
+	 */
+	private MTRRConfiguration(Properties properties, MTRRConfiguration startup, Logger logger) {
+		String propertyValue;
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_DO_GET_NEIGHBOURS)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_DO_GET_NEIGHBOURS).trim();
+			doGetNeighbours = Boolean.parseBoolean(propertyValue);				
+			logger.log(Level.INFO, "--- Read DO GET NEIGHBOURS property as {0}, set to {1}", new Object[] {propertyValue, doGetNeighbours});
+		} else {
+			doGetNeighbours = false;
+			logger.log(Level.INFO, "--- Using default DO GET NEIGHBOURS as {0}", doGetNeighbours);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_IS_CDT_AVAILABLE)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_IS_CDT_AVAILABLE).trim();
+			CDTavailable = Boolean.parseBoolean(propertyValue);				
+			logger.log(Level.INFO, "--- Read CDT available property as {0}, set to {1}", new Object[] {propertyValue, CDTavailable});
+		} else {
+			CDTavailable = false;
+			logger.log(Level.INFO, "--- Using default CDT available as {0}", CDTavailable);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_NEIGHBOUR_DISCOVERY_STYLE)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_NEIGHBOUR_DISCOVERY_STYLE).trim();
+			neighbourDiscoveryStyle = propertyValue;				
+			logger.log(Level.INFO, "--- Read neighbour discovery style property as {0}, set to {1}", new Object[] {propertyValue, neighbourDiscoveryStyle});
+		} else {
+			neighbourDiscoveryStyle = MessagesCONSTANTS.DEFAULT_NEIGHBOUR_DISCOVERY_STYLE;
+			logger.log(Level.INFO, "--- Using default neighbour discovery style as {0}", neighbourDiscoveryStyle);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TRYOUTS)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TRYOUTS).trim();
+			getNeighboursMaxTryouts = Integer.parseInt(propertyValue);				
+			logger.log(Level.INFO, "--- Read GET_NEIGHBOURS tryouts property as {0}, set to {1}", new Object[] {propertyValue, getNeighboursMaxTryouts});
+		} else {
+			getNeighboursMaxTryouts = MessagesCONSTANTS.DEFAULT_GET_NEIGHBOURS_TOTAL_TRYOUTS;
+			logger.log(Level.INFO, "--- Using default GET_NEIGHBOURS tryouts as {0}", getNeighboursMaxTryouts);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_SET_NEIGHBOURS_TRYOUTS)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_SET_NEIGHBOURS_TRYOUTS).trim();
+			setNeighboursMaxTryouts = Integer.parseInt(propertyValue);				
+			logger.log(Level.INFO, "--- Read SET_NEIGHBOURS tryouts property as {0}, set to {1}", new Object[] {propertyValue, setNeighboursMaxTryouts});
+		} else {
+			setNeighboursMaxTryouts = MessagesCONSTANTS.DEFAULT_SET_NEIGHBOURS_TOTAL_TRYOUTS;
+			logger.log(Level.INFO, "--- Using default SET_NEIGHBOURS tryouts as {0}", setNeighboursMaxTryouts);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_START_DISCOVERY_TRYOUTS)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_START_DISCOVERY_TRYOUTS).trim();
+			startDiscoveryMaxTryouts = Integer.parseInt(propertyValue);				
+			logger.log(Level.INFO, "--- Read START_DISCOVERY tryouts property as {0}, set to {1}", new Object[] {propertyValue, startDiscoveryMaxTryouts});
+		} else {
+			startDiscoveryMaxTryouts = MessagesCONSTANTS.DEFAULT_START_DISCOVERY_TOTAL_TRYOUTS;
+			logger.log(Level.INFO, "--- Using default START_DISCOVERY tryouts as {0}", startDiscoveryMaxTryouts);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_START_DISCOVERY_TIMEOUT)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_START_DISCOVERY_TIMEOUT).trim();
+			startDiscoveryTimeout = Long.parseLong(propertyValue);				
+			logger.log(Level.INFO, "--- Read START_DISCOVERY timeout property as {0}, set to {1}", new Object[] {propertyValue, startDiscoveryTimeout});
+		} else {
+			startDiscoveryTimeout = MessagesCONSTANTS.CDT_START_DISCOVERY_TIMEOUT;
+			logger.log(Level.INFO, "--- Using default START_DISCOVERY timeout as {0}", startDiscoveryTimeout);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TIMEOUT)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_GET_NEIGHBOURS_TIMEOUT).trim();
+			getNeighboursTimeout = Long.parseLong(propertyValue);				
+			logger.log(Level.INFO, "--- Read GET_NEIGHBOURS timeout property as {0}, set to {1}", new Object[] {propertyValue, getNeighboursTimeout});
+		} else {
+			getNeighboursTimeout = MessagesCONSTANTS.DEFAULT_GET_NEIGHBOURS_TIMEOUT;
+			logger.log(Level.INFO, "--- Using default GET_NEIGHBOURS timeout as {0}", getNeighboursTimeout);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_SET_NEIGHBOURS_TIMEOUT)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_SET_NEIGHBOURS_TIMEOUT).trim();
+			setNeighboursTimeout = Long.parseLong(propertyValue);				
+			logger.log(Level.INFO, "--- Read SET_NEIGHBOURS timeout property as {0}, set to {1}", new Object[] {propertyValue, setNeighboursTimeout});
+		} else {
+			setNeighboursTimeout = MessagesCONSTANTS.DEFAULT_SET_NEIGHBOURS_TIMEOUT;
+			logger.log(Level.INFO, "--- Using default SET_NEIGHBOURS timeout as {0}", setNeighboursTimeout);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_TIMEOUT)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_TIMEOUT).trim();
+			stateVectorTimeout = Long.parseLong(propertyValue);				
+			logger.log(Level.INFO, "--- Read STATE_VECTOR timeout property as {0}, set to {1}", new Object[] {propertyValue, stateVectorTimeout});
+		} else {
+			stateVectorTimeout = MessagesCONSTANTS.DEFAULT_STATE_VECTOR_TIMEOUT;
+			logger.log(Level.INFO, "--- Using default STATE_VECTOR timeout as {0}", stateVectorTimeout);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_IP)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_IP).trim();
+			stateVectorRefreshTimeIP = Integer.parseInt(propertyValue);
+			logger.log(Level.INFO, "--- Read STATE_VECTOR IP refresh time property as {0}, set to {1}", new Object[] {propertyValue, stateVectorRefreshTimeIP});
+		} else {
+			stateVectorRefreshTimeIP = MessagesCONSTANTS.DEFAULT_ENVIRONMENT_STATE_VECTOR_REFRESH_TIME_IP;
+			logger.log(Level.INFO, "--- Using default STATE_VECTOR IP refresh time as {0}", stateVectorRefreshTimeIP);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_ACOUSTIC)) {
+			propertyValue =	properties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_REFRESH_TIME_ACOUSTIC).trim();
+			stateVectorRefreshTimeAcoustic = Integer.parseInt(propertyValue);
+			logger.log(Level.INFO, "--- Read STATE_VECTOR acoustic refresh time property as {0}, set to {1}", new Object[] {propertyValue, stateVectorRefreshTimeAcoustic});
+		} else {
+			stateVectorRefreshTimeAcoustic = MessagesCONSTANTS.DEFAULT_ENVIRONMENT_STATE_VECTOR_REFRESH_TIME_ACOUSTIC;
+			logger.log(Level.INFO, "--- Using default STATE_VECTOR acoustic refresh time as {0}", stateVectorRefreshTimeAcoustic);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_DEDUP_WINDOW_SIZE)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_DEDUP_WINDOW_SIZE).trim();
+			dedupWindowSize = Integer.parseInt(propertyValue);
+			logger.log(Level.INFO, "--- Read duplicated reports window size property as {0}, set to {1}", new Object[] {propertyValue, dedupWindowSize});
+		} else {
+			dedupWindowSize = MessagesCONSTANTS.DEFAULT_DEDUP_WINDOW_SIZE;
+			logger.log(Level.INFO, "--- Using default duplicated reports window size as {0}", dedupWindowSize);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_VEHICLE_CACHE_TTL)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_VEHICLE_CACHE_TTL).trim();
+			vehicleCacheTtl = Long.parseLong(propertyValue);
+			logger.log(Level.INFO, "--- Read vehicle cache TTL property as {0}, set to {1}", new Object[] {propertyValue, vehicleCacheTtl});
+		} else {
+			vehicleCacheTtl = MessagesCONSTANTS.DEFAULT_VEHICLE_CACHE_TTL;
+			logger.log(Level.INFO, "--- Using default vehicle cache TTL as {0}", vehicleCacheTtl);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_FRAME_TRACE_ENABLED)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_FRAME_TRACE_ENABLED).trim();
+			frameTraceEnabled = Boolean.parseBoolean(propertyValue);
+			logger.log(Level.INFO, "--- Read frame trace enabled property as {0}, set to {1}", new Object[] {propertyValue, frameTraceEnabled});
+		} else {
+			frameTraceEnabled = false;
+			logger.log(Level.INFO, "--- Using default frame trace enabled as {0}", frameTraceEnabled);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_FRAME_VERBOSE_LOG)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_FRAME_VERBOSE_LOG).trim();
+			frameVerboseLog = Boolean.parseBoolean(propertyValue);
+			logger.log(Level.INFO, "--- Read frame verbose log property as {0}, set to {1}", new Object[] {propertyValue, frameVerboseLog});
+		} else {
+			frameVerboseLog = false;
+			logger.log(Level.INFO, "--- Using default frame verbose log as {0}", frameVerboseLog);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_SCI_LOG_ENABLED)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_SCI_LOG_ENABLED).trim();
+			sciLogEnabled = Boolean.parseBoolean(propertyValue);
+			logger.log(Level.INFO, "--- Read SCI log enabled property as {0}, set to {1}", new Object[] {propertyValue, sciLogEnabled});
+		} else {
+			sciLogEnabled = MessagesCONSTANTS.DEFAULT_SCI_LOG_ENABLED;
+			logger.log(Level.INFO, "--- Using default SCI log enabled as {0}", sciLogEnabled);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_ASSIGNMENT_MODE)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_ASSIGNMENT_MODE).trim();
+			if (propertyValue.equals(MessagesCONSTANTS.ASSIGNMENT_MODE_FULL_SEQUENCE)) {
+				assignmentMode = MessagesCONSTANTS.ASSIGNMENT_FULL_SEQUENCE;
+			} else if (propertyValue.equals(MessagesCONSTANTS.ASSIGNMENT_MODE_WAIT_TO_COMPLETE)) {
+				assignmentMode = MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE;
+			} else if (propertyValue.equals(MessagesCONSTANTS.ASSIGNMENT_MODE_DEPENDENCY_GRAPH)) {
+				assignmentMode = MessagesCONSTANTS.ASSIGNMENT_DEPENDENCY_GRAPH;
+			} else if (propertyValue.equals(MessagesCONSTANTS.ASSIGNMENT_MODE_LOOK_AHEAD)) {
+				assignmentMode = MessagesCONSTANTS.ASSIGNMENT_LOOK_AHEAD;
+			} else {
+				assignmentMode = MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE;
+				logger.log(Level.WARNING, "+++ Unknown assignment mode {0}, using default assignment mode {1}", new Object[] {propertyValue, assignmentMode});
+			}
+			logger.log(Level.INFO, "--- Read assignment mode property as {0}, set to {1}", new Object[] {propertyValue, assignmentMode});
+		} else {
+			assignmentMode = MessagesCONSTANTS.ASSIGNMENT_WAIT_TO_COMPLETE;
+			logger.log(Level.INFO, "--- Using default assignment mode as {0}", assignmentMode);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_IN_FLIGHT_WINDOW)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_IN_FLIGHT_WINDOW).trim();
+			inFlightWindow = Integer.parseInt(propertyValue);
+			logger.log(Level.INFO, "--- Read in-flight window property as {0}, set to {1}", new Object[] {propertyValue, inFlightWindow});
+		} else {
+			inFlightWindow = MessagesCONSTANTS.DEFAULT_IN_FLIGHT_WINDOW;
+			logger.log(Level.INFO, "--- Using default in-flight window as {0}", inFlightWindow);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_LOOK_AHEAD)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_LOOK_AHEAD).trim();
+			lookAhead = Integer.parseInt(propertyValue);
+			logger.log(Level.INFO, "--- Read look-ahead property as {0}, set to {1}", new Object[] {propertyValue, lookAhead});
+		} else {
+			lookAhead = MessagesCONSTANTS.DEFAULT_LOOK_AHEAD;
+			logger.log(Level.INFO, "--- Using default look-ahead as {0}", lookAhead);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_ACOUSTIC_GRACE_PERIOD)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_ACOUSTIC_GRACE_PERIOD).trim();
+			acousticGracePeriod = Long.parseLong(propertyValue);
+			logger.log(Level.INFO, "--- Read acoustic grace period property as {0}, set to {1}", new Object[] {propertyValue, acousticGracePeriod});
+		} else {
+			acousticGracePeriod = MessagesCONSTANTS.DEFAULT_ACOUSTIC_GRACE_PERIOD;
+			logger.log(Level.INFO, "--- Using default acoustic grace period as {0}", acousticGracePeriod);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_IS_CDT_DISCOVERY_REQUIRED)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_IS_CDT_DISCOVERY_REQUIRED).trim();
+			isCDTDiscoveryRequired = Boolean.parseBoolean(propertyValue);
+			logger.log(Level.INFO, "--- Read CDT DISCOVERY required property as {0}, set to {1}", new Object[] {propertyValue, isCDTDiscoveryRequired});
+		} else {
+			isCDTDiscoveryRequired = false;
+			logger.log(Level.INFO, "--- Using default CDT required as {0}", isCDTDiscoveryRequired);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_REF_COORDS_LONGITUDE)) {
+			propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_REF_COORDS_LONGITUDE).trim();
+			refCoordsLongitude = Double.parseDouble(propertyValue);
+			logger.log(Level.INFO, "--- Read LONGITUDE reference coordinate property as {0}, set to {1}", new Object[] {propertyValue, refCoordsLongitude});
+		} else {
+			refCoordsLongitude = MessagesCONSTANTS.DEFAULT_REFERENCE_COORDINATE_LONGITUDE;
+			logger.log(Level.INFO, "--- Using default LONGITUDE reference coordinate as {0}", refCoordsLongitude);
+		}
+		
+		if (properties.containsKey(MessagesCONSTANTS.PROPERTY_REF_COORDS_LATITUDE)) {
+			propertyValue =	properties.getProperty(MessagesCONSTANTS.PROPERTY_REF_COORDS_LATITUDE).trim();
+			refCoordsLatitude = Double.parseDouble(propertyValue);
+			logger.log(Level.INFO, "--- Read LATITUDE reference coordinate property as {0}, set to {1}", new Object[] {propertyValue, String.valueOf(refCoordsLatitude)});
+		} else {
+			refCoordsLatitude = MessagesCONSTANTS.DEFAULT_REFERENCE_COORDINATE_LATITUDE;
+			logger.log(Level.INFO, "--- Using default LATITUDE reference coordinate as {0}", refCoordsLatitude);
+		}
+		
+		// Settings only read at start-up, since the components using them are created once.
+		// A reload keeps them as they are, without reading them again
+		if (startup != null) {
+			persistenceMode = startup.persistenceMode;
+			persistenceQueueSize = startup.persistenceQueueSize;
+			persistenceBatchSize = startup.persistenceBatchSize;
+			persistenceFlushInterval = startup.persistenceFlushInterval;
+			stateVectorBatching = startup.stateVectorBatching;
+			stateVectorBatchSize = startup.stateVectorBatchSize;
+			stateVectorBatchInterval = startup.stateVectorBatchInterval;
+			metricsDumpPeriod = startup.metricsDumpPeriod;
+			preparationThreads = startup.preparationThreads;
+			mailboxWorkerThreads = startup.mailboxWorkerThreads;
+			mailboxCapacity = startup.mailboxCapacity;
+			mailboxOfferTimeout = startup.mailboxOfferTimeout;
+			statusFreshness = startup.statusFreshness;
+			acousticLinkRate = startup.acousticLinkRate;
+			acousticChannelRate = startup.acousticChannelRate;
+			acousticBurst = startup.acousticBurst;
+			acousticLinkCapacity = startup.acousticLinkCapacity;
+		}
+		else {
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_PERSISTENCE_MODE)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_PERSISTENCE_MODE).trim();
+				if (propertyValue.equals(MessagesCONSTANTS.PERSISTENCE_MODE_SYNC) || propertyValue.equals(MessagesCONSTANTS.PERSISTENCE_MODE_WRITE_BEHIND)) {
+					persistenceMode = propertyValue;
+					logger.log(Level.INFO, "--- Read persistence mode property as {0}, set to {1}", new Object[] {propertyValue, persistenceMode});
+				} else {
+					persistenceMode = MessagesCONSTANTS.DEFAULT_PERSISTENCE_MODE;
+					logger.log(Level.WARNING, "+++ Unknown persistence mode {0}, using default persistence mode {1}", new Object[] {propertyValue, persistenceMode});
+				}
+			} else {
+				persistenceMode = MessagesCONSTANTS.DEFAULT_PERSISTENCE_MODE;
+				logger.log(Level.INFO, "--- Using default persistence mode as {0}", persistenceMode);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_PERSISTENCE_QUEUE_SIZE)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_PERSISTENCE_QUEUE_SIZE).trim();
+				persistenceQueueSize = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read persistence queue size property as {0}, set to {1}", new Object[] {propertyValue, persistenceQueueSize});
+			} else {
+				persistenceQueueSize = MessagesCONSTANTS.DEFAULT_PERSISTENCE_QUEUE_SIZE;
+				logger.log(Level.INFO, "--- Using default persistence queue size as {0}", persistenceQueueSize);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_PERSISTENCE_BATCH_SIZE)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_PERSISTENCE_BATCH_SIZE).trim();
+				persistenceBatchSize = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read persistence batch size property as {0}, set to {1}", new Object[] {propertyValue, persistenceBatchSize});
+			} else {
+				persistenceBatchSize = MessagesCONSTANTS.DEFAULT_PERSISTENCE_BATCH_SIZE;
+				logger.log(Level.INFO, "--- Using default persistence batch size as {0}", persistenceBatchSize);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_PERSISTENCE_FLUSH_INTERVAL)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_PERSISTENCE_FLUSH_INTERVAL).trim();
+				persistenceFlushInterval = Long.parseLong(propertyValue);
+				logger.log(Level.INFO, "--- Read persistence flush interval property as {0}, set to {1}", new Object[] {propertyValue, persistenceFlushInterval});
+			} else {
+				persistenceFlushInterval = MessagesCONSTANTS.DEFAULT_PERSISTENCE_FLUSH_INTERVAL;
+				logger.log(Level.INFO, "--- Using default persistence flush interval as {0}", persistenceFlushInterval);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_BATCHING)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_BATCHING).trim();
+				stateVectorBatching = Boolean.parseBoolean(propertyValue);
+				logger.log(Level.INFO, "--- Read STATE_VECTOR batching property as {0}, set to {1}", new Object[] {propertyValue, stateVectorBatching});
+			} else {
+				stateVectorBatching = MessagesCONSTANTS.DEFAULT_STATE_VECTOR_BATCHING;
+				logger.log(Level.INFO, "--- Using default STATE_VECTOR batching as {0}", stateVectorBatching);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_BATCH_SIZE)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_BATCH_SIZE).trim();
+				stateVectorBatchSize = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read STATE_VECTOR batch size property as {0}, set to {1}", new Object[] {propertyValue, stateVectorBatchSize});
+			} else {
+				stateVectorBatchSize = MessagesCONSTANTS.DEFAULT_STATE_VECTOR_BATCH_SIZE;
+				logger.log(Level.INFO, "--- Using default STATE_VECTOR batch size as {0}", stateVectorBatchSize);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_BATCH_INTERVAL)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_STATE_VECTOR_BATCH_INTERVAL).trim();
+				stateVectorBatchInterval = Long.parseLong(propertyValue);
+				logger.log(Level.INFO, "--- Read STATE_VECTOR batch interval property as {0}, set to {1}", new Object[] {propertyValue, stateVectorBatchInterval});
+			} else {
+				stateVectorBatchInterval = MessagesCONSTANTS.DEFAULT_STATE_VECTOR_BATCH_INTERVAL;
+				logger.log(Level.INFO, "--- Using default STATE_VECTOR batch interval as {0}", stateVectorBatchInterval);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_METRICS_DUMP_PERIOD)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_METRICS_DUMP_PERIOD).trim();
+				metricsDumpPeriod = Long.parseLong(propertyValue);
+				logger.log(Level.INFO, "--- Read metrics dump period property as {0}, set to {1}", new Object[] {propertyValue, metricsDumpPeriod});
+			} else {
+				metricsDumpPeriod = MessagesCONSTANTS.DEFAULT_METRICS_DUMP_PERIOD;
+				logger.log(Level.INFO, "--- Using default metrics dump period as {0}", metricsDumpPeriod);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_PREPARATION_THREADS)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_PREPARATION_THREADS).trim();
+				preparationThreads = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read preparation threads property as {0}, set to {1}", new Object[] {propertyValue, preparationThreads});
+			} else {
+				preparationThreads = MessagesCONSTANTS.DEFAULT_PREPARATION_THREADS;
+				logger.log(Level.INFO, "--- Using default preparation threads as {0}", preparationThreads);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_MAILBOX_WORKER_THREADS)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_MAILBOX_WORKER_THREADS).trim();
+				mailboxWorkerThreads = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read mailbox worker threads property as {0}, set to {1}", new Object[] {propertyValue, mailboxWorkerThreads});
+			} else {
+				mailboxWorkerThreads = MessagesCONSTANTS.DEFAULT_MAILBOX_WORKER_THREADS;
+				logger.log(Level.INFO, "--- Using default mailbox worker threads as {0}", mailboxWorkerThreads);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_MAILBOX_CAPACITY)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_MAILBOX_CAPACITY).trim();
+				mailboxCapacity = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read mailbox capacity property as {0}, set to {1}", new Object[] {propertyValue, mailboxCapacity});
+			} else {
+				mailboxCapacity = MessagesCONSTANTS.DEFAULT_MAILBOX_CAPACITY;
+				logger.log(Level.INFO, "--- Using default mailbox capacity as {0}", mailboxCapacity);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_MAILBOX_OFFER_TIMEOUT)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_MAILBOX_OFFER_TIMEOUT).trim();
+				mailboxOfferTimeout = Long.parseLong(propertyValue);
+				logger.log(Level.INFO, "--- Read mailbox offer timeout property as {0}, set to {1}", new Object[] {propertyValue, mailboxOfferTimeout});
+			} else {
+				mailboxOfferTimeout = MessagesCONSTANTS.DEFAULT_MAILBOX_OFFER_TIMEOUT;
+				logger.log(Level.INFO, "--- Using default mailbox offer timeout as {0}", mailboxOfferTimeout);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_STATUS_FRESHNESS)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_STATUS_FRESHNESS).trim();
+				statusFreshness = Long.parseLong(propertyValue);
+				logger.log(Level.INFO, "--- Read status freshness property as {0}, set to {1}", new Object[] {propertyValue, statusFreshness});
+			} else {
+				statusFreshness = MessagesCONSTANTS.DEFAULT_STATUS_FRESHNESS;
+				logger.log(Level.INFO, "--- Using default status freshness as {0}", statusFreshness);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_ACOUSTIC_LINK_RATE)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_ACOUSTIC_LINK_RATE).trim();
+				acousticLinkRate = Double.parseDouble(propertyValue);
+				logger.log(Level.INFO, "--- Read acoustic link rate property as {0}, set to {1}", new Object[] {propertyValue, acousticLinkRate});
+			} else {
+				acousticLinkRate = MessagesCONSTANTS.DEFAULT_ACOUSTIC_LINK_RATE;
+				logger.log(Level.INFO, "--- Using default acoustic link rate as {0}", acousticLinkRate);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_ACOUSTIC_CHANNEL_RATE)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_ACOUSTIC_CHANNEL_RATE).trim();
+				acousticChannelRate = Double.parseDouble(propertyValue);
+				logger.log(Level.INFO, "--- Read acoustic channel rate property as {0}, set to {1}", new Object[] {propertyValue, acousticChannelRate});
+			} else {
+				acousticChannelRate = MessagesCONSTANTS.DEFAULT_ACOUSTIC_CHANNEL_RATE;
+				logger.log(Level.INFO, "--- Using default acoustic channel rate as {0}", acousticChannelRate);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_ACOUSTIC_BURST)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_ACOUSTIC_BURST).trim();
+				acousticBurst = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read acoustic burst property as {0}, set to {1}", new Object[] {propertyValue, acousticBurst});
+			} else {
+				acousticBurst = MessagesCONSTANTS.DEFAULT_ACOUSTIC_BURST;
+				logger.log(Level.INFO, "--- Using default acoustic burst as {0}", acousticBurst);
+			}
+			
+			if (properties.containsKey(MessagesCONSTANTS.PROPERTY_ACOUSTIC_LINK_CAPACITY)) {
+				propertyValue = properties.getProperty(MessagesCONSTANTS.PROPERTY_ACOUSTIC_LINK_CAPACITY).trim();
+				acousticLinkCapacity = Integer.parseInt(propertyValue);
+				logger.log(Level.INFO, "--- Read acoustic link capacity property as {0}, set to {1}", new Object[] {propertyValue, acousticLinkCapacity});
+			} else {
+				acousticLinkCapacity = MessagesCONSTANTS.DEFAULT_ACOUSTIC_LINK_CAPACITY;
+				logger.log(Level.INFO, "--- Using default acoustic link capacity as {0}", acousticLinkCapacity);
+			}
+		}
+	}
+}
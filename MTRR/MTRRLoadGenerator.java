@@ -0,0 +1,601 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TTransportException;
+
+import com.swarms.thrift.Action;
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.MmtService;
+import com.swarms.thrift.Vehicle;
+
+import swarms.MTRR.util.InMemoryReportStore;
+import swarms.MTRR.util.LatencyHistogram;
+import swarms.MTRR.util.MetricsRegistry;
+import swarms.MTRR.util.MissionParser;
+import swarms.MTRR.util.ReportStore;
+import swarms.MTRR.util.ThriftClientToMMT;
+import swarms.MTRR.util.VehicleMailboxDispatcher;
+import swarms.MTRR.util.VehicleRegistry;
+import swarms.MTRR.util.WriteBehindReportStore;
+import swarms.PSManager.PSManagerCONSTANTS;
+import swarms.PSManager.PSManagerInterfaces;
+import swarms.TasksReporter.TaskReportImpl;
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+import swarmsDDLs.SWARMsmsg;
+import swarmsPDUs.basic.SWARMsDDSFrame;
+
+/**
+ * End to end load harness for the MTRR, driven by a synthetic swarm.
+ * 
+ * Each simulated vehicle reacts to the tasks assigned by the MTRR with RUNNING and
+ * COMPLETED reports, and sends environment and event reports at a fixed rate. The
+ * frames are delivered to the same entry points the P/S Manager calls: the task reports
+ * to the TaskReportImpl, and the environment and event reports to the MTReporter of the
+ * MTRR. They are delivered over two simulated channels: every frame is delivered over
+ * IP, and a share of them is delivered again over the acoustic channel, later. A share
+ * of the frames is delayed further, so it arrives out of order.
+ * 
+ * The P/S Manager, the Semantic Query and the MMT are replaced by a no-op P/S Manager
+ * routing the tasks to the simulated vehicles, an in memory report store and a local
+ * fake MMT Thrift server. The load is increased in steps, and each step reports the
+ * sustained throughput of each stage, the latency from the generation of a task report
+ * to its arrival to the fake MMT, and the stages whose backlog grew or dropped frames.
+ * The mailboxes only drop environment reports; a task report waits for room in a full
+ * mailbox, holding its delivery thread, so it shows up as backlog in the delivery stage.
+ * 
+ * Usage: MTRRLoadGenerator [option=value]..., see the options below.
+ *
+ */
+public class MTRRLoadGenerator {
+	private static final long MISSION_STALL_TIMEOUT = 5000;		// ms without assignments before restarting the mission
+	
+	// Options, with their default values
+	private int vehicles = 10;
+	private int actionsPerVehicle = 500;
+	private long taskDuration = 200;			// ms from a task assignment to its COMPLETED report
+	private double environmentRate = 5;			// environment reports per vehicle and second
+	private double eventRate = 0.5;				// event reports per vehicle and second
+	private double duplicateRate = 0.3;			// share of frames delivered again over the acoustic channel
+	private double reorderRate = 0.1;			// share of frames delayed further
+	private long ipDelay = 2;					// ms
+	private long acousticDelay = 300;			// ms
+	private long reorderDelay = 50;				// ms, maximum extra delay of the reordered frames
+	private int mmtPort = 19090;
+	private long storeDelay = 0;				// ms per store operation
+	private boolean writeBehind = false;
+	private int deliveryThreads = 4;
+	private long stepDuration = 10;				// s
+	private double[] rateSteps = {1, 2, 4, 8, 16};
+	
+	private final Logger logger = Logger.getLogger("MyMTRRLoadGeneratorLog");
+	private ScheduledThreadPoolExecutor channels;
+	private ScheduledThreadPoolExecutor vehiclesClock;
+	private MTRR mtrr;
+	private InMemoryReportStore inMemoryStore;
+	private WriteBehindReportStore writeBehindStore = null;
+	private volatile double rateMultiplier = 1;
+	private volatile int missionId = 0;
+	private volatile long lastAssignment = 0;
+	private int expectedCompletions = 0;
+	private Mission missionPlan;
+	private final List<ScheduledFuture<?>> periodicReports = new ArrayList<ScheduledFuture<?>>();
+	private final Map<Integer, AtomicInteger> sequenceOperations = new HashMap<Integer, AtomicInteger>();
+	
+	// Generation time of the task reports awaiting to reach the fake MMT, by vehicle and status
+	private final ConcurrentHashMap<Long, Long> pendingStatusReports = new ConcurrentHashMap<Long, Long>();
+	private volatile LatencyHistogram endToEndLatency = new LatencyHistogram("e2e");
+	
+	private final AtomicLong generatedFrames = new AtomicLong();
+	private final AtomicLong deliveredFrames = new AtomicLong();
+	private final AtomicLong completionsInMission = new AtomicLong();
+	private final AtomicLong storedReports = new AtomicLong();
+	private final AtomicLong mmtReceived = new AtomicLong();
+	
+	public static void main(String[] args) throws Exception {
+		MTRRLoadGenerator generator = new MTRRLoadGenerator();
+		
+		for (String arg : args) {
+			String[] option = arg.split("=", 2);
+			
+			if (option.length != 2) {
+				System.out.println("Ignoring option " + arg + ", expected name=value");
+			}
+			else {
+				generator.setOption(option[0].trim(), option[1].trim());
+			}
+		}
+		
+		generator.run();
+		System.exit(0);
+	}
+	
+	private void setOption(String name, String value) {
+		if (name.equals("vehicles")) {
+			vehicles = Math.min(Integer.parseInt(value), Byte.MAX_VALUE);
+		} else if (name.equals("actionsPerVehicle")) {
+			actionsPerVehicle = Integer.parseInt(value);
+		} else if (name.equals("taskDuration")) {
+			taskDuration = Long.parseLong(value);
+		} else if (name.equals("environmentRate")) {
+			environmentRate = Double.parseDouble(value);
+		} else if (name.equals("eventRate")) {
+			eventRate = Double.parseDouble(value);
+		} else if (name.equals("duplicateRate")) {
+			duplicateRate = Double.parseDouble(value);
+		} else if (name.equals("reorderRate")) {
+			reorderRate = Double.parseDouble(value);
+		} else if (name.equals("ipDelay")) {
+			ipDelay = Long.parseLong(value);
+		} else if (name.equals("acousticDelay")) {
+			acousticDelay = Long.parseLong(value);
+		} else if (name.equals("reorderDelay")) {
+			reorderDelay = Long.parseLong(value);
+		} else if (name.equals("mmtPort")) {
+			mmtPort = Integer.parseInt(value);
+		} else if (name.equals("storeDelay")) {
+			storeDelay = Long.parseLong(value);
+		} else if (name.equals("writeBehind")) {
+			writeBehind = Boolean.parseBoolean(value);
+		} else if (name.equals("deliveryThreads")) {
+			deliveryThreads = Integer.parseInt(value);
+		} else if (name.equals("stepDuration")) {
+			stepDuration = Long.parseLong(value);
+		} else if (name.equals("rateSteps")) {
+			String[] steps = value.split(",");
+			rateSteps = new double[steps.length];
+			for (int i = 0; i < steps.length; i++) {
+				rateSteps[i] = Double.parseDouble(steps[i].trim());
+			}
+		} else {
+			System.out.println("Ignoring unknown option " + name);
+		}
+	}
+	
+	private void run() throws Exception {
+		logger.setUseParentHandlers(false);
+		channels = new ScheduledThreadPoolExecutor(deliveryThreads);
+		vehiclesClock = new ScheduledThreadPoolExecutor(2);
+		
+		startFakeMMT();
+		ThriftClientToMMT.getInstance().setMmtServerAddress("localhost");
+		ThriftClientToMMT.getInstance().setMmtServerPort(mmtPort);
+		
+		setUpMTRR();
+		startNextMission();
+		
+		System.out.println(String.format("%6s %10s %10s %10s %10s %10s %10s %10s %8s %8s  %s",
+				"rate", "generated", "delivered", "processed", "stored", "to MMT", "mailboxes", "MMT queue", "e2e p50", "e2e p99", "saturated stages"));
+		
+		Map<String, Double> saturationPoints = new LinkedHashMap<String, Double>();
+		for (double step : rateSteps) {
+			for (String stage : runStep(step)) {
+				if (!saturationPoints.containsKey(stage)) {
+					saturationPoints.put(stage, step);
+				}
+			}
+		}
+		
+		System.out.println();
+		if (saturationPoints.isEmpty()) {
+			System.out.println("No stage saturated up to rate x" + rateSteps[rateSteps.length - 1]);
+		}
+		for (Map.Entry<String, Double> point : saturationPoints.entrySet()) {
+			System.out.println("Stage " + point.getKey() + " saturates at rate x" + point.getValue());
+		}
+		System.out.println(MetricsRegistry.getInstance().getSnapshot());
+	}
+	
+	/**
+	 * Runs a load step, sampling the stages every second.
+	 * 
+	 * @param multiplier		Multiplier of the report rates and task pace
+	 * @return					The stages that saturated during the step
+	 */
+	private List<String> runStep(double multiplier) throws InterruptedException {
+		rateMultiplier = multiplier;
+		endToEndLatency = new LatencyHistogram("e2e");
+		schedulePeriodicReports();
+		
+		VehicleMailboxDispatcher mailboxes = mtrr.getMailboxes();
+		long startGenerated = generatedFrames.get();
+		long startDelivered = deliveredFrames.get();
+		long startProcessed = getProcessedReports();
+		long startStored = collectStoredReports();
+		long startMmt = mmtReceived.get();
+		long startDropped = (mailboxes == null) ? 0 : mailboxes.getDropped();
+		int startChannelBacklog = channels.getQueue().size();
+		int startMailboxDepth = getMailboxDepth(mailboxes);
+		int startMmtQueue = ThriftClientToMMT.getInstance().getPendingMessages();
+		int startStoreQueue = (writeBehindStore == null) ? 0 : writeBehindStore.getPendingWrites();
+		
+		for (long second = 0; second < stepDuration; second++) {
+			Thread.sleep(1000);
+			collectStoredReports();
+			checkMission();
+		}
+		
+		double seconds = stepDuration;
+		long generated = generatedFrames.get() - startGenerated;
+		long delivered = deliveredFrames.get() - startDelivered;
+		long processed = getProcessedReports() - startProcessed;
+		long stored = collectStoredReports() - startStored;
+		long toMmt = mmtReceived.get() - startMmt;
+		long dropped = ((mailboxes == null) ? 0 : mailboxes.getDropped()) - startDropped;
+		int mailboxDepth = getMailboxDepth(mailboxes);
+		int mmtQueue = ThriftClientToMMT.getInstance().getPendingMessages();
+		
+		// A stage is saturated when it drops frames or its backlog grows by more than 10% of its input.
+		// The task reports blocked on a full mailbox hold the delivery threads, so they show up here
+		List<String> saturated = new ArrayList<String>();
+		if (channels.getQueue().size() - startChannelBacklog > generated / 10) {
+			saturated.add("delivery");
+		}
+		if ((dropped > 0) || (mailboxDepth - startMailboxDepth > delivered / 10)) {
+			saturated.add("mailboxes");
+		}
+		if ((writeBehindStore != null) && (writeBehindStore.getPendingWrites() - startStoreQueue > stored / 10)) {
+			saturated.add("store");
+		}
+		if (mmtQueue - startMmtQueue > toMmt / 10) {
+			saturated.add("MMT");
+		}
+		
+		System.out.println(String.format("%5.1fx %10.0f %10.0f %10.0f %10.0f %10.0f %10d %10d %6dms %6dms  %s",
+				multiplier, generated / seconds, delivered / seconds, processed / seconds, stored / seconds, toMmt / seconds,
+				mailboxDepth, mmtQueue, endToEndLatency.getPercentileNanos(50) / 1000000, endToEndLatency.getPercentileNanos(99) / 1000000,
+				saturated.isEmpty() ? "-" : saturated.toString() + ((dropped > 0) ? " (" + dropped + " environment reports dropped)" : "")));
+		
+		return saturated;
+	}
+	
+	/**
+	 * Sets up the MTRR with the in memory stand-ins for the P/S Manager and the Semantic Query.
+	 */
+	private void setUpMTRR() {
+		mtrr = MTRR.getInstance();
+		missionPlan = MTRRMissionPlanTest.getSyntheticMissionPlan(vehicles, vehicles * actionsPerVehicle);
+		
+		final HashMap<Integer, Vehicle> vehiclesMap = new HashMap<Integer, Vehicle>();
+		for (Vehicle vehicle : missionPlan.getVehicles()) {
+			vehiclesMap.put(vehicle.getId(), vehicle);
+			sequenceOperations.put(vehicle.getId(), new AtomicInteger());
+		}
+		
+		mtrr.setPSManager((PSManagerInterfaces) Proxy.newProxyInstance(PSManagerInterfaces.class.getClassLoader(), new Class<?>[] {PSManagerInterfaces.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("publish") && (args != null) && (args.length == 2)) {
+					published((SWARMsmsg) args[0], (String) args[1]);
+				}
+				return getDefaultValue(method.getReturnType());
+			}
+		}));
+		
+		inMemoryStore = new InMemoryReportStore(storeDelay);
+		ReportStore store = inMemoryStore;
+		if (writeBehind) {
+			writeBehindStore = new WriteBehindReportStore(inMemoryStore, MessagesCONSTANTS.DEFAULT_PERSISTENCE_QUEUE_SIZE,
+					MessagesCONSTANTS.DEFAULT_PERSISTENCE_BATCH_SIZE, MessagesCONSTANTS.DEFAULT_PERSISTENCE_FLUSH_INTERVAL, logger);
+			store = writeBehindStore;
+		}
+		mtrr.setReportStore(store);
+		
+		mtrr.setVehicleRegistry(new VehicleRegistry(new VehicleRegistry.VehicleSource() {
+			public Vehicle getVehicle(int vehicleId) {
+				return vehiclesMap.get(vehicleId);
+			}
+			
+			public List<Vehicle> getAllVehicles() {
+				return new ArrayList<Vehicle>(vehiclesMap.values());
+			}
+		}, MessagesCONSTANTS.DEFAULT_VEHICLE_CACHE_TTL));
+		
+		// Each vehicle completes the actions of its plan that the MTRR assigns to it
+		MissionParser parser = new MissionParser();
+		parser.setLogger(logger);
+		for (Vehicle vehicle : missionPlan.getVehicles()) {
+			expectedCompletions += parser.parseVehiclePlan(vehicle, missionPlan).size();
+		}
+	}
+	
+	/**
+	 * Ends the current mission, if any, and starts a new one with the same plan.
+	 */
+	private void startNextMission() throws InterruptedException {
+		if (missionId > 0) {
+			mtrr.endMission(missionId, MessagesCONSTANTS.END_REASON_ABORTED);
+		}
+		
+		Mission mission = missionPlan.deepCopy();
+		mission.setMissionId(missionId + 1);
+		completionsInMission.set(0);
+		lastAssignment = System.currentTimeMillis();
+		missionId = missionId + 1;
+		mtrr.startMission(mission);
+	}
+	
+	/**
+	 * Starts a new mission when the current one is completed, or when it is stalled
+	 * because a report was lost.
+	 */
+	private void checkMission() throws InterruptedException {
+		boolean completed = completionsInMission.get() >= expectedCompletions;
+		boolean stalled = System.currentTimeMillis() - lastAssignment > MISSION_STALL_TIMEOUT;
+		
+		if (completed || stalled) {
+			startNextMission();
+		}
+	}
+	
+	/**
+	 * Called by the P/S Manager stand-in. Task assignments over IP are executed by
+	 * the simulated vehicle.
+	 */
+	private void published(SWARMsmsg msg, String topic) {
+		if (!topic.startsWith(PSManagerCONSTANTS.REQUEST_TASK_IP + "_")) {
+			return;
+		}
+		
+		// The frame is reused by the MTRR after publishing it, so only its header is kept
+		SWARMsDDSFrame frame = (SWARMsDDSFrame) msg;
+		final byte vehicleID = frame.vid;
+		final byte taskType = frame.subtype;
+		final int mission = missionId;
+		long duration = (long) (taskDuration / rateMultiplier);
+		lastAssignment = System.currentTimeMillis();
+		
+		vehiclesClock.schedule(new Runnable() {
+			public void run() {
+				sendTaskReport(vehicleID, taskType, MessagesCONSTANTS.TASK_REPORT_CODE_RUNNING, mission);
+			}
+		}, duration / 4, TimeUnit.MILLISECONDS);
+		
+		vehiclesClock.schedule(new Runnable() {
+			public void run() {
+				sendTaskReport(vehicleID, taskType, MessagesCONSTANTS.TASK_REPORT_CODE_COMPLETED, mission);
+			}
+		}, duration, TimeUnit.MILLISECONDS);
+	}
+	
+	private void sendTaskReport(byte vehicleID, byte taskType, byte status, final int mission) {
+		final SWARMsDDSFrame report = new SWARMsDDSFrame();
+		report.type = MessagesCONSTANTS.TYPE_TASK_MESSAGE;
+		report.vid = vehicleID;
+		report.subtype = taskType;
+		report.sequenceOperation = nextSequenceOperation(vehicleID);
+		report.seqoperation = (byte) report.sequenceOperation;
+		report.id_error = status;
+		report.data_epoch_time = System.currentTimeMillis();
+		
+		if (status == MessagesCONSTANTS.TASK_REPORT_CODE_COMPLETED) {
+			completionsInMission.incrementAndGet();
+		}
+		pendingStatusReports.put(statusReportKey(vehicleID, status), System.nanoTime());
+		
+		deliver(new Runnable() {
+			public void run() {
+				TaskReportImpl.getInstance().sendTaskReport(report, mission);
+			}
+		});
+	}
+	
+	/**
+	 * Schedules the environment and event reports of every vehicle at the current rates.
+	 */
+	private void schedulePeriodicReports() {
+		for (ScheduledFuture<?> periodicReport : periodicReports) {
+			periodicReport.cancel(false);
+		}
+		periodicReports.clear();
+		
+		for (Vehicle vehicle : missionPlan.getVehicles()) {
+			final byte vehicleID = (byte) vehicle.getId();
+			
+			if (environmentRate > 0) {
+				long period = (long) (1000000 / (environmentRate * rateMultiplier));
+				periodicReports.add(vehiclesClock.scheduleAtFixedRate(new Runnable() {
+					public void run() {
+						sendEnvironmentReport(vehicleID);
+					}
+				}, ThreadLocalRandom.current().nextLong(period), period, TimeUnit.MICROSECONDS));
+			}
+			
+			if (eventRate > 0) {
+				long period = (long) (1000000 / (eventRate * rateMultiplier));
+				periodicReports.add(vehiclesClock.scheduleAtFixedRate(new Runnable() {
+					public void run() {
+						sendEventReport(vehicleID);
+					}
+				}, ThreadLocalRandom.current().nextLong(period), period, TimeUnit.MICROSECONDS));
+			}
+		}
+	}
+	
+	private void sendEnvironmentReport(byte vehicleID) {
+		final ProcessedEnvironmentalData report = new ProcessedEnvironmentalData();
+		final int mission = missionId;
+		report.setVid(vehicleID);
+		report.setLatitude(43.797763 + ThreadLocalRandom.current().nextDouble(0.01));
+		report.setLongitude(28.598597 + ThreadLocalRandom.current().nextDouble(0.01));
+		report.setDepth(ThreadLocalRandom.current().nextDouble(50));
+		report.setTimems(System.currentTimeMillis());
+		report.seOperation = nextSequenceOperation(vehicleID);
+		
+		deliver(new Runnable() {
+			public void run() {
+				mtrr.reportEnvironment(report, mission);
+			}
+		});
+	}
+	
+	private void sendEventReport(byte vehicleID) {
+		final SWARMsDDSFrame report = new SWARMsDDSFrame();
+		final int mission = missionId;
+		report.type = MessagesCONSTANTS.TYPE_EVENTS_MESSAGE;
+		report.vid = vehicleID;
+		report.subtype = 0;
+		report.sequenceOperation = nextSequenceOperation(vehicleID);
+		report.seqoperation = (byte) report.sequenceOperation;
+		report.eventID = report.sequenceOperation;
+		report.event_description = "Synthetic event";
+		report.data_epoch_time = System.currentTimeMillis();
+		
+		deliver(new Runnable() {
+			public void run() {
+				mtrr.reportEvent(report, mission);
+			}
+		});
+	}
+	
+	/**
+	 * Delivers a frame over IP, possibly delayed further, and possibly again over the
+	 * acoustic channel.
+	 * 
+	 * @param delivery		The delivery of the frame to its P/S Manager entry point
+	 */
+	private void deliver(final Runnable delivery) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Runnable countedDelivery = new Runnable() {
+			public void run() {
+				deliveredFrames.incrementAndGet();
+				delivery.run();
+			}
+		};
+		
+		generatedFrames.incrementAndGet();
+		long delay = ipDelay;
+		if (random.nextDouble() < reorderRate) {
+			delay += random.nextLong(reorderDelay + 1);
+		}
+		channels.schedule(countedDelivery, delay, TimeUnit.MILLISECONDS);
+		
+		if (random.nextDouble() < duplicateRate) {
+			channels.schedule(countedDelivery, acousticDelay + random.nextLong(reorderDelay + 1), TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Starts a local MMT Thrift server, measuring the latency of the received status reports.
+	 */
+	private void startFakeMMT() throws TTransportException {
+		MmtService.Iface fakeMMT = (MmtService.Iface) Proxy.newProxyInstance(MmtService.Iface.class.getClassLoader(), new Class<?>[] {MmtService.Iface.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("sendStatusReport") && (args != null) && (args.length == 1)) {
+					Action report = (Action) args[0];
+					byte status = report.getStatus().equals(com.swarms.thrift.TaskStatus.Finished) ? MessagesCONSTANTS.TASK_REPORT_CODE_COMPLETED : MessagesCONSTANTS.TASK_REPORT_CODE_RUNNING;
+					Long generated = pendingStatusReports.remove(statusReportKey((byte) report.getAssignedVehicleId(), status));
+					
+					mmtReceived.incrementAndGet();
+					if (generated != null) {
+						endToEndLatency.recordSince(generated);
+					}
+				}
+				return getDefaultValue(method.getReturnType());
+			}
+		});
+		
+		TThreadPoolServer.Args args = new TThreadPoolServer.Args(new TServerSocket(mmtPort));
+		args.processor(new MmtService.Processor<MmtService.Iface>(fakeMMT));
+		final TServer server = new TThreadPoolServer(args);
+		
+		Thread serverThread = new Thread(new Runnable() {
+			public void run() {
+				server.serve();
+			}
+		}, "FakeMMT");
+		serverThread.setDaemon(true);
+		serverThread.start();
+		logger.log(Level.INFO, "--- Fake MMT listening on port {0}", mmtPort);
+	}
+	
+	private int nextSequenceOperation(byte vehicleID) {
+		return sequenceOperations.get((int) vehicleID).incrementAndGet() & 0xFFFF;
+	}
+	
+	private static long statusReportKey(byte vehicleID, byte status) {
+		return ((long) vehicleID << 8) | (status & 0xFF);
+	}
+	
+	private long getProcessedReports() {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		return metrics.getTimer("mtrr.reportTask").getCount()
+				+ metrics.getTimer("mtrr.reportEnvironment").getCount()
+				+ metrics.getTimer("mtrr.reportEvent").getCount();
+	}
+	
+	/**
+	 * Counts the reports stored since the last call, releasing them from the in memory store.
+	 * 
+	 * @return The total number of stored reports
+	 */
+	private long collectStoredReports() {
+		int stored = inMemoryStore.getStoredCount();
+		inMemoryStore.clear();
+		return storedReports.addAndGet(stored);
+	}
+	
+	private static int getMailboxDepth(VehicleMailboxDispatcher mailboxes) {
+		int depth = 0;
+		
+		if (mailboxes != null) {
+			for (int queueDepth : mailboxes.getQueueDepths().values()) {
+				depth += queueDepth;
+			}
+		}
+		
+		return depth;
+	}
+	
+	private static Object getDefaultValue(Class<?> type) {
+		if (type.equals(boolean.class)) {
+			return true;
+		}
+		else if (type.isPrimitive() && !type.equals(void.class)) {
+			return 0;
+		}
+		return null;
+	}
+}
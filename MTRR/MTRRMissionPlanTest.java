@@ -25,6 +25,8 @@
 package swarms.MTRR;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
 
 import com.swarms.thrift.Action;
 import com.swarms.thrift.Equipment;
@@ -39,6 +41,8 @@ import com.swarms.thrift.TaskStatus;
 import com.swarms.thrift.Vehicle;
 import com.swarms.thrift.VehicleType;
 
+import swarms.MTRR.util.TaskHelper;
+
 public class MTRRMissionPlanTest {
 	public static Mission getMissionPlan() {
 		////////////////////////////////////////////
@@ -291,6 +295,128 @@ public class MTRRMissionPlanTest {
 		////////////////////////////////////////////
 		// MISSION
 
+		Mission mission = new Mission();
+		mission.setMissionId(1);
+		mission.setNavigationArea(navigationArea);
+		mission.setActions(actionList);
+		mission.setVehicles(vehicles);
+		return mission;
+	}	
+	// Task types covered by the synthetic missions
+	public static final byte[] TASK_TYPES = {
+			MessagesCONSTANTS.GOTO_WAYPOINT,
+			MessagesCONSTANTS.HOVER,
+			MessagesCONSTANTS.CONFIGURE,
+			MessagesCONSTANTS.FOLLOW_TARGET,
+			MessagesCONSTANTS.FOLLOW_STRUCTURE,
+			MessagesCONSTANTS.FOLLOW_ROW,
+			MessagesCONSTANTS.SPIRAL,
+			MessagesCONSTANTS.WAIT,
+			MessagesCONSTANTS.TRANSIT,
+			MessagesCONSTANTS.SURVEY,
+			MessagesCONSTANTS.INSPECT,
+			MessagesCONSTANTS.PICKUP,
+			MessagesCONSTANTS.GRASP_OBJECT,
+			MessagesCONSTANTS.SONAR_ACQUISITION,
+			MessagesCONSTANTS.CAMERA_ACQUISITION};
+	
+	/**
+	 * Builds a single task of the given type, with the fields required to encode it.
+	 * 
+	 * @param taskType		The task type
+	 * @return				The task
+	 */
+	public static Task getSyntheticTask(byte taskType) {
+		ArrayList<EquipmentType> requiredEquipment = new ArrayList<>();
+		requiredEquipment.add(EquipmentType.CAMERA);
+		String description = TaskHelper.getTaskName(taskType);
+		
+		if (taskType == MessagesCONSTANTS.CONFIGURE) {
+			description = "ON " + description;
+		}
+		
+		return new Task(taskType,
+				description,
+				TaskRegionType.Area,
+				requiredEquipment,
+				5.0);
+	}
+	
+	/**
+	 * Builds a mission plan of the given size for benchmarking.
+	 * 
+	 * Actions are assigned to the vehicles in turns, cycling through all the task types.
+	 * Every fifth action of a vehicle is a complex action, parent of the next four actions
+	 * of the same vehicle. The actions are shuffled in the plan, so they have to be sorted
+	 * by start time. The same sizes always produce the same plan.
+	 * 
+	 * @param vehicleCount		Number of vehicles in the mission
+	 * @param actionCount		Number of actions in the mission
+	 * @return					The mission plan
+	 */
+	public static Mission getSyntheticMissionPlan(int vehicleCount, int actionCount) {
+		Position startPosition = new Position(28.598597, 43.797763, 0, 0,0);
+		
+		Region navigationArea = new Region();
+		navigationArea.addToArea(startPosition);
+		navigationArea.addToArea(new Position(28.607794, 43.793060, 0, 0,0));
+		navigationArea.addToArea(new Position(28.599668, 43.787539, 0, 0,0));
+		navigationArea.addToArea(new Position(28.592523, 43.791297, 0, 0,0));
+		
+		ArrayList<Vehicle> vehicles = new ArrayList<>();
+		for (int vehicleID = 1; vehicleID <= vehicleCount; vehicleID++) {
+			ArrayList<Equipment> equipment = new ArrayList<>();
+			equipment.add(new Equipment(EquipmentType.ACOUSTIC, 0, "Acoustic modem"));
+			equipment.add(new Equipment(EquipmentType.CAMERA, 0, "Camera"));
+			
+			vehicles.add(new Vehicle(vehicleID,
+					"VEHICLE-" + vehicleID,
+					startPosition,
+					new Orientation(0, 0, 0, 0),
+					2.0,
+					0.0,
+					(vehicleID % 2 == 1) ? VehicleType.AUV : VehicleType.ROV,
+					5000,
+					3000,
+					2000,
+					equipment,
+					false,
+					0,
+					30));
+		}
+		
+		Task[] tasks = new Task[TASK_TYPES.length];
+		for (int i = 0; i < TASK_TYPES.length; i++) {
+			tasks[i] = getSyntheticTask(TASK_TYPES[i]);
+		}
+		
+		ArrayList<Action> actionList = new ArrayList<>();
+		for (int i = 0; i < actionCount; i++) {
+			int vehicleID = (i % vehicleCount) + 1;
+			int turn = i / vehicleCount;
+			int parentActionId = ((turn % 5) == 0) ? 0 : (i - (turn % 5) * vehicleCount) + 1;
+			
+			Region area = new Region();
+			for (int point = 0; point < 4; point++) {
+				area.addToArea(new Position(28.598597 + 0.001 * point + 0.00001 * turn, 43.797763 - 0.001 * point, 0, 5.0, 10.0));
+			}
+			
+			actionList.add(new Action(tasks[i % tasks.length],
+					i + 1,
+					area,
+					2.0,
+					5.0,
+					10.0,
+					5,
+					new Orientation(0, 0, 90, 0),
+					turn * 10,
+					turn * 10 + 10,
+					TaskStatus.NotStarted,
+					vehicleID,
+					parentActionId));
+		}
+		Collections.shuffle(actionList, new Random(actionCount));
+		
 		Mission mission = new Mission();
 		mission.setMissionId(1);
 		mission.setNavigationArea(navigationArea);
@@ -27,6 +27,8 @@ package swarms.MTRR;
 public class MessagesCONSTANTS {
 	// ...
 	public static final int DATA_ARRAY_SIZE = 15;
+	public static final int FRAME_POOL_SIZE = 32;		// idle frames kept for reuse
+	public static final int DEFAULT_FRAME_TRACE_SIZE = 256;	// encoded frames kept in the trace
 	public static final int START_MISSION_PSMANAGER_DELAY = 60000;
 	
 	public static final byte CDT_REQUEST_VID = 0x00;
@@ -35,6 +37,8 @@ public class MessagesCONSTANTS {
 	
 	public static final byte CDT_TOTAL_TRYOUTS = 1;
 	public static final byte DEFAULT_GET_NEIGHBOURS_TOTAL_TRYOUTS = 2; 
+	public static final byte DEFAULT_SET_NEIGHBOURS_TOTAL_TRYOUTS = 3;
+	public static final byte DEFAULT_START_DISCOVERY_TOTAL_TRYOUTS = 3;
 	
 	// TIME RELATED CONSTANTS
 	public static final int CDT_START_DISCOVERY_DISCOVERY_TIME = 10;  //Total discovery time
@@ -46,9 +50,54 @@ public class MessagesCONSTANTS {
 	public static final long DEFAULT_GET_NEIGHBOURS_TIMEOUT = 5000;
 	public static final long DEFAULT_SET_NEIGHBOURS_TIMEOUT = 2000;	
 	
+	// Duplicated reports detection
+	public static final int DEFAULT_DEDUP_WINDOW_SIZE = 512;	// reports remembered per vehicle
+	
+	// Per vehicle mailboxes for the received reports
+	public static final int DEFAULT_MAILBOX_WORKER_THREADS = 4;		// 0 handles the reports in the delivering thread
+	public static final int DEFAULT_MAILBOX_CAPACITY = 256;			// pending reports per vehicle
+	public static final long DEFAULT_MAILBOX_OFFER_TIMEOUT = 50;		// ms a state vector waits for room in a full mailbox before being dropped
+	
+	// Persistence of the received reports
+	public static final String PERSISTENCE_MODE_SYNC = "sync";					// stored before handling the report
+	public static final String PERSISTENCE_MODE_WRITE_BEHIND = "write_behind";	// queued and stored by a writer thread
+	public static final String DEFAULT_PERSISTENCE_MODE = PERSISTENCE_MODE_SYNC;
+	public static final int DEFAULT_PERSISTENCE_QUEUE_SIZE = 4096;
+	public static final int DEFAULT_PERSISTENCE_BATCH_SIZE = 64;
+	public static final long DEFAULT_PERSISTENCE_FLUSH_INTERVAL = 100;	// ms
+	public static final boolean DEFAULT_STATE_VECTOR_BATCHING = false;
+	public static final int DEFAULT_STATE_VECTOR_BATCH_SIZE = 50;
+	public static final long DEFAULT_STATE_VECTOR_BATCH_INTERVAL = 1000;	// ms
+	
+	// Vehicle registry cache
+	public static final long DEFAULT_VEHICLE_CACHE_TTL = 300000;	// ms, 0 or less never expires
+	public static final boolean DEFAULT_SCI_LOG_ENABLED = true;
+	public static final int SCI_LOG_BUFFER_SIZE = 8192;	// timing probes waiting to be written
+	public static final long SCI_LOG_DRAIN_INTERVAL = 100;	// ms
+	public static final long DEFAULT_METRICS_DUMP_PERIOD = 60;	// seconds, 0 or less disables the dumps
+	
+	// Preparation of the first task of each vehicle when starting a mission
+	public static final int DEFAULT_PREPARATION_THREADS = 0;	// 0 prepares the vehicles in the calling thread
+	
+	// Scheduling of the messages sent through the acoustic channel
+	public static final double DEFAULT_ACOUSTIC_LINK_RATE = 1;		// frames per second to each vehicle, 0 or less does not limit
+	public static final double DEFAULT_ACOUSTIC_CHANNEL_RATE = 2;	// frames per second through the modem, 0 or less does not limit
+	public static final int DEFAULT_ACOUSTIC_BURST = 2;				// frames sent back to back after an idle period
+	public static final int DEFAULT_ACOUSTIC_LINK_CAPACITY = 64;	// messages waiting for each vehicle
+	public static final long DEFAULT_ACOUSTIC_GRACE_PERIOD = 1000;	// ms the acoustic copy of a task waits for the IP acknowledgement
+	public static final long DEFAULT_STATUS_FRESHNESS = 5000;		// ms a finished status update serves the new requests, 0 or less always updates
+	
 	// TASK ASIGNMENT MODES
 	public static final byte ASSIGNMENT_FULL_SEQUENCE = 0x01;
 	public static final byte ASSIGNMENT_WAIT_TO_COMPLETE = 0x02;
+	public static final byte ASSIGNMENT_DEPENDENCY_GRAPH = 0x03;
+	public static final byte ASSIGNMENT_LOOK_AHEAD = 0x04;
+	public static final String ASSIGNMENT_MODE_FULL_SEQUENCE = "full_sequence";
+	public static final String ASSIGNMENT_MODE_WAIT_TO_COMPLETE = "wait_to_complete";
+	public static final String ASSIGNMENT_MODE_DEPENDENCY_GRAPH = "dependency_graph";
+	public static final String ASSIGNMENT_MODE_LOOK_AHEAD = "look_ahead";
+	public static final int DEFAULT_IN_FLIGHT_WINDOW = 2;	// actions in flight per vehicle in DEPENDENCY_GRAPH mode
+	public static final int DEFAULT_LOOK_AHEAD = 1;			// actions queued after the current one in LOOK_AHEAD mode
 	
 	// MESSAGES
 	// Message Types
@@ -113,16 +162,27 @@ public class MessagesCONSTANTS {
 	// Thrift Client to MMT Defaults
 	public static final String DEFAULT_MMT_SERVER_ADDRESS = "192.168.0.3";
 	public static final int DEFAULT_MMT_SERVER_PORT = 9096;
+	public static final int DEFAULT_MMT_SOCKET_TIMEOUT = 10000;
+	public static final int DEFAULT_MMT_QUEUE_SIZE = 1024;
+	public static final long MMT_RECONNECT_MIN_DELAY = 1000;
+	public static final long MMT_RECONNECT_MAX_DELAY = 30000;
+	public static final int MMT_SEND_MAX_ATTEMPTS = 3;					// attempts for a message rejected by a connected MMT
+	public static final long DEFAULT_MMT_STATUS_COALESCING_WINDOW = 0;	// ms, 0 disables the coalescing
 	
 	// Thrift Client to MMT Properties names
 	public static String MMT_ADDRESS_PROPERTY_NAME = "MMTAddress";
 	public static String MMT_PORT_PROPERTY_NAME = "MMTPort";
+	public static String MMT_SOCKET_TIMEOUT_PROPERTY_NAME = "MMTSocketTimeout";
+	public static String MMT_QUEUE_SIZE_PROPERTY_NAME = "MMTQueueSize";
+	public static String MMT_STATUS_COALESCING_WINDOW_PROPERTY_NAME = "MMTStatusCoalescingWindow";
 	
 	// Filenames
 	public static final String THRIFT_CLIENT_LOGFILE = "ClientToMMT.log";
 //	public static final String THRIFT_CLIENT_CONFIGURATION_FILENAME = "ThriftClient.properties";
 	public static final String THRIFT_CLIENT_CONFIGURATION_FILENAME = "swarms.properties";
 	public static final String CONFIGURATION_FILENAME = "swarms.properties";
+	public static final String FRAME_TRACE_FILENAME = "FrameTrace.log";
+	public static final String METRICS_FILENAME = "Metrics.log";
 	
 	// Other default reference values
 	public static final double DEFAULT_REFERENCE_COORDINATE_LONGITUDE = 9.545972;
@@ -131,6 +191,9 @@ public class MessagesCONSTANTS {
 	public static final String PROPERTY_GET_NEIGHBOURS_TIMEOUT = "get_neighbours.timeout";	
 	public static final String PROPERTY_GET_NEIGHBOURS_TRYOUTS = "get_neighbours.tryouts";	
 	public static final String PROPERTY_SET_NEIGHBOURS_TIMEOUT = "set_neighbours.timeout";	
+	public static final String PROPERTY_SET_NEIGHBOURS_TRYOUTS = "set_neighbours.tryouts";
+	public static final String PROPERTY_START_DISCOVERY_TIMEOUT = "start_discovery.timeout";
+	public static final String PROPERTY_START_DISCOVERY_TRYOUTS = "start_discovery.tryouts";
 	public static final String PROPERTY_STATE_VECTOR_REFRESH_TIME_IP = "state_vector.refresh_time.ip";
 	public static final String PROPERTY_STATE_VECTOR_REFRESH_TIME_ACOUSTIC = "state_vector.refresh_time.acoustic";
 	public static final String PROPERTY_IS_CDT_DISCOVERY_REQUIRED = "cdt.legacy_discovery_required";
@@ -144,6 +207,32 @@ public class MessagesCONSTANTS {
 	public static final String NEIGHBOUR_DISCOVERY_STYLE_WAIT = "wait";	
 	public static final String DEFAULT_NEIGHBOUR_DISCOVERY_STYLE = NEIGHBOUR_DISCOVERY_STYLE_SLEEP;
 	public static final String PROPERTY_DO_GET_NEIGHBOURS = "do.get_neighbours";
+	public static final String PROPERTY_DEDUP_WINDOW_SIZE = "dedup.window_size";
+	public static final String PROPERTY_MAILBOX_WORKER_THREADS = "mailbox.worker_threads";
+	public static final String PROPERTY_MAILBOX_CAPACITY = "mailbox.capacity";
+	public static final String PROPERTY_MAILBOX_OFFER_TIMEOUT = "mailbox.offer_timeout";
+	public static final String PROPERTY_PERSISTENCE_MODE = "persistence.mode";
+	public static final String PROPERTY_PERSISTENCE_QUEUE_SIZE = "persistence.queue_size";
+	public static final String PROPERTY_PERSISTENCE_BATCH_SIZE = "persistence.batch_size";
+	public static final String PROPERTY_PERSISTENCE_FLUSH_INTERVAL = "persistence.flush_interval";
+	public static final String PROPERTY_STATE_VECTOR_BATCHING = "state_vector.batching";
+	public static final String PROPERTY_STATE_VECTOR_BATCH_SIZE = "state_vector.batch_size";
+	public static final String PROPERTY_STATE_VECTOR_BATCH_INTERVAL = "state_vector.batch_interval";
+	public static final String PROPERTY_VEHICLE_CACHE_TTL = "vehicle_cache.ttl";
+	public static final String PROPERTY_FRAME_TRACE_ENABLED = "frame_trace.enabled";
+	public static final String PROPERTY_FRAME_VERBOSE_LOG = "frame_trace.verbose_log";
+	public static final String PROPERTY_SCI_LOG_ENABLED = "sci_log.enabled";
+	public static final String PROPERTY_METRICS_DUMP_PERIOD = "metrics.dump_period";
+	public static final String PROPERTY_PREPARATION_THREADS = "start_mission.preparation_threads";
+	public static final String PROPERTY_ASSIGNMENT_MODE = "assignment.mode";
+	public static final String PROPERTY_IN_FLIGHT_WINDOW = "assignment.in_flight_window";
+	public static final String PROPERTY_LOOK_AHEAD = "assignment.look_ahead";
+	public static final String PROPERTY_ACOUSTIC_LINK_RATE = "acoustic.link_rate";
+	public static final String PROPERTY_ACOUSTIC_CHANNEL_RATE = "acoustic.channel_rate";
+	public static final String PROPERTY_ACOUSTIC_BURST = "acoustic.burst";
+	public static final String PROPERTY_ACOUSTIC_LINK_CAPACITY = "acoustic.link_capacity";
+	public static final String PROPERTY_ACOUSTIC_GRACE_PERIOD = "acoustic.grace_period";
+	public static final String PROPERTY_STATUS_FRESHNESS = "status.freshness";
 	public static final byte END_REASON_FINISHED = 0x01;
 	public static final byte END_REASON_ABORTED = 0x02;
 }
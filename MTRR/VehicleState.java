@@ -0,0 +1,205 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+
+import com.swarms.thrift.Action;
+import com.swarms.thrift.Vehicle;
+
+import swarms.MTRR.util.ActionDependencyGraph;
+
+/**
+ * State kept by the MTRR for each vehicle taking part in the active mission.
+ * 
+ * The instance is also the lock serializing the processing for the vehicle:
+ * callers must synchronize on it before reading or updating the plan, the
+ * current action or the last message subtype, so reports for different vehicles can
+ * be processed in parallel.
+ * 
+ * In LOOK_AHEAD mode, the actions sent to the vehicle to be run after the current
+ * one are kept in the queued actions, in the order the vehicle will run them. The
+ * vehicle acknowledges them in that order with a PENDING report, so the actions
+ * already acknowledged are kept to attribute each PENDING report to its action.
+ * 
+ * When the actions are assigned by their dependencies, the plan is kept in a
+ * dependency graph instead of the plan list, and several actions may be in flight.
+ *
+ */
+public class VehicleState {
+	private final Vehicle vehicle;
+	private final LinkedList<Action> plan;
+	private final byte assignmentMode;
+	private final LinkedList<Action> queuedActions = new LinkedList<Action>();
+	private final HashSet<Integer> acknowledgedActions = new HashSet<Integer>();
+	private Action currentAction = null;
+	private boolean messageSent = false;
+	private byte lastMessageSubtype;
+	private ActionDependencyGraph dependencyGraph = null;
+	
+	/**
+	 * @param vehicle			The vehicle
+	 * @param plan				The actions of the vehicle not assigned yet
+	 * @param assignmentMode	The assignment mode of the mission, kept for the whole mission
+	 */
+	public VehicleState(Vehicle vehicle, LinkedList<Action> plan, byte assignmentMode) {
+		this.vehicle = vehicle;
+		this.plan = plan;
+		this.assignmentMode = assignmentMode;
+	}
+
+	public Vehicle getVehicle() {
+		return vehicle;
+	}
+
+	/**
+	 * @return The assignment mode the mission was started with
+	 */
+	public byte getAssignmentMode() {
+		return assignmentMode;
+	}
+
+	public LinkedList<Action> getPlan() {
+		return plan;
+	}
+
+	/**
+	 * @return The dependency graph of the plan, or null if the actions are not assigned by their dependencies
+	 */
+	public ActionDependencyGraph getDependencyGraph() {
+		return dependencyGraph;
+	}
+
+	public void setDependencyGraph(ActionDependencyGraph dependencyGraph) {
+		this.dependencyGraph = dependencyGraph;
+	}
+
+	/**
+	 * Drops the actions of the plan not assigned yet.
+	 */
+	public void clearPlan() {
+		plan.clear();
+		
+		for (Action action : queuedActions) {
+			acknowledgedActions.remove(action.getActionId());
+		}
+		queuedActions.clear();
+		
+		if (dependencyGraph != null) {
+			dependencyGraph.cancelUnreleased();
+		}
+	}
+
+	/**
+	 * Gets the action a task report of the given subtype refers to.
+	 * 
+	 * @param subtype	The task subtype of the report
+	 * @return			The action in flight for the subtype if there is a dependency graph, the current action otherwise
+	 */
+	public Action getReportedAction(byte subtype) {
+		if (dependencyGraph != null) {
+			return dependencyGraph.getInFlightAction(subtype);
+		}
+		return currentAction;
+	}
+
+	/**
+	 * Gets the action a PENDING report of the given subtype refers to while there are
+	 * queued actions: the oldest action of the subtype sent to the vehicle and not
+	 * acknowledged yet, either the current one or a queued one.
+	 * 
+	 * @param subtype	The task subtype of the report
+	 * @return			The action, or null if every action of the subtype sent has been acknowledged
+	 */
+	public Action getPendingReportedAction(byte subtype) {
+		if ((currentAction != null) && isUnacknowledged(currentAction, subtype)) {
+			return currentAction;
+		}
+		
+		for (Action action : queuedActions) {
+			if (isUnacknowledged(action, subtype)) {
+				return action;
+			}
+		}
+		return null;
+	}
+	
+	private boolean isUnacknowledged(Action action, byte subtype) {
+		return ((byte) action.getRelatedTask().getTaskTypeId() == subtype) && !acknowledgedActions.contains(action.getActionId());
+	}
+	
+	/**
+	 * Records that the vehicle has received an action, since it has reported on it.
+	 * 
+	 * @param action	The reported action
+	 */
+	public void acknowledgeAction(Action action) {
+		acknowledgedActions.add(action.getActionId());
+	}
+
+	/**
+	 * @return The actions already sent to the vehicle to be run after the current one
+	 */
+	public LinkedList<Action> getQueuedActions() {
+		return queuedActions;
+	}
+
+	public Action getCurrentAction() {
+		return currentAction;
+	}
+
+	public void setCurrentAction(Action currentAction) {
+		if (this.currentAction != null) {
+			acknowledgedActions.remove(this.currentAction.getActionId());
+		}
+		this.currentAction = currentAction;
+	}
+
+	/**
+	 * @return True if a task message has been sent to the vehicle
+	 */
+	public boolean hasLastMessage() {
+		return messageSent;
+	}
+
+	/**
+	 * @return The subtype of the last task message sent to the vehicle
+	 */
+	public byte getLastMessageSubtype() {
+		return lastMessageSubtype;
+	}
+
+	/**
+	 * Records the subtype of the task message just sent to the vehicle. Only the
+	 * subtype is kept, since the frame itself is reused for other messages.
+	 * 
+	 * @param lastMessageSubtype	The subtype of the sent message
+	 */
+	public void setLastMessageSubtype(byte lastMessageSubtype) {
+		this.lastMessageSubtype = lastMessageSubtype;
+		this.messageSent = true;
+	}
+}
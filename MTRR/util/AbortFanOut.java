@@ -0,0 +1,133 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of the notification of a mission abort to the vehicles, used as the
+ * handle to poll for the abort once the abort request has returned.
+ * 
+ * The IP notifications are sent right away, while the acoustic ones are queued in the
+ * acoustic scheduler, so the abort is completed once the last acoustic notification
+ * has left the scheduler.
+ *
+ */
+public class AbortFanOut {
+	private final int missionId;
+	private final AtomicInteger queuedNotifications = new AtomicInteger();
+	private final AtomicInteger sentNotifications = new AtomicInteger();
+	private final AtomicInteger pendingNotifications = new AtomicInteger(1);	// released by allQueued
+	private volatile boolean notified = false;
+	private volatile boolean cancelled = false;
+	private volatile boolean completed = false;
+	
+	public AbortFanOut(int missionId) {
+		this.missionId = missionId;
+	}
+	
+	public int getMissionId() {
+		return missionId;
+	}
+	
+	public void notificationQueued() {
+		queuedNotifications.incrementAndGet();
+		pendingNotifications.incrementAndGet();
+	}
+	
+	/**
+	 * Records that an acoustic notification has left the scheduler.
+	 * 
+	 * @param sent	True if the notification has been sent
+	 * @return		True if it was the last pending notification and all of them have been queued
+	 */
+	public boolean notificationDone(boolean sent) {
+		if (sent) {
+			sentNotifications.incrementAndGet();
+		}
+		return pendingNotifications.decrementAndGet() == 0;
+	}
+	
+	/**
+	 * Records that all the acoustic notifications have been queued.
+	 * 
+	 * @return		True if there are no notifications pending
+	 */
+	public boolean allQueued() {
+		notified = true;
+		return pendingNotifications.decrementAndGet() == 0;
+	}
+	
+	/**
+	 * Cancels the notifications not sent yet, e.g. when a new mission is started.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Cancels the acoustic notifications not sent yet if all the vehicles have already been
+	 * notified via IP, so that a new mission does not have to wait for them.
+	 * 
+	 * @return	True if the abort has been preempted, false if the vehicles are still being notified
+	 */
+	public boolean preempt() {
+		if (!notified) {
+			return false;
+		}
+		cancelled = true;
+		return true;
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Marks the abort as completed, unless it has been cancelled.
+	 * 
+	 * @return	True if the abort has been completed
+	 */
+	public boolean complete() {
+		if (cancelled) {
+			return false;
+		}
+		completed = true;
+		return true;
+	}
+	
+	/**
+	 * @return	"OK" once completed, otherwise the state of the acoustic notifications
+	 */
+	public String getStatus() {
+		if (completed) {
+			return "OK";
+		}
+		if (cancelled) {
+			return "NOK: Abort of mission " + missionId + " cancelled after " + sentNotifications.get() + " of " + queuedNotifications.get() + " acoustic notifications";
+		}
+		return "PENDING: " + sentNotifications.get() + " of " + queuedNotifications.get() + " acoustic notifications sent for mission " + missionId;
+	}
+}
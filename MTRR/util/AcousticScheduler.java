@@ -0,0 +1,522 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import swarmsDDLs.SWARMsmsg;
+
+/**
+ * Schedules the messages sent through the acoustic channel, so a burst of low priority
+ * traffic (e.g. a fleet wide state vector poll) never delays an abort or safety notification.
+ * 
+ * Every message waits in the queue of its link (the destination vehicle) until both the
+ * link and the whole channel (the modem) have budget to send it. Budgets are token buckets
+ * refilled at a configured rate of frames per second. Among the links with budget, the
+ * message with the highest priority class is sent first, and the oldest one within a class.
+ * 
+ * When the queue of a link is full, the oldest message of the lowest priority class is
+ * dropped to make room, unless the new message has an even lower priority.
+ * 
+ * A message can be held for a while before being sent, e.g. to give its copy sent through
+ * the IP channel the chance to be acknowledged first, so the acoustic copy can be cancelled.
+ * A cancelled message is dropped without using up any budget, and the messages still
+ * waiting for a vehicle can be cancelled at once, e.g. when its plan is aborted.
+ *
+ */
+public class AcousticScheduler {
+	public static final int PRIORITY_SAFETY = 0;		// abort and safety notifications
+	public static final int PRIORITY_TASK = 1;			// task assignments
+	public static final int PRIORITY_SUBSCRIPTION = 2;	// events subscriptions
+	public static final int PRIORITY_STATE_VECTOR = 3;	// state vector polling
+	private static final String[] PRIORITY_NAMES = {"safety", "task", "subscription", "state_vector"};
+	
+	/**
+	 * Publishes a message when it is its turn to be sent.
+	 */
+	public interface Transmitter {
+		void transmit(SWARMsmsg msg, String topic);
+	}
+	
+	/**
+	 * Follows a message through the scheduler, e.g. to give its frame back to the pool once sent.
+	 */
+	public interface Listener {
+		/**
+		 * @return True if the message must not be sent anymore
+		 */
+		boolean isCancelled();
+		
+		/**
+		 * Called once the message has left the scheduler, whether it has been sent or not.
+		 * 
+		 * @param transmitted	True if the message has been sent
+		 */
+		void done(boolean transmitted);
+	}
+	
+	private final Transmitter transmitter;
+	private final MetricsRegistry metrics;
+	private final double linkRate;
+	private final int burst;
+	private final int linkCapacity;
+	private final TokenBucket channelBudget;
+	private final HashMap<Integer, Link> links = new HashMap<Integer, Link>();
+	private final Thread sender;
+	private volatile boolean running = true;
+	private long sequence = 0;
+	private int queuedCount = 0;
+	
+	/**
+	 * @param transmitter		Publishes the messages
+	 * @param linkRate			Frames per second sent to each vehicle
+	 * @param channelRate		Frames per second sent through the channel
+	 * @param burst				Frames that can be sent back to back after an idle period
+	 * @param linkCapacity		Maximum number of messages waiting for each vehicle
+	 * @param metrics			Registry for the queue times and counters of the scheduler
+	 */
+	public AcousticScheduler(Transmitter transmitter, double linkRate, double channelRate, int burst, int linkCapacity, MetricsRegistry metrics) {
+		this.transmitter = transmitter;
+		this.metrics = metrics;
+		this.linkRate = linkRate;
+		this.burst = Math.max(1, burst);
+		this.linkCapacity = Math.max(1, linkCapacity);
+		this.channelBudget = new TokenBucket(this.burst, channelRate);
+		this.sender = new Thread(new Runnable() {
+			public void run() {
+				sendLoop();
+			}
+		}, "AcousticScheduler-sender");
+		this.sender.setDaemon(true);
+		this.sender.start();
+	}
+	
+	/**
+	 * Queues a message to be sent to a vehicle through the acoustic channel.
+	 * 
+	 * @param vehicleId		The destination vehicle (the link)
+	 * @param priority		The priority class, one of the PRIORITY constants
+	 * @param msg			The message, which must not be modified until the listener is done
+	 * @param topic			The acoustic topic
+	 * @param listener		Listener of the message, or null
+	 */
+	public void submit(int vehicleId, int priority, SWARMsmsg msg, String topic, Listener listener) {
+		submit(vehicleId, priority, msg, topic, listener, 0);
+	}
+	
+	/**
+	 * Queues a message to be sent to a vehicle through the acoustic channel, not before the given delay.
+	 * 
+	 * @param vehicleId		The destination vehicle (the link)
+	 * @param priority		The priority class, one of the PRIORITY constants
+	 * @param msg			The message, which must not be modified until the listener is done
+	 * @param topic			The acoustic topic
+	 * @param listener		Listener of the message, or null
+	 * @param delay			Time the message is held before it can be sent, in milliseconds
+	 */
+	public void submit(int vehicleId, int priority, SWARMsmsg msg, String topic, Listener listener, long delay) {
+		Transmission transmission = new Transmission(priority, msg, topic, listener, TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay)));
+		Transmission dropped = null;
+		
+		synchronized (this) {
+			if (!running) {
+				dropped = transmission;
+			}
+			else {
+				Link link = links.get(vehicleId);
+				if (link == null) {
+					link = new Link(new TokenBucket(burst, linkRate));
+					links.put(vehicleId, link);
+				}
+				
+				if (link.size() >= linkCapacity) {
+					dropped = link.pollLowest(priority);
+					
+					if (dropped == null) {
+						dropped = transmission;
+					}
+					else {
+						queuedCount--;
+					}
+				}
+				
+				if (dropped != transmission) {
+					transmission.sequence = sequence++;
+					link.queues[priority].add(transmission);
+					queuedCount++;
+					notifyAll();
+				}
+			}
+		}
+		
+		if (dropped != null) {
+			metrics.increment("acoustic.dropped." + PRIORITY_NAMES[dropped.priority]);
+			dropped.done(false);
+		}
+	}
+	
+	/**
+	 * Cancels the messages of a range of priority classes waiting for a vehicle, e.g. the
+	 * task assignments still queued when its plan is aborted.
+	 * 
+	 * @param vehicleId		The destination vehicle (the link)
+	 * @param maxPriority	The highest priority class to be cancelled, one of the PRIORITY constants
+	 * @param minPriority	The lowest priority class to be cancelled, one of the PRIORITY constants
+	 * @return				Number of messages cancelled
+	 */
+	public int cancel(int vehicleId, int maxPriority, int minPriority) {
+		List<Transmission> cancelled = new ArrayList<Transmission>();
+		
+		synchronized (this) {
+			Link link = links.get(vehicleId);
+			if (link != null) {
+				link.pollRange(maxPriority, minPriority, cancelled);
+			}
+			queuedCount -= cancelled.size();
+		}
+		
+		return dropCancelled(cancelled);
+	}
+	
+	/**
+	 * Cancels the messages of a range of priority classes waiting for every vehicle, e.g.
+	 * the task assignments of a previous mission.
+	 * 
+	 * @param maxPriority	The highest priority class to be cancelled, one of the PRIORITY constants
+	 * @param minPriority	The lowest priority class to be cancelled, one of the PRIORITY constants
+	 * @return				Number of messages cancelled
+	 */
+	public int cancelAll(int maxPriority, int minPriority) {
+		List<Transmission> cancelled = new ArrayList<Transmission>();
+		
+		synchronized (this) {
+			for (Link link : links.values()) {
+				link.pollRange(maxPriority, minPriority, cancelled);
+			}
+			queuedCount -= cancelled.size();
+		}
+		
+		return dropCancelled(cancelled);
+	}
+	
+	private int dropCancelled(List<Transmission> cancelled) {
+		for (Transmission transmission : cancelled) {
+			metrics.increment("acoustic.cancelled");
+			transmission.done(false);
+		}
+		return cancelled.size();
+	}
+	
+	/**
+	 * @return Number of messages waiting to be sent
+	 */
+	public synchronized int getQueuedCount() {
+		return queuedCount;
+	}
+	
+	/**
+	 * Stops the sending thread, dropping the messages still waiting.
+	 */
+	public void shutdown() {
+		List<Transmission> pending = new ArrayList<Transmission>();
+		
+		synchronized (this) {
+			running = false;
+			for (Link link : links.values()) {
+				for (ArrayDeque<Transmission> queue : link.queues) {
+					pending.addAll(queue);
+					queue.clear();
+				}
+			}
+			queuedCount = 0;
+			notifyAll();
+		}
+		
+		for (Transmission transmission : pending) {
+			transmission.done(false);
+		}
+	}
+	
+	private void sendLoop() {
+		try {
+			while (running) {
+				Transmission next = takeNext();
+				
+				if (next != null) {
+					transmit(next);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Waits for the next message to be sent, consuming the budget for it. A cancelled
+	 * message is returned as soon as it is released, without consuming any budget, for
+	 * transmit to drop it.
+	 * 
+	 * @return The message to be sent, or null if the scheduler has been shut down
+	 */
+	private synchronized Transmission takeNext() throws InterruptedException {
+		while (running) {
+			long now = System.nanoTime();
+			long waitNanos = Long.MAX_VALUE;
+			
+			if (queuedCount > 0) {
+				for (Link link : links.values()) {
+					Transmission cancelled = link.pollCancelled(now);
+					
+					if (cancelled != null) {
+						queuedCount--;
+						return cancelled;
+					}
+				}
+				
+				channelBudget.refill(now);
+				
+				if (!channelBudget.hasToken()) {
+					waitNanos = channelBudget.nanosUntilToken();
+				}
+				else {
+					Link bestLink = null;
+					Transmission best = null;
+					
+					for (Link link : links.values()) {
+						Transmission head = link.peek(now);
+						if (head == null) {
+							waitNanos = Math.min(waitNanos, link.nanosUntilReleased(now));
+							continue;
+						}
+						
+						link.budget.refill(now);
+						if (!link.budget.hasToken()) {
+							waitNanos = Math.min(waitNanos, link.budget.nanosUntilToken());
+						}
+						else if ((best == null) || (head.priority < best.priority) || ((head.priority == best.priority) && (head.sequence < best.sequence))) {
+							bestLink = link;
+							best = head;
+						}
+					}
+					
+					if (best != null) {
+						bestLink.remove(best);
+						bestLink.budget.take();
+						channelBudget.take();
+						queuedCount--;
+						return best;
+					}
+				}
+			}
+			
+			if (waitNanos == Long.MAX_VALUE) {
+				wait();
+			}
+			else {
+				TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, waitNanos));
+			}
+		}
+		return null;
+	}
+	
+	private void transmit(Transmission transmission) {
+		if ((transmission.listener != null) && transmission.listener.isCancelled()) {
+			metrics.increment("acoustic.cancelled");
+			transmission.done(false);
+			return;
+		}
+		
+		metrics.recordSince("acoustic.queue." + PRIORITY_NAMES[transmission.priority], transmission.enqueued);
+		boolean transmitted = false;
+		
+		try {
+			transmitter.transmit(transmission.msg, transmission.topic);
+			transmitted = true;
+			metrics.increment("acoustic.sent");
+		} catch (RuntimeException e) {
+			metrics.increment("acoustic.failures");
+		} finally {
+			transmission.done(transmitted);
+		}
+	}
+	
+	private static class Transmission {
+		private final int priority;
+		private final SWARMsmsg msg;
+		private final String topic;
+		private final Listener listener;
+		private final long enqueued = System.nanoTime();
+		private final long released;
+		private long sequence;
+		
+		private Transmission(int priority, SWARMsmsg msg, String topic, Listener listener, long delayNanos) {
+			this.priority = priority;
+			this.msg = msg;
+			this.topic = topic;
+			this.listener = listener;
+			this.released = enqueued + delayNanos;
+		}
+		
+		private void done(boolean transmitted) {
+			if (listener != null) {
+				listener.done(transmitted);
+			}
+		}
+	}
+	
+	private static class Link {
+		private final TokenBucket budget;
+		@SuppressWarnings("unchecked")
+		private final ArrayDeque<Transmission>[] queues = new ArrayDeque[PRIORITY_NAMES.length];
+		
+		private Link(TokenBucket budget) {
+			this.budget = budget;
+			for (int i = 0; i < queues.length; i++) {
+				queues[i] = new ArrayDeque<Transmission>();
+			}
+		}
+		
+		private int size() {
+			int size = 0;
+			for (ArrayDeque<Transmission> queue : queues) {
+				size += queue.size();
+			}
+			return size;
+		}
+		
+		/**
+		 * Gets the message with the highest priority among the ones not held anymore. Within
+		 * a class, messages are held for the same time, so only the oldest one is checked.
+		 */
+		private Transmission peek(long now) {
+			for (ArrayDeque<Transmission> queue : queues) {
+				Transmission head = queue.peek();
+				
+				if ((head != null) && (head.released - now <= 0)) {
+					return head;
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * @return Time until the first held message can be sent, or Long.MAX_VALUE if the link is empty
+		 */
+		private long nanosUntilReleased(long now) {
+			long waitNanos = Long.MAX_VALUE;
+			
+			for (ArrayDeque<Transmission> queue : queues) {
+				Transmission head = queue.peek();
+				
+				if (head != null) {
+					waitNanos = Math.min(waitNanos, head.released - now);
+				}
+			}
+			return waitNanos;
+		}
+		
+		private void remove(Transmission transmission) {
+			queues[transmission.priority].remove(transmission);
+		}
+		
+		/**
+		 * Removes the first released message found cancelled at the head of a class.
+		 */
+		private Transmission pollCancelled(long now) {
+			for (ArrayDeque<Transmission> queue : queues) {
+				Transmission head = queue.peek();
+				
+				if ((head != null) && (head.released - now <= 0) && (head.listener != null) && head.listener.isCancelled()) {
+					return queue.poll();
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Removes all the messages of the priority classes from maxPriority down to minPriority.
+		 */
+		private void pollRange(int maxPriority, int minPriority, List<Transmission> removed) {
+			for (int i = Math.max(0, maxPriority); i <= Math.min(minPriority, queues.length - 1); i++) {
+				removed.addAll(queues[i]);
+				queues[i].clear();
+			}
+		}
+		
+		/**
+		 * Removes the oldest message of the lowest priority class, if it is not more important than the given priority.
+		 */
+		private Transmission pollLowest(int priority) {
+			for (int i = queues.length - 1; i >= priority; i--) {
+				if (!queues[i].isEmpty()) {
+					return queues[i].poll();
+				}
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Budget of frames, refilled at a constant rate up to the burst size.
+	 */
+	private static class TokenBucket {
+		private final double capacity;
+		private final double tokensPerNano;
+		private double tokens;
+		private long lastRefill = System.nanoTime();
+		
+		private TokenBucket(int capacity, double tokensPerSecond) {
+			this.capacity = capacity;
+			this.tokensPerNano = tokensPerSecond / 1e9;
+			this.tokens = capacity;
+		}
+		
+		private void refill(long now) {
+			if (tokensPerNano <= 0) {
+				tokens = capacity;
+			}
+			else {
+				tokens = Math.min(capacity, tokens + ((now - lastRefill) * tokensPerNano));
+			}
+			lastRefill = now;
+		}
+		
+		private boolean hasToken() {
+			return tokens >= 1;
+		}
+		
+		private void take() {
+			tokens -= 1;
+		}
+		
+		private long nanosUntilToken() {
+			return (long) Math.ceil((1 - tokens) / tokensPerNano);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.swarms.thrift.Action;
+
+/**
+ * Dependency graph of the plan of one vehicle, releasing its actions as soon as
+ * the actions they depend on have been completed.
+ * 
+ * The plan must be sorted by start time. An action depends on every previous action
+ * whose time window ends before the action starts, so actions with overlapping time
+ * windows (e.g. configuring a camera during a survey) may run at the same time, while
+ * a plan without time windows is run one action after another.
+ * 
+ * The vehicles report the status of a task by its type, so at most one action of each
+ * task type is in flight at a time, and no more than the in-flight window in total.
+ * 
+ * The graph is not thread safe: it is guarded by the lock of the vehicle state.
+ *
+ */
+public class ActionDependencyGraph {
+	private final int inFlightWindow;
+	private final List<Node> nodes;
+	private final TreeMap<Integer, Node> readyNodes = new TreeMap<Integer, Node>();
+	private final LinkedHashMap<Byte, Node> inFlightNodes = new LinkedHashMap<Byte, Node>();
+	private int unreleasedCount;
+	
+	/**
+	 * @param plan				The plan of the vehicle, sorted by start time
+	 * @param inFlightWindow	Maximum number of actions in flight at the same time
+	 */
+	public ActionDependencyGraph(List<Action> plan, int inFlightWindow) {
+		this.inFlightWindow = Math.max(1, inFlightWindow);
+		this.nodes = new ArrayList<Node>(plan.size());
+		
+		for (Action action : plan) {
+			Node node = new Node(nodes.size(), action);
+			
+			// Only the latest dependencies are linked, the older ones are implied by them
+			long latestDependencyStart = Long.MIN_VALUE;
+			for (int i = nodes.size() - 1; i >= 0; i--) {
+				Node previous = nodes.get(i);
+				
+				if ((previous.action.getEndTime() <= action.getStartTime()) && (previous.action.getEndTime() > latestDependencyStart)) {
+					previous.dependents.add(node);
+					node.pendingDependencies++;
+					latestDependencyStart = Math.max(latestDependencyStart, previous.action.getStartTime());
+				}
+			}
+			
+			if (node.pendingDependencies == 0) {
+				readyNodes.put(node.index, node);
+			}
+			nodes.add(node);
+		}
+		unreleasedCount = nodes.size();
+	}
+	
+	/**
+	 * Releases the ready actions that fit in the in-flight window, in plan order.
+	 * 
+	 * @return The released actions, to be assigned to the vehicle
+	 */
+	public List<Action> releaseReadyActions() {
+		List<Action> released = new ArrayList<Action>();
+		
+		for (Node node : new ArrayList<Node>(readyNodes.values())) {
+			if (inFlightNodes.size() >= inFlightWindow) {
+				break;
+			}
+			
+			byte taskType = getTaskType(node.action);
+			if (!inFlightNodes.containsKey(taskType)) {
+				readyNodes.remove(node.index);
+				inFlightNodes.put(taskType, node);
+				unreleasedCount--;
+				released.add(node.action);
+			}
+		}
+		return released;
+	}
+	
+	/**
+	 * Gets the action in flight for a task type, i.e. the action a report of that type refers to.
+	 * 
+	 * @param taskType	The task type of the report
+	 * @return			The action in flight, or null if there is none of that type
+	 */
+	public Action getInFlightAction(byte taskType) {
+		Node node = inFlightNodes.get(taskType);
+		return (node != null) ? node.action : null;
+	}
+	
+	/**
+	 * Marks an action in flight as completed, making ready the actions depending on it.
+	 * 
+	 * @param action	The completed action
+	 * @return			False if the action was not in flight
+	 */
+	public boolean complete(Action action) {
+		byte taskType = getTaskType(action);
+		Node node = inFlightNodes.get(taskType);
+		
+		if ((node == null) || (node.action != action)) {
+			return false;
+		}
+		
+		inFlightNodes.remove(taskType);
+		for (Node dependent : node.dependents) {
+			if (--dependent.pendingDependencies == 0) {
+				readyNodes.put(dependent.index, dependent);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Drops the actions not released yet, e.g. when the plan of the vehicle is aborted.
+	 */
+	public void cancelUnreleased() {
+		for (Node node : nodes) {
+			node.pendingDependencies = -1;
+		}
+		readyNodes.clear();
+		unreleasedCount = 0;
+	}
+	
+	/**
+	 * @return True if every action has been released and completed
+	 */
+	public boolean isFinished() {
+		return (unreleasedCount == 0) && inFlightNodes.isEmpty();
+	}
+	
+	public int getInFlightCount() {
+		return inFlightNodes.size();
+	}
+	
+	public int getUnreleasedCount() {
+		return unreleasedCount;
+	}
+	
+	private static byte getTaskType(Action action) {
+		return (byte) action.getRelatedTask().getTaskTypeId();
+	}
+	
+	private static class Node {
+		private final int index;
+		private final Action action;
+		private final List<Node> dependents = new ArrayList<Node>(2);
+		private int pendingDependencies = 0;
+		
+		private Node(int index, Action action) {
+			this.index = index;
+			this.action = action;
+		}
+	}
+}
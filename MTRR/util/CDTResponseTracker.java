@@ -0,0 +1,142 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the CDT requests that are awaiting for a response.
+ *
+ * There is at most one pending request per CDT subtype. The request is completed
+ * by the MTRR upon receiving the corresponding CDT report, waking up the thread
+ * awaiting for it without any busy waiting.
+ *
+ */
+public class CDTResponseTracker {
+	private HashMap<Byte, PendingCDTRequest> pendingRequests = new HashMap<Byte, PendingCDTRequest>();
+
+	/**
+	 * Registers a new pending request for the given subtype, replacing any previous one.
+	 *
+	 * @param subtype		The CDT subtype of the request
+	 * @param requestID		The request ID used in the request frame
+	 * @return				The pending request to await on
+	 */
+	public synchronized PendingCDTRequest register(byte subtype, byte requestID) {
+		PendingCDTRequest request = new PendingCDTRequest(subtype, requestID);
+		pendingRequests.put(subtype, request);
+		return request;
+	}
+
+	/**
+	 * Completes the pending request for the given subtype, if any.
+	 *
+	 * @param subtype		The CDT subtype of the received response
+	 * @param requestID		The request ID of the received response
+	 * @param result		The result code of the response (0 means success)
+	 * @return				True if there was a pending request for the subtype
+	 */
+	public synchronized boolean complete(byte subtype, byte requestID, int result) {
+		PendingCDTRequest request = pendingRequests.remove(subtype);
+
+		if (request == null) {
+			return false;
+		}
+
+		request.complete(requestID, result);
+		return true;
+	}
+
+	/**
+	 * Removes the given request from the pending requests if it is still the current one.
+	 *
+	 * @param request		The request to be cancelled
+	 */
+	public synchronized void cancel(PendingCDTRequest request) {
+		if (pendingRequests.get(request.getSubtype()) == request) {
+			pendingRequests.remove(request.getSubtype());
+		}
+	}
+
+	public synchronized boolean isAwaited(byte subtype) {
+		return pendingRequests.containsKey(subtype);
+	}
+
+	public static class PendingCDTRequest {
+		private final byte subtype;
+		private final byte requestID;
+		private final CountDownLatch latch = new CountDownLatch(1);
+		private volatile byte responseRequestID;
+		private volatile int result = -1;
+
+		private PendingCDTRequest(byte subtype, byte requestID) {
+			this.subtype = subtype;
+			this.requestID = requestID;
+		}
+
+		private void complete(byte responseRequestID, int result) {
+			this.responseRequestID = responseRequestID;
+			this.result = result;
+			latch.countDown();
+		}
+
+		/**
+		 * Waits for the response to this request.
+		 *
+		 * @param timeout		Maximum time to wait, in milliseconds
+		 * @return				True if the response was received before the timeout
+		 * @throws InterruptedException
+		 */
+		public boolean await(long timeout) throws InterruptedException {
+			return latch.await(timeout, TimeUnit.MILLISECONDS);
+		}
+
+		public boolean isReceived() {
+			return latch.getCount() == 0;
+		}
+
+		public boolean isSuccessful() {
+			return isReceived() && (result == 0);
+		}
+
+		public byte getSubtype() {
+			return subtype;
+		}
+
+		public byte getRequestID() {
+			return requestID;
+		}
+
+		public byte getResponseRequestID() {
+			return responseRequestID;
+		}
+
+		public int getResult() {
+			return result;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Tracks the task frames sent to the vehicles through both the IP and the acoustic
+ * channels, so the acoustic copy can be cancelled while it is held in the acoustic
+ * scheduler if the vehicle acknowledges the frame received through the IP channel.
+ * 
+ * The task reports do not carry the request ID of the frame, so each delivery is
+ * registered against its action, and a report only acknowledges the delivery of the
+ * action it has been resolved to. While the acoustic copy of an action is still held,
+ * a report for the action can only answer its IP copy. Once the acoustic copy of an
+ * earlier action of the same subtype has been sent, a report could answer that copy
+ * instead, so the later deliveries of the subtype are not acknowledged until a report
+ * resolves to the earlier action.
+ *
+ */
+public class DeliveryTracker {
+	private final HashMap<Integer, LinkedList<Delivery>> pendingDeliveries = new HashMap<Integer, LinkedList<Delivery>>();
+	
+	/**
+	 * Registers the acoustic copy of a frame sent to a vehicle.
+	 * 
+	 * @param vehicleId		The destination vehicle
+	 * @param actionId		The action assigned by the frame
+	 * @param subtype		The subtype of the frame
+	 * @return				The delivery, to be released once the copy has left the acoustic scheduler
+	 */
+	public synchronized Delivery register(int vehicleId, int actionId, byte subtype) {
+		LinkedList<Delivery> deliveries = pendingDeliveries.get(vehicleId);
+		
+		if (deliveries == null) {
+			deliveries = new LinkedList<Delivery>();
+			pendingDeliveries.put(vehicleId, deliveries);
+		}
+		
+		Delivery delivery = new Delivery(vehicleId, actionId, subtype);
+		deliveries.add(delivery);
+		return delivery;
+	}
+	
+	/**
+	 * Acknowledges the delivery of an action to a vehicle, unless its acoustic copy or
+	 * the one of an earlier action of the same subtype has already been sent.
+	 * 
+	 * @param vehicleId		The reporting vehicle
+	 * @param actionId		The action the report has been resolved to
+	 * @param subtype		The subtype of the report
+	 * @return				True if a pending delivery has been acknowledged
+	 */
+	public synchronized boolean acknowledge(int vehicleId, int actionId, byte subtype) {
+		LinkedList<Delivery> deliveries = pendingDeliveries.get(vehicleId);
+		
+		if (deliveries == null) {
+			return false;
+		}
+		
+		for (Iterator<Delivery> iterator = deliveries.iterator(); iterator.hasNext(); ) {
+			Delivery delivery = iterator.next();
+			
+			if (delivery.actionId == actionId) {
+				iterator.remove();
+				
+				if (delivery.sent) {
+					return false;
+				}
+				delivery.acknowledged = true;
+				return true;
+			}
+			
+			if ((delivery.subtype == subtype) && delivery.sent) {
+				return false;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Forgets the delivery of an action already sent, once a report has been resolved to the action.
+	 * 
+	 * @param vehicleId		The reporting vehicle
+	 * @param actionId		The action the report has been resolved to
+	 */
+	public synchronized void forget(int vehicleId, int actionId) {
+		LinkedList<Delivery> deliveries = pendingDeliveries.get(vehicleId);
+		
+		if (deliveries == null) {
+			return;
+		}
+		
+		for (Iterator<Delivery> iterator = deliveries.iterator(); iterator.hasNext(); ) {
+			Delivery delivery = iterator.next();
+			
+			if ((delivery.actionId == actionId) && delivery.sent) {
+				iterator.remove();
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Records that the acoustic copy of a delivery has left the acoustic scheduler. A
+	 * copy not sent is forgotten, while a sent one is kept until a report is resolved
+	 * to its action.
+	 * 
+	 * @param delivery		The delivery
+	 * @param transmitted	True if the copy has been sent
+	 */
+	public synchronized void release(Delivery delivery, boolean transmitted) {
+		LinkedList<Delivery> deliveries = pendingDeliveries.get(delivery.vehicleId);
+		
+		if (deliveries == null) {
+			return;
+		}
+		
+		if (transmitted && !delivery.acknowledged) {
+			delivery.sent = true;
+		}
+		else {
+			deliveries.remove(delivery);
+		}
+	}
+	
+	public synchronized void clear() {
+		pendingDeliveries.clear();
+	}
+	
+	public static class Delivery {
+		private final int vehicleId;
+		private final int actionId;
+		private final byte subtype;
+		private volatile boolean acknowledged = false;
+		private boolean sent = false;
+		
+		private Delivery(int vehicleId, int actionId, byte subtype) {
+			this.vehicleId = vehicleId;
+			this.actionId = actionId;
+			this.subtype = subtype;
+		}
+		
+		/**
+		 * @return True if the vehicle has acknowledged the frame, so the acoustic copy is not needed
+		 */
+		public boolean isAcknowledged() {
+			return acknowledged;
+		}
+	}
+}
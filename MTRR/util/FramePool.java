@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of reusable frames for the messages published by the MTRR.
+ * 
+ * Ownership: a frame obtained with {@link #acquire()} belongs to the caller until
+ * it is given back with {@link #release(ReusableFrame)}, which must happen after
+ * the last publication of the frame has returned. After releasing a frame, the
+ * caller must not keep or use any reference to it or to its DDS frame.
+ *
+ */
+public class FramePool {
+	private final ArrayBlockingQueue<ReusableFrame> frames;
+	private final AtomicLong createdFrames = new AtomicLong();
+	private final AtomicLong reusedFrames = new AtomicLong();
+	
+	/**
+	 * @param capacity		Maximum number of idle frames kept in the pool
+	 */
+	public FramePool(int capacity) {
+		frames = new ArrayBlockingQueue<ReusableFrame>(Math.max(1, capacity));
+	}
+	
+	/**
+	 * Gets an idle frame from the pool, or a new one if the pool is empty.
+	 * 
+	 * @return A frame owned by the caller
+	 */
+	public ReusableFrame acquire() {
+		ReusableFrame frame = frames.poll();
+		
+		if (frame == null) {
+			createdFrames.incrementAndGet();
+			return new ReusableFrame();
+		}
+		
+		reusedFrames.incrementAndGet();
+		return frame;
+	}
+	
+	/**
+	 * Gives a frame back to the pool. The frame is discarded if the pool is full.
+	 * 
+	 * @param frame		The frame, no longer used by the caller
+	 */
+	public void release(ReusableFrame frame) {
+		frames.offer(frame);
+	}
+	
+	public long getCreatedFrames() {
+		return createdFrames.get();
+	}
+	
+	public long getReusedFrames() {
+		return reusedFrames.get();
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import swarms.MTRR.MessagesCONSTANTS;
+
+/**
+ * Binary ring buffer with the last frames encoded by the MTRR.
+ * 
+ * Recording a frame only copies its header and data words into preallocated
+ * arrays, so tracing does no string work. The frames are only formatted when
+ * the trace is dumped, either on demand or to a file.
+ *
+ */
+public class FrameTrace {
+	private final int capacity;
+	private final long[] timestamps;
+	private final byte[] types;
+	private final byte[] vehicleIds;
+	private final byte[] subtypes;
+	private final byte[] requestIds;
+	private final int[][] data;
+	private volatile boolean enabled = false;
+	private long recordedFrames = 0;
+	
+	/**
+	 * @param capacity		Number of frames kept, older frames are overwritten
+	 */
+	public FrameTrace(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		timestamps = new long[this.capacity];
+		types = new byte[this.capacity];
+		vehicleIds = new byte[this.capacity];
+		subtypes = new byte[this.capacity];
+		requestIds = new byte[this.capacity];
+		data = new int[this.capacity][MessagesCONSTANTS.DATA_ARRAY_SIZE];
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * Records an encoded frame, if the trace is enabled.
+	 * 
+	 * @param type			Frame type
+	 * @param vehicleId		Frame vehicle ID
+	 * @param subtype		Frame subtype
+	 * @param requestId		Frame request (sequence operation) ID
+	 * @param words			Frame data words
+	 */
+	public void record(byte type, byte vehicleId, byte subtype, byte requestId, int[] words) {
+		if (!enabled) {
+			return;
+		}
+		
+		synchronized (this) {
+			int slot = (int) (recordedFrames % capacity);
+			timestamps[slot] = System.currentTimeMillis();
+			types[slot] = type;
+			vehicleIds[slot] = vehicleId;
+			subtypes[slot] = subtype;
+			requestIds[slot] = requestId;
+			System.arraycopy(words, 0, data[slot], 0, Math.min(words.length, data[slot].length));
+			recordedFrames++;
+		}
+	}
+	
+	public synchronized long getRecordedFrames() {
+		return recordedFrames;
+	}
+	
+	public synchronized void clear() {
+		recordedFrames = 0;
+	}
+	
+	/**
+	 * Writes the frames in the buffer, oldest first, one line per frame followed by
+	 * one line per non zero data word in decimal and 32 bit binary.
+	 * 
+	 * @param out		Destination of the dump
+	 */
+	public synchronized void dump(PrintWriter out) {
+		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+		long first = Math.max(0, recordedFrames - capacity);
+		
+		for (long frame = first; frame < recordedFrames; frame++) {
+			int slot = (int) (frame % capacity);
+			out.println(dateFormat.format(new Date(timestamps[slot])) + " type=" + types[slot] + " vid=" + vehicleIds[slot] 
+					+ " subtype=" + subtypes[slot] + " seqop=" + requestIds[slot]);
+			
+			for (int word = 0; word < data[slot].length; word++) {
+				if (data[slot][word] != 0) {
+					out.println("    data[" + word + "] " + data[slot][word] + ": " + toBinaryWord(data[slot][word]));
+				}
+			}
+		}
+		out.flush();
+	}
+	
+	/**
+	 * Appends the frames in the buffer to a file.
+	 * 
+	 * @param fileName		The file name
+	 * @throws IOException
+	 */
+	public void dumpToFile(String fileName) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(fileName, true));
+		
+		try {
+			dump(out);
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Formats a data word as a 32 bit binary string.
+	 * 
+	 * @param word		The data word
+	 * @return			The 32 binary digits of the word
+	 */
+	public static String toBinaryWord(int word) {
+		String binary = Integer.toBinaryString(word);
+		StringBuilder padded = new StringBuilder(32);
+		
+		for (int i = binary.length(); i < 32; i++) {
+			padded.append('0');
+		}
+		
+		return padded.append(binary).toString();
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.Vehicle;
+
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+
+/**
+ * Report store keeping the stored reports in memory, to be used instead of the
+ * Semantic Query in tests. An optional delay simulates the latency of the database.
+ *
+ */
+public class InMemoryReportStore implements ReportStore {
+	private final long delay;
+	private final List<String> storedReports = new ArrayList<String>();
+	
+	public InMemoryReportStore() {
+		this(0);
+	}
+	
+	/**
+	 * @param delay		Time spent on each store operation, in milliseconds
+	 */
+	public InMemoryReportStore(long delay) {
+		this.delay = delay;
+	}
+
+	@Override
+	public void storeStateVectorInDB(int missionId, byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems, int result) {
+		store("stateVectorInDB," + missionId + "," + vehicleId + "," + timems);
+	}
+
+	@Override
+	public void storeStateVector(byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems) {
+		store("stateVector," + vehicleId + "," + timems);
+	}
+
+	@Override
+	public void storeStateVectors(int missionId, List<ProcessedEnvironmentalData> stateVectors) {
+		LinkedHashMap<Byte, ProcessedEnvironmentalData> latestStateVectors = new LinkedHashMap<Byte, ProcessedEnvironmentalData>();
+		
+		for (ProcessedEnvironmentalData data : stateVectors) {
+			store("stateVectorInDB," + missionId + "," + data.getVid() + "," + data.getTimems());
+			
+			ProcessedEnvironmentalData latest = latestStateVectors.get(data.getVid());
+			if ((latest == null) || (data.getTimems() >= latest.getTimems())) {
+				latestStateVectors.put(data.getVid(), data);
+			}
+		}
+		
+		for (ProcessedEnvironmentalData data : latestStateVectors.values()) {
+			store("stateVector," + data.getVid() + "," + data.getTimems());
+		}
+	}
+
+	@Override
+	public void storeSalinity(int missionId, byte vehicleId, double latitude, double longitude, double depth, double altitude,
+			double concentration, long timems) {
+		store("salinity," + missionId + "," + vehicleId + "," + concentration + "," + timems);
+	}
+
+	@Override
+	public void storeTaskReport(byte vehicleId, int missionId, byte subtype, int sequenceOperation, int status, long epochTime) {
+		store("taskReport," + missionId + "," + vehicleId + "," + subtype + "," + sequenceOperation + "," + status);
+	}
+
+	@Override
+	public void storeEvent(byte vehicleId, int missionId, byte subtype, byte sequenceOperation, long epochTime, int errorId,
+			String description, int eventId) {
+		store("event," + missionId + "," + vehicleId + "," + subtype + "," + sequenceOperation + "," + eventId);
+	}
+
+	@Override
+	public void storeRefCoords(int missionId, double latitude, double longitude) {
+		store("refCoords," + missionId + "," + latitude + "," + longitude);
+	}
+
+	@Override
+	public void storeMission(Mission mission) {
+		store("mission," + mission.getMissionId() + "," + mission.getActions().size());
+	}
+
+	@Override
+	public void storeAssignedVehicles(int missionId, List<Vehicle> vehicles) {
+		store("assignedVehicles," + missionId + "," + vehicles.size());
+	}
+	
+	/**
+	 * Gets a copy of the stored reports, in storing order.
+	 * 
+	 * @return The stored reports, as comma separated values starting with the report type
+	 */
+	public synchronized List<String> getStoredReports() {
+		return new ArrayList<String>(storedReports);
+	}
+	
+	public synchronized int getStoredCount() {
+		return storedReports.size();
+	}
+	
+	public synchronized void clear() {
+		storedReports.clear();
+	}
+	
+	private void store(String report) {
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		synchronized (this) {
+			storedReports.add(report);
+		}
+	}
+}
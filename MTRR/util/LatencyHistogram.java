@@ -0,0 +1,161 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram, in nanoseconds.
+ * 
+ * Values are counted in log-linear buckets, as HdrHistogram does: each power of two
+ * range is split in 32 buckets, so percentiles are reported with a relative error
+ * below 3%. Values above the highest trackable value (about 18 minutes) are counted
+ * in the last bucket.
+ *
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+	private static final int HIGHEST_MAGNITUDE = 40;
+	private static final long HIGHEST_TRACKABLE_VALUE = (1L << HIGHEST_MAGNITUDE) - 1;
+	private static final int BUCKETS = (HIGHEST_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+	
+	private final String name;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final long creationTime = System.nanoTime();
+	
+	public LatencyHistogram(String name) {
+		this.name = name;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Records a latency.
+	 * 
+	 * @param nanos		The measured latency, in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		
+		counts.incrementAndGet(bucketIndex(Math.min(nanos, HIGHEST_TRACKABLE_VALUE)));
+		totalCount.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		
+		long max = maxNanos.get();
+		while ((nanos > max) && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+	
+	/**
+	 * Records the latency of an operation started at the given time.
+	 * 
+	 * @param startNanos	The System.nanoTime when the operation started
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public long getMeanNanos() {
+		long count = totalCount.get();
+		return (count == 0) ? 0 : totalNanos.get() / count;
+	}
+	
+	/**
+	 * Gets the number of recorded values per second since the histogram was created.
+	 * 
+	 * @return The throughput, in calls per second
+	 */
+	public double getThroughput() {
+		long elapsed = System.nanoTime() - creationTime;
+		return (elapsed <= 0) ? 0 : totalCount.get() * 1000000000.0 / elapsed;
+	}
+	
+	/**
+	 * Gets the value below which the given percentage of the recorded values fall.
+	 * 
+	 * @param percentile	The percentile, between 0 and 100
+	 * @return				The highest value equivalent to the percentile bucket, in nanoseconds
+	 */
+	public long getPercentileNanos(double percentile) {
+		long count = totalCount.get();
+		if (count == 0) {
+			return 0;
+		}
+		
+		long target = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+		long accumulated = 0;
+		
+		for (int index = 0; index < BUCKETS; index++) {
+			accumulated += counts.get(index);
+			if (accumulated >= target) {
+				return Math.min(highestEquivalentValue(index), maxNanos.get());
+			}
+		}
+		
+		return maxNanos.get();
+	}
+	
+	@Override
+	public String toString() {
+		return name + ": count=" + getCount() + ", rate=" + String.format("%.2f", getThroughput()) + "/s"
+				+ ", mean=" + (getMeanNanos() / 1000) + "us, p50=" + (getPercentileNanos(50) / 1000)
+				+ "us, p99=" + (getPercentileNanos(99) / 1000) + "us, p999=" + (getPercentileNanos(99.9) / 1000)
+				+ "us, max=" + (getMaxNanos() / 1000) + "us";
+	}
+	
+	private static int bucketIndex(long value) {
+		int magnitude = 63 - Long.numberOfLeadingZeros(value | 1);
+		int shift = Math.max(0, magnitude - (SUB_BUCKET_BITS - 1));
+		return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+	}
+	
+	private static long highestEquivalentValue(int index) {
+		if (index < 2 * SUB_BUCKET_HALF) {
+			return index;
+		}
+		
+		int shift = index / SUB_BUCKET_HALF - 1;
+		long lowest = ((long) (index - shift * SUB_BUCKET_HALF)) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
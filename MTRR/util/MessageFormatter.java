@@ -26,12 +26,14 @@
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.swarms.thrift.Action;
 import com.swarms.thrift.EquipmentType;
+import com.swarms.thrift.Vehicle;
+import com.swarms.thrift.VehicleType;
 
 import swarms.MTRR.MessagesCONSTANTS;
 import swarmsDDLs.SWARMsmsg;
@@ -47,6 +49,10 @@ public class MessageFormatter {
     private int mask_roll   = 0b00000000000000000000000011111111;
     private int mask_pitch  = 0b00000000000000000000000011111111;
     
+    // Field by field logging of the encoded tasks, and binary trace of the encoded frames
+    private boolean verboseLogging = false;
+    private FrameTrace frameTrace = new FrameTrace(MessagesCONSTANTS.DEFAULT_FRAME_TRACE_SIZE);
+    
     public static MessageFormatter instance = null;
     
     private MessageFormatter() {}
@@ -66,6 +72,27 @@ public class MessageFormatter {
 		this.logger = logger;
 	}
 
+	public boolean isVerboseLogging() {
+		return verboseLogging;
+	}
+
+	/**
+	 * Enables the field by field logging of the encoded task messages, for debugging.
+	 * 
+	 * @param verboseLogging	True to log every field and data word of the task messages
+	 */
+	public void setVerboseLogging(boolean verboseLogging) {
+		this.verboseLogging = verboseLogging;
+	}
+
+	public FrameTrace getFrameTrace() {
+		return frameTrace;
+	}
+
+	public void setFrameTrace(FrameTrace frameTrace) {
+		this.frameTrace = frameTrace;
+	}
+
 	public double getMission_origin_latitude() {
 		return mission_origin_latitude;
 	}
@@ -83,10 +110,12 @@ public class MessageFormatter {
 	}
 	
 	public SWARMsmsg getStartDiscoveryMessage(byte requestID) {
-		SWARMsmsg msg;
-        SWARMsDDSFrame frame = new SWARMsDDSFrame();
-        int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
-        Arrays.fill(data, 0);
+		return writeStartDiscoveryMessage(new ReusableFrame(), requestID);
+	}
+	
+	public SWARMsDDSFrame writeStartDiscoveryMessage(ReusableFrame target, byte requestID) {
+        SWARMsDDSFrame frame = target.getFrame();
+        int[] data = target.clearData();
     	        
 		int discoveryTime = MessagesCONSTANTS.CDT_START_DISCOVERY_DISCOVERY_TIME;
 		int period = MessagesCONSTANTS.CDT_START_DISCOVERY_PERIOD;
@@ -95,90 +124,133 @@ public class MessageFormatter {
 		frame.setType(MessagesCONSTANTS.TYPE_CDT_MESSAGE);
 		frame.setVid(MessagesCONSTANTS.CDT_REQUEST_VID);
 		frame.setSubtype(MessagesCONSTANTS.START_DISCOVERY);
-		frame.setSeqoperation((byte) requestID++);
+		frame.setSeqoperation(requestID);
 		data[0] = (int) (discoveryTime << 6 | period);
 
 		frame.setDataInt(data);
-		msg = frame;
-		
-		return msg;
+		return trace(frame, data);
 	}
 	
 	public SWARMsmsg getGetNeighboursMessage(byte requestID) {
-		SWARMsmsg msg;
-        SWARMsDDSFrame frame = new SWARMsDDSFrame();
-        int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
-        Arrays.fill(data, 0);
+		return writeGetNeighboursMessage(new ReusableFrame(), requestID);
+	}
+	
+	public SWARMsDDSFrame writeGetNeighboursMessage(ReusableFrame target, byte requestID) {
+        SWARMsDDSFrame frame = target.getFrame();
+        int[] data = target.clearData();
     	        
     	frame.setType(MessagesCONSTANTS.TYPE_GET_NEIGHBOURS);
     	frame.setVid((byte) 0x00);
     	frame.setSubtype(MessagesCONSTANTS.SUBTYPE_GET_NEIGHBOURS);
-    	frame.setSeqoperation((byte) requestID);
+    	frame.setSeqoperation(requestID);
     	frame.setDataInt(data);
-    	msg = frame;
 		
-		return msg;
+		return trace(frame, data);
 	}
 	
 	public SWARMsmsg getSetNeighboursMessage(ArrayList<Integer> auvIDs, byte requestID) {
-		SWARMsmsg msg;
-        SWARMsDDSFrame frame = new SWARMsDDSFrame();
-        int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
-        Arrays.fill(data, 0);
+		ReusableFrame target = new ReusableFrame();
+		SWARMsDDSFrame frame = target.getFrame();
+		int[] data = target.clearData();
     	        
     	frame.setType(MessagesCONSTANTS.TYPE_SET_NEIGHBOURS);
     	frame.setVid((byte) 0x00);
     	frame.setSubtype(MessagesCONSTANTS.SUBTYPE_SET_NEIGHBOURS);
-    	frame.setSeqoperation((byte) requestID);
+    	frame.setSeqoperation(requestID);
+    	
     	int i = 0;
     	for (int vehicleID : auvIDs) {
     		data[i++] = vehicleID;
     	}
     	frame.setDataInt(data);
-    	msg = frame;
 		
-		return msg;
+		return trace(frame, data);
+	}
+	
+	/**
+	 * Writes a SET_NEIGHBOURS message with the IDs of the AUVs in the given list.
+	 * 
+	 * @param target		The frame to write the message into
+	 * @param vehicles		The vehicles, only AUVs are included in the message (may be null)
+	 * @param requestID		The request ID
+	 * @return				The DDS frame of the target, ready to be published
+	 */
+	public SWARMsDDSFrame writeSetNeighboursMessage(ReusableFrame target, List<Vehicle> vehicles, byte requestID) {
+        SWARMsDDSFrame frame = target.getFrame();
+        int[] data = target.clearData();
+    	        
+    	frame.setType(MessagesCONSTANTS.TYPE_SET_NEIGHBOURS);
+    	frame.setVid((byte) 0x00);
+    	frame.setSubtype(MessagesCONSTANTS.SUBTYPE_SET_NEIGHBOURS);
+    	frame.setSeqoperation(requestID);
+    	
+    	if (vehicles != null) {
+    		int i = 0;
+    		for (int v = 0; (v < vehicles.size()) && (i < data.length); v++) {
+    			Vehicle vehicle = vehicles.get(v);
+    			if (vehicle.getType().equals(VehicleType.AUV)) {
+    				data[i++] = vehicle.getId();
+    			}
+    		}
+    	}
+    	frame.setDataInt(data);
+		
+		return trace(frame, data);
 	}
 
 	public SWARMsmsg getSWARMsStateVectorRequest(byte vehicleID, byte requestID, int refreshTime) {		
-		SWARMsmsg msg;
-        SWARMsDDSFrame frame = new SWARMsDDSFrame();
-        int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
-        Arrays.fill(data, 0);
+		return writeStateVectorRequest(new ReusableFrame(), vehicleID, requestID, refreshTime);
+	}
+	
+	public SWARMsDDSFrame writeStateVectorRequest(ReusableFrame target, byte vehicleID, byte requestID, int refreshTime) {		
+        SWARMsDDSFrame frame = target.getFrame();
+        int[] data = target.clearData();
     	        
     	frame.setType(MessagesCONSTANTS.TYPE_ENVIRONMENT_MESSAGE);
     	frame.setVid(vehicleID);
     	frame.setSubtype(MessagesCONSTANTS.STATE_VECTOR);
-    	frame.setSeqoperation((byte) requestID);
+    	frame.setSeqoperation(requestID);
     	data[0] = refreshTime;
     	frame.setDataInt(data);
-    	msg = frame;
 		
-		return msg;
+		return trace(frame, data);
 	}
 	
 	public SWARMsmsg getSWARMsEventsSubscription(byte vehicleID, byte subscriptionRequestID) {
-		SWARMsmsg msg;
-        SWARMsDDSFrame frame = new SWARMsDDSFrame();
-        int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
-        Arrays.fill(data, 0);
+		return writeEventsSubscription(new ReusableFrame(), vehicleID, subscriptionRequestID);
+	}
+	
+	public SWARMsDDSFrame writeEventsSubscription(ReusableFrame target, byte vehicleID, byte subscriptionRequestID) {
+        SWARMsDDSFrame frame = target.getFrame();
+        int[] data = target.clearData();
 		
-		Arrays.fill(data, 0);        
 		frame.setType(MessagesCONSTANTS.TYPE_EVENTS_MESSAGE);
-		frame.setVid((byte) vehicleID);
+		frame.setVid(vehicleID);
 		frame.setSubtype(MessagesCONSTANTS.SUBSCRIPTION_TO_VEHICLE_EVENTS);
 		frame.setSeqoperation(subscriptionRequestID);
 		frame.setDataInt(data);
-		msg = frame;
 		
-		return msg;
+		return trace(frame, data);
 	}
 
 	/**
      * 
      */
     public SWARMsmsg getSWARMsTaskMessage(Action action, byte requestID) {
-        SWARMsDDSFrame frame = new SWARMsDDSFrame();
+    	return writeTaskMessage(new ReusableFrame(), action, requestID);
+    }
+    
+    /**
+     * Writes the task message for an action into the given frame, without allocating
+     * a new frame or data array.
+     * 
+     * @param target		The frame to write the message into
+     * @param action		The action to be assigned
+     * @param requestID		The request ID
+     * @return				The DDS frame of the target, ready to be published
+     */
+    public SWARMsDDSFrame writeTaskMessage(ReusableFrame target, Action action, byte requestID) {
+        SWARMsDDSFrame frame = target.getFrame();
         long depth;
         long delta_latitude;
         long delta_longitude;
@@ -199,49 +271,52 @@ public class MessageFormatter {
         frame.setType(MessagesCONSTANTS.TYPE_TASK_MESSAGE);
         frame.setVid((byte) action.getAssignedVehicleId());
         frame.setSubtype((byte) action.getRelatedTask().taskTypeId);
-        frame.setSeqoperation((byte) requestID);    	
+        frame.setSeqoperation(requestID);    	
 
-        int yaw = ((Double) (action.getBearing().getYaw() * 10)).intValue();
-        int roll = ((Double) (action.getBearing().getRoll() * 10)).intValue();
-        int pitch = ((Double) (action.getBearing().getPitch() * 10)).intValue();
-        int speed = ((Double) (action.getSpeed() * 10)).intValue();
+        int yaw = (int) (action.getBearing().getYaw() * 10);
+        int roll = (int) (action.getBearing().getRoll() * 10);
+        int pitch = (int) (action.getBearing().getPitch() * 10);
+        int speed = (int) (action.getSpeed() * 10);
 
-        int[] data = new int[15];
-        Arrays.fill(data, 0);
+        int[] data = target.clearData();
 
         // DDS Frame specifics for each task type
-        logger.log(Level.INFO, ">> PROCESSING ACTION: Task subtype {0}", action.getRelatedTask().getDescription());
+        if (verboseLogging) {
+            logger.log(Level.INFO, ">> PROCESSING ACTION: Task subtype {0}", action.getRelatedTask().getDescription());
+        }
         switch (((byte) action.getRelatedTask().getTaskTypeId())) {
 
             case MessagesCONSTANTS.GOTO_WAYPOINT:
-                depth = ((Double) (action.getArea().getArea().get(1).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(1).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(1).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(1).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(1).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(1).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(1).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(1).getLongitude() - mission_origin_longitude) * 1e6);
 
                 data[0] = (int) (yaw << 25 | (roll & mask_roll) << 17 | (pitch & mask_pitch) << 9 | speed);
                 data[1] = (int) (altitude << 16 | depth);
                 data[2] = (int) (delta_latitude & mask_deltas);
                 data[3] = (int) (delta_longitude & mask_deltas);
                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> delta_latitude: {0}", delta_latitude);
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_latitude: {0}", delta_latitude);
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> delta_longitude: {0}", delta_longitude);
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_longitude: {0}", delta_longitude);
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
+                }
         
                 break;
             case MessagesCONSTANTS.HOVER:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
 
                 // TODO: Get clockwise and radius data from the Action
                 clockwise = 0;
@@ -252,17 +327,19 @@ public class MessageFormatter {
                 data[2] = (int) (radius << 18 | (delta_latitude & mask_deltas));
                 data[3] = (int) (clockwise << 18 | (delta_longitude & mask_deltas));
                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> radius: {0}, delta_latitude: {1}", new Object[] {radius, delta_latitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> radius: {0}, delta_latitude: {1}", new Object[] {radius, delta_latitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> clockwise: {0}, delta_longitude: {1}", new Object[] {clockwise, delta_longitude});
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> clockwise: {0}, delta_longitude: {1}", new Object[] {clockwise, delta_longitude});
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
+                }
 
                 break;
             case MessagesCONSTANTS.CONFIGURE:
@@ -288,8 +365,10 @@ public class MessageFormatter {
 
                 data[0] = (int) (on << 2 | sensor);
                 
-                logger.log(Level.INFO, ">> on: {0}, sensor: {1}", new Object[] {on, sensor});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> on: {0}, sensor: {1}", new Object[] {on, sensor});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
+                }
                 
                 break;
             case MessagesCONSTANTS.FOLLOW_TARGET:
@@ -298,15 +377,17 @@ public class MessageFormatter {
 
                 data[0] = (int) (targetID);
 
-                logger.log(Level.INFO, ">> target ID: {0}", new Object[] {targetID});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> target ID: {0}", new Object[] {targetID});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
+                }
                 
                 break;
             case MessagesCONSTANTS.FOLLOW_STRUCTURE:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
                 
                 // TODO: Get the azimuth value from the Action
                 azimuth = 0;
@@ -316,24 +397,26 @@ public class MessageFormatter {
                 data[2] = (int) (azimuth << 18 | (delta_latitude & mask_deltas));
                 data[3] = (int) ((delta_longitude & mask_deltas));
                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> azimuth: {0}, delta_latitude: {1}", new Object[] {azimuth ,delta_latitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> azimuth: {0}, delta_latitude: {1}", new Object[] {azimuth ,delta_latitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> delta_longitude: {0}", delta_longitude);
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_longitude: {0}", delta_longitude);
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
+                }
                 
                 break;
             case MessagesCONSTANTS.FOLLOW_ROW:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
 
                 // TODO: Get the length and azimuth from the Action
                 length = 0;
@@ -344,24 +427,26 @@ public class MessageFormatter {
                 data[2] = (int) (azimuth << 18 | (delta_latitude & mask_deltas));
                 data[3] = (int) (length << 18 | (delta_longitude & mask_deltas));
 
-                logger.log(Level.INFO, ">> speed: {0}", speed);
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> speed: {0}", speed);
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> azimuth: {0}, delta_latitude:: {1}", new Object[] {azimuth, delta_latitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> azimuth: {0}, delta_latitude:: {1}", new Object[] {azimuth, delta_latitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> length: {0}, delta_longitude: {1}", new Object[] {length, delta_longitude});
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> length: {0}, delta_longitude: {1}", new Object[] {length, delta_longitude});
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
+                }
                 
                 break;
             case MessagesCONSTANTS.WAIT:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
 
                 // TODO: Get clockwise and radius data from the Action
                 clockwise = 0;
@@ -372,60 +457,64 @@ public class MessageFormatter {
                 data[2] = (int) (radius << 18 | (delta_latitude & mask_deltas));
                 data[3] = (int) (clockwise << 18 | (delta_longitude & mask_deltas));
                                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[] {yaw, roll, pitch, speed});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> radius: {0}, delta_latitude: {1}", new Object[] {radius, delta_latitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> radius: {0}, delta_latitude: {1}", new Object[] {radius, delta_latitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> clockwise: {0}, delta_longitude: {1}", new Object[] {clockwise, delta_longitude});
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> clockwise: {0}, delta_longitude: {1}", new Object[] {clockwise, delta_longitude});
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
+                }
 
                 break;
             case MessagesCONSTANTS.TRANSIT:
             	//TRANSIT IN THE MMT has 2 locations: 1st one is where the vehicle is, and 2nd is where vehicle has to go
-            	depth = ((Double) (action.getArea().getArea().get(1).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(1).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(1).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(1).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+            	depth = (int) (action.getArea().getArea().get(1).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(1).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(1).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(1).getLongitude() - mission_origin_longitude) * 1e6);
 
                 data[0] = (int) (yaw << 25 | (roll & mask_roll) << 17 | (pitch & mask_pitch) << 9 | speed);
                 data[1] = (int) (altitude << 16 | depth);
                 data[2] = (int) (delta_latitude & mask_deltas);
                 data[3] = (int) (delta_longitude & mask_deltas);
                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[]{yaw, roll, pitch, speed});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[]{yaw, roll, pitch, speed});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> delta_latitude: {0}", delta_latitude);
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_latitude: {0}", delta_latitude);
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> delta_longitude: {0}", delta_longitude);
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_longitude: {0}", delta_longitude);
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
+                }
                            
                 break;
             case MessagesCONSTANTS.SURVEY:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
 
                 azimuth = 0; // TODO: Get azimuth from ACTION
                 sensor = 0; // TODO: Get sensor from ACTION
                 length = 0; // TODO: Get length from ACTION
 
-                int delta_latitude12 = ((Double) ((action.getArea().getArea().get(1).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                int delta_longitude12 = ((Double) ((action.getArea().getArea().get(1).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
-                int delta_latitude21 = ((Double) ((action.getArea().getArea().get(2).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                int delta_longitude21 = ((Double) ((action.getArea().getArea().get(2).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
-                int delta_latitude22 = ((Double) ((action.getArea().getArea().get(3).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                int delta_longitude22 = ((Double) ((action.getArea().getArea().get(3).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                int delta_latitude12 = (int) ((action.getArea().getArea().get(1).getLatitude() - mission_origin_latitude) * 1e6);
+                int delta_longitude12 = (int) ((action.getArea().getArea().get(1).getLongitude() - mission_origin_longitude) * 1e6);
+                int delta_latitude21 = (int) ((action.getArea().getArea().get(2).getLatitude() - mission_origin_latitude) * 1e6);
+                int delta_longitude21 = (int) ((action.getArea().getArea().get(2).getLongitude() - mission_origin_longitude) * 1e6);
+                int delta_latitude22 = (int) ((action.getArea().getArea().get(3).getLatitude() - mission_origin_latitude) * 1e6);
+                int delta_longitude22 = (int) ((action.getArea().getArea().get(3).getLongitude() - mission_origin_longitude) * 1e6);
 
                 data[0] = (int) (altitude << 16 | depth);
                 data[1] = (int) (sensor << 24 | azimuth << 18 | (delta_latitude & mask_deltas));
@@ -437,51 +526,53 @@ public class MessageFormatter {
                 data[7] = (int) (delta_latitude22 & mask_deltas);
                 data[8] = (int) (delta_longitude22 & mask_deltas);
 
-                logger.log(Level.INFO, ">> Reference coordinates for SURVEY: Longitude {0} - Latitude {1}", new Object[] {df.format(mission_origin_longitude), df.format(mission_origin_latitude)});
-                logger.log(Level.INFO, ">> First point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(0).getLongitude()), df.format(action.getArea().getArea().get(0).getLatitude())});
-                logger.log(Level.INFO, ">> Second point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(1).getLongitude()), df.format(action.getArea().getArea().get(1).getLatitude())});
-                logger.log(Level.INFO, ">> Third point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(2).getLongitude()), df.format(action.getArea().getArea().get(2).getLatitude())});
-                logger.log(Level.INFO, ">> Fourth point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(3).getLongitude()), df.format(action.getArea().getArea().get(3).getLatitude())});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> Reference coordinates for SURVEY: Longitude {0} - Latitude {1}", new Object[] {df.format(mission_origin_longitude), df.format(mission_origin_latitude)});
+                    logger.log(Level.INFO, ">> First point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(0).getLongitude()), df.format(action.getArea().getArea().get(0).getLatitude())});
+                    logger.log(Level.INFO, ">> Second point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(1).getLongitude()), df.format(action.getArea().getArea().get(1).getLatitude())});
+                    logger.log(Level.INFO, ">> Third point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(2).getLongitude()), df.format(action.getArea().getArea().get(2).getLatitude())});
+                    logger.log(Level.INFO, ">> Fourth point coordinates: Longitude {0} - Latitude {1}", new Object[] {df.format(action.getArea().getArea().get(3).getLongitude()), df.format(action.getArea().getArea().get(3).getLatitude())});
                 
-                logger.log(Level.INFO, ">>-- Delta longitude (1st point) without scaling (decimal value): {0} - {1} = {2}", new Object[] {df.format(action.getArea().getArea().get(0).getLongitude()), df.format(mission_origin_longitude), df.format((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude))});
-                logger.log(Level.INFO, ">>-- Delta longitude (1st point) scaled (decimal value): ({0} - {1}) * 1e6 = {2}", new Object[] {df.format(action.getArea().getArea().get(0).getLongitude()), df.format(mission_origin_longitude), df.format((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)});
-                logger.log(Level.INFO, ">>-- Delta longitude (1st point) scaled (integer value): [({0} - {1}) * 1e6] = {2}", new Object[] {df.format(action.getArea().getArea().get(0).getLatitude()), df.format(mission_origin_latitude), ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue()});
+                    logger.log(Level.INFO, ">>-- Delta longitude (1st point) without scaling (decimal value): {0} - {1} = {2}", new Object[] {df.format(action.getArea().getArea().get(0).getLongitude()), df.format(mission_origin_longitude), df.format((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude))});
+                    logger.log(Level.INFO, ">>-- Delta longitude (1st point) scaled (decimal value): ({0} - {1}) * 1e6 = {2}", new Object[] {df.format(action.getArea().getArea().get(0).getLongitude()), df.format(mission_origin_longitude), df.format((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)});
+                    logger.log(Level.INFO, ">>-- Delta longitude (1st point) scaled (integer value): [({0} - {1}) * 1e6] = {2}", new Object[] {df.format(action.getArea().getArea().get(0).getLatitude()), df.format(mission_origin_latitude), (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> sensor: {0}, azimuth: {1}, delta_latitude: {2}", new Object[] {sensor, azimuth, delta_latitude});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> sensor: {0}, azimuth: {1}, delta_latitude: {2}", new Object[] {sensor, azimuth, delta_latitude});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> length: {0}, delta_longitude: {1}", new Object[] {length, delta_longitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> length: {0}, delta_longitude: {1}", new Object[] {length, delta_longitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> speed: {0}, delta_latitude12: {1}", new Object[] {speed, delta_latitude12});
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> speed: {0}, delta_latitude12: {1}", new Object[] {speed, delta_latitude12});
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
 
-                logger.log(Level.INFO, ">> delta_longitude12: {0}", delta_longitude12);
-                logger.log(Level.INFO, ">> data[4] {0}: {1}", new Object[] {data[4], String.format("%32s", Integer.toBinaryString(data[4])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_longitude12: {0}", delta_longitude12);
+                    logger.log(Level.INFO, ">> data[4] {0}: {1}", new Object[] {data[4], FrameTrace.toBinaryWord(data[4])});
 
-                logger.log(Level.INFO, ">> delta_latitude21: {0}", delta_latitude21);
-                logger.log(Level.INFO, ">> data[5] {0}: {1}", new Object[] {data[5], String.format("%32s", Integer.toBinaryString(data[5])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_latitude21: {0}", delta_latitude21);
+                    logger.log(Level.INFO, ">> data[5] {0}: {1}", new Object[] {data[5], FrameTrace.toBinaryWord(data[5])});
 
-                logger.log(Level.INFO, ">> delta_longitude21: {0}", delta_longitude21);
-                logger.log(Level.INFO, ">> data[6] {0}: {1}", new Object[] {data[6], String.format("%32s", Integer.toBinaryString(data[6])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_longitude21: {0}", delta_longitude21);
+                    logger.log(Level.INFO, ">> data[6] {0}: {1}", new Object[] {data[6], FrameTrace.toBinaryWord(data[6])});
 
-                logger.log(Level.INFO, ">> delta_latitude22: {0}", delta_latitude22);
-                logger.log(Level.INFO, ">> data[7] {0}: {1}", new Object[] {data[7], String.format("%32s", Integer.toBinaryString(data[7])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_latitude22: {0}", delta_latitude22);
+                    logger.log(Level.INFO, ">> data[7] {0}: {1}", new Object[] {data[7], FrameTrace.toBinaryWord(data[7])});
 
-                logger.log(Level.INFO, ">> delta_longitude22: {0}", delta_longitude22);
-                logger.log(Level.INFO, ">> data[8] {0}: {1}", new Object[] {data[8], String.format("%32s", Integer.toBinaryString(data[8])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> delta_longitude22: {0}", delta_longitude22);
+                    logger.log(Level.INFO, ">> data[8] {0}: {1}", new Object[] {data[8], FrameTrace.toBinaryWord(data[8])});
+                }
 
                 break;
             case MessagesCONSTANTS.INSPECT:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
 
-                radius = ((Double) action.getRange()).intValue();
+                radius = (int) action.getRange();
                 clockwise = 1; // TODO: Get radius from ACTION
                 pitch = action.getTimeLapse();
 
@@ -490,63 +581,71 @@ public class MessageFormatter {
                 data[2] = (int) (radius << 18 | (delta_latitude & mask_deltas));
                 data[3] = (int) (clockwise << 18 | (delta_longitude & mask_deltas));
                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[]{yaw, roll, pitch, speed});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, pitch: {2}, speed: {3}", new Object[]{yaw, roll, pitch, speed});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[] {altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> radius: {0}, delta_latitude {1}", new Object[]{radius, delta_latitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> radius: {0}, delta_latitude {1}", new Object[]{radius, delta_latitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
                 
-                logger.log(Level.INFO, ">> clockwise: {0}, delta_longitude {1}", new Object[]{clockwise, delta_longitude});
-                logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], String.format("%32s", Integer.toBinaryString(data[3])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> clockwise: {0}, delta_longitude {1}", new Object[]{clockwise, delta_longitude});
+                    logger.log(Level.INFO, ">> data[3] {0}: {1}", new Object[] {data[3], FrameTrace.toBinaryWord(data[3])});
+                }
                 
                 break;
                 
             // NEW TASK TYPES FROM ISSUE 10.0
             case MessagesCONSTANTS.PICKUP:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
 
                 data[0] = (int) (yaw << 26 | (roll & mask_roll) << 18 | (delta_latitude & mask_deltas));
                 data[1] = (int) (altitude << 16 | depth);
                 data[2] = (int) ((pitch & mask_pitch) << 18 | (delta_longitude & mask_deltas));
                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, delta_latitude: {2}", new Object[]{yaw, roll, delta_latitude});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, delta_latitude: {2}", new Object[]{yaw, roll, delta_latitude});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[]{altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[]{altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> pitch: {0}, delta_longitude: {1}", new Object[]{pitch, delta_longitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> pitch: {0}, delta_longitude: {1}", new Object[]{pitch, delta_longitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
+                }
                 
                 break;                
             case MessagesCONSTANTS.GRASP_OBJECT:
-                depth = ((Double) (action.getArea().getArea().get(0).getDepth() * 10)).intValue();
-                altitude = ((Double) (action.getArea().getArea().get(0).getAltitude() * 10)).intValue();
-                delta_latitude = ((Double) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6)).intValue();
-                delta_longitude = ((Double) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6)).intValue();
+                depth = (int) (action.getArea().getArea().get(0).getDepth() * 10);
+                altitude = (int) (action.getArea().getArea().get(0).getAltitude() * 10);
+                delta_latitude = (int) ((action.getArea().getArea().get(0).getLatitude() - mission_origin_latitude) * 1e6);
+                delta_longitude = (int) ((action.getArea().getArea().get(0).getLongitude() - mission_origin_longitude) * 1e6);
 
                 data[0] = (int) (yaw << 26 | (roll & mask_roll) << 18 | (delta_latitude & mask_deltas));
                 data[1] = (int) (altitude << 16 | depth);
                 data[2] = (int) ((pitch & mask_pitch) << 18 | (delta_longitude & mask_deltas));
                 
-                logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, delta_latitude: {2}", new Object[]{yaw, roll, delta_latitude});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> yaw: {0}, roll: {1}, delta_latitude: {2}", new Object[]{yaw, roll, delta_latitude});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
                 
-                logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[]{altitude, depth});
-                logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], String.format("%32s", Integer.toBinaryString(data[1])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> altitude: {0}, depth: {1}", new Object[]{altitude, depth});
+                    logger.log(Level.INFO, ">> data[1] {0}: {1}", new Object[] {data[1], FrameTrace.toBinaryWord(data[1])});
                 
-                logger.log(Level.INFO, ">> pitch: {0}, delta_longitude: {1}", new Object[]{pitch, delta_longitude});
-                logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], String.format("%32s", Integer.toBinaryString(data[2])).replace(' ', '0')});
+                    logger.log(Level.INFO, ">> pitch: {0}, delta_longitude: {1}", new Object[]{pitch, delta_longitude});
+                    logger.log(Level.INFO, ">> data[2] {0}: {1}", new Object[] {data[2], FrameTrace.toBinaryWord(data[2])});
+                }
                 
                 break;
             case MessagesCONSTANTS.SONAR_ACQUISITION:
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
+                }
 
                 break;
             case MessagesCONSTANTS.CAMERA_ACQUISITION:
@@ -556,8 +655,10 @@ public class MessageFormatter {
             	
                 data[0] = (int) (delay << 11 | range);
                 
-                logger.log(Level.INFO, ">> delay: {0}, range: {1}", new Object[]{delay, range});
-                logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], String.format("%32s", Integer.toBinaryString(data[0])).replace(' ', '0')});
+                if (verboseLogging) {
+                    logger.log(Level.INFO, ">> delay: {0}, range: {1}", new Object[]{delay, range});
+                    logger.log(Level.INFO, ">> data[0] {0}: {1}", new Object[] {data[0], FrameTrace.toBinaryWord(data[0])});
+                }
                 
                 break;
                                
@@ -568,7 +669,12 @@ public class MessageFormatter {
         }
 
         frame.setDataInt(data);
-        return frame;
+        return trace(frame, data);
+    }
+
+    private SWARMsDDSFrame trace(SWARMsDDSFrame frame, int[] data) {
+    	frameTrace.record(frame.type, frame.vid, frame.subtype, frame.seqoperation, data);
+    	return frame;
     }
 
     public String getSubtypeName(byte type, byte subtype) {
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In process registry of the MTRR metrics: latency histograms for the operations
+ * and the outbound calls, and counters for everything else (failures, drops...).
+ * 
+ * Timers and counters are created on first use and kept for the whole life of the
+ * process, so the callers may keep a reference to them.
+ *
+ */
+public class MetricsRegistry {
+	private static MetricsRegistry instance = null;
+	
+	private final ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<String, LatencyHistogram>();
+	private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+	private ScheduledExecutorService dumpScheduler = null;
+	
+	public static synchronized MetricsRegistry getInstance() {
+		if (instance == null) {
+			instance = new MetricsRegistry();
+		}
+		
+		return instance;
+	}
+	
+	public LatencyHistogram getTimer(String name) {
+		LatencyHistogram timer = timers.get(name);
+		
+		if (timer == null) {
+			LatencyHistogram created = new LatencyHistogram(name);
+			timer = timers.putIfAbsent(name, created);
+			if (timer == null) {
+				timer = created;
+			}
+		}
+		
+		return timer;
+	}
+	
+	public AtomicLong getCounter(String name) {
+		AtomicLong counter = counters.get(name);
+		
+		if (counter == null) {
+			AtomicLong created = new AtomicLong();
+			counter = counters.putIfAbsent(name, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		
+		return counter;
+	}
+	
+	/**
+	 * Records the latency of an operation started at the given time.
+	 * 
+	 * @param name			The timer name
+	 * @param startNanos	The System.nanoTime when the operation started
+	 */
+	public void recordSince(String name, long startNanos) {
+		getTimer(name).recordSince(startNanos);
+	}
+	
+	public void increment(String name) {
+		getCounter(name).incrementAndGet();
+	}
+	
+	/**
+	 * Gets a snapshot of all the metrics, one line per timer or counter, sorted by name.
+	 * 
+	 * @return The current metrics
+	 */
+	public String getSnapshot() {
+		StringBuilder snapshot = new StringBuilder();
+		
+		for (LatencyHistogram timer : new TreeMap<String, LatencyHistogram>(timers).values()) {
+			snapshot.append(timer).append('\n');
+		}
+		for (Map.Entry<String, AtomicLong> counter : new TreeMap<String, AtomicLong>(counters).entrySet()) {
+			snapshot.append(counter.getKey()).append(": ").append(counter.getValue().get()).append('\n');
+		}
+		
+		return snapshot.toString();
+	}
+	
+	/**
+	 * Writes the snapshot of the metrics to the given logger periodically.
+	 * 
+	 * @param logger		The logger receiving the snapshots
+	 * @param period		Time between snapshots, in seconds. Nothing is logged if 0 or less
+	 */
+	public synchronized void startPeriodicDump(final Logger logger, long period) {
+		if ((period <= 0) || (dumpScheduler != null)) {
+			return;
+		}
+		
+		dumpScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "MetricsRegistry-dump");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		dumpScheduler.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				if (!timers.isEmpty() || !counters.isEmpty()) {
+					logger.log(Level.INFO, "--- MTRR metrics >\n{0}", getSnapshot());
+				}
+			}
+		}, period, period, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Appends the snapshot of the metrics to the given file.
+	 * 
+	 * @param fileName		Name of the file
+	 * @throws IOException
+	 */
+	public void dumpToFile(String fileName) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(fileName, true));
+		
+		try {
+			writer.println("=== " + new java.util.Date());
+			writer.print(getSnapshot());
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.swarms.thrift.Action;
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.Vehicle;
+
+/**
+ * Index of a mission plan, built in a single pass over its actions.
+ * 
+ * The index holds the vehicles of the plan, the vehicles involved in some action
+ * (in order of appearance), the actions of each vehicle and the parent/child
+ * relations between actions. The filtered and sorted plans are computed from the
+ * index with the same rules as MissionParser.parsePlan and parseVehiclePlan, so a
+ * mission start needs O(n log n) instead of one pass over all the actions per vehicle.
+ * 
+ * The index does not modify the plan, and does not follow later changes to it.
+ *
+ */
+public class MissionIndex {
+	private final HashMap<Integer, Vehicle> vehiclesMap = new HashMap<Integer, Vehicle>();
+	private final LinkedHashMap<Integer, Vehicle> involvedVehicles = new LinkedHashMap<Integer, Vehicle>();
+	private final HashMap<Integer, List<Action>> vehicleActions = new HashMap<Integer, List<Action>>();
+	
+	// Actions with childs assigned to the same vehicle (rules of parseVehiclePlan)
+	private final HashMap<Integer, HashSet<Integer>> vehicleParents = new HashMap<Integer, HashSet<Integer>>();
+	
+	// Actions with childs in the whole plan (rules of parsePlan)
+	private final HashSet<Integer> missionParents = new HashSet<Integer>();
+	private final int actionCount;
+	
+	public MissionIndex(Mission plan) {
+		for (Vehicle vehicle : plan.getVehicles()) {
+			vehiclesMap.put(vehicle.getId(), vehicle);
+		}
+		
+		for (Action action : plan.getActions()) {
+			int vehicleID = action.getAssignedVehicleId();
+			List<Action> actions = vehicleActions.get(vehicleID);
+			
+			if (actions == null) {
+				actions = new ArrayList<Action>();
+				vehicleActions.put(vehicleID, actions);
+				vehicleParents.put(vehicleID, new HashSet<Integer>());
+				involvedVehicles.put(vehicleID, vehiclesMap.get(vehicleID));
+			}
+			actions.add(action);
+			
+			if (action.isSetParentActionId()) {
+				if (action.getParentActionId() != 0) {
+					vehicleParents.get(vehicleID).add(action.getParentActionId());
+				}
+				if (action.getParentActionId() != action.getActionId()) {
+					missionParents.add(action.getParentActionId());
+				}
+			}
+		}
+		
+		actionCount = plan.getActions().size();
+	}
+	
+	/**
+	 * Gets the vehicles in the plan by ID.
+	 * 
+	 * @return		The map of vehicles
+	 */
+	public HashMap<Integer, Vehicle> getVehiclesMap() {
+		return vehiclesMap;
+	}
+	
+	/**
+	 * Gets the vehicles that perform some action in the mission, in order of appearance.
+	 * A vehicle missing from the vehicles of the plan is returned as null.
+	 * 
+	 * @return		The list of vehicles involved in the mission
+	 */
+	public List<Vehicle> getInvolvedVehicles() {
+		return new ArrayList<Vehicle>(involvedVehicles.values());
+	}
+	
+	/**
+	 * Gets the filtered plan of a vehicle, sorted by start time. Vehicles with an on board
+	 * planner get the high level and single actions, the rest get the low level and single
+	 * actions.
+	 * 
+	 * @param vehicle		The vehicle
+	 * @return				The filtered and sorted plan of the vehicle
+	 */
+	public LinkedList<Action> getVehiclePlan(Vehicle vehicle) {
+		LinkedList<Action> filteredVehiclePlan = new LinkedList<Action>();
+		List<Action> actions = vehicleActions.get(vehicle.getId());
+		
+		if (actions == null) {
+			return filteredVehiclePlan;
+		}
+		
+		HashSet<Integer> parents = vehicleParents.get(vehicle.getId());
+		for (Action action : actions) {
+			if (vehicle.isOnboardPlanner()) {
+				if (action.getParentActionId() == 0) {
+					filteredVehiclePlan.add(action);
+				}
+			}
+			else if ((action.getParentActionId() != 0) || !parents.contains(action.getActionId())) {
+				filteredVehiclePlan.add(action);
+			}
+		}
+		
+		Collections.sort(filteredVehiclePlan, new ActionComparator());
+		return filteredVehiclePlan;
+	}
+	
+	/**
+	 * Gets the filtered plan of the whole mission, sorted by start time, with the same
+	 * rules as MissionParser.parsePlan. Actions assigned to vehicles not in the plan
+	 * are left out.
+	 * 
+	 * @return				The filtered and sorted actions of the mission
+	 */
+	public List<Action> getFilteredPlan() {
+		List<Action> filteredPlan = new ArrayList<Action>(actionCount);
+		
+		for (Map.Entry<Integer, Vehicle> entry : vehiclesMap.entrySet()) {
+			List<Action> actions = vehicleActions.get(entry.getKey());
+			
+			if (actions == null) {
+				continue;
+			}
+			
+			for (Action action : actions) {
+				boolean actionHasParent = ((action.isSetParentActionId()) && (action.getParentActionId() != action.getActionId()));
+				boolean actionHasChilds = missionParents.contains(action.getActionId());
+				
+				if (entry.getValue().isOnboardPlanner()) {
+					// Only actions that are complex or have no parent
+					if (!actionHasParent) {
+						filteredPlan.add(action);
+					}
+				}
+				else {
+					// Only actions that are simple or have no childs
+					if (actionHasParent || !actionHasChilds) {
+						filteredPlan.add(action);
+					}
+				}
+			}
+		}
+		
+		Collections.sort(filteredPlan, new ActionComparatorGlobal());
+		return filteredPlan;
+	}
+	
+	public int getActionCount() {
+		return actionCount;
+	}
+}
@@ -59,62 +59,18 @@ public class MissionParser {
 	 * @return			The parsed plan
 	 */
 	public Mission parsePlan(Mission plan) {
-		List<Action> filteredPlan = new ArrayList<Action>();
-		
-		HashMap<Integer, List<Action>> vehiclesPlan = new HashMap<Integer, List<Action>>();
-		HashMap<Integer, Vehicle> vehiclesMap = new HashMap<Integer, Vehicle>();
-		HashMap<Integer, Boolean> actionsMap = new HashMap<Integer, Boolean>();
-		
-		for (Vehicle vehicle : plan.getVehicles()) {
-			vehiclesMap.put(vehicle.getId(), vehicle);
-			vehiclesPlan.put(vehicle.getId(), new ArrayList<Action>());
-		}
-		
-		for (Action action : plan.getActions()) {
-			actionsMap.put(action.getActionId(), false);
-		}
-		
-		for (Action action : plan.getActions()) {
-			if (action.isSetParentActionId()) {
-				if (action.getActionId() != action.getParentActionId()) {
-					actionsMap.put(action.getParentActionId(), true);
-				}
-			}
-		}
-		
-		for (Action action : plan.getActions()) {
-			int assignedVehicleID = action.getAssignedVehicleId();
-			boolean actionHasParent = ((action.isSetParentActionId()) && (action.getParentActionId() != action.getActionId()));
-			boolean actionHasChilds = actionsMap.get(action.getActionId());
-			
-			// The vehicle has an on board planner
-			if (vehiclesMap.get(assignedVehicleID).isOnboardPlanner()) {
-				
-				// Only actions that are complex or have no parent
-				if (!actionHasParent) {
-					vehiclesPlan.get(assignedVehicleID).add(action);
-				}
-			}
-			
-			// The vehicle does not have an on board planner
-			else {
-				
-				// Only actions that are simple or have no childs
-				if (actionHasParent || !actionHasChilds) {
-					vehiclesPlan.get(assignedVehicleID).add(action);			
-				}
-			}			
-		}
-		
-		for (int vehicleID : vehiclesMap.keySet()) {
-			for (Action action : vehiclesPlan.get(vehicleID)) {
-				filteredPlan.add(action);
-			}
-		}
-		
-		Collections.sort(filteredPlan, new ActionComparatorGlobal());
-		
-		return plan.setActions(filteredPlan);		
+		return plan.setActions(indexMission(plan).getFilteredPlan());		
+	}
+	
+	/**
+	 * Indexes a mission plan in a single pass, to get the involved vehicles and the
+	 * filtered plans of the mission and of each vehicle without scanning the plan again.
+	 * 
+	 * @param plan		The plan to be indexed
+	 * @return			The index of the plan
+	 */
+	public MissionIndex indexMission(Mission plan) {
+		return new MissionIndex(plan);
 	}
 	
 	public HashMap<Integer, Vehicle> getVehiclesMap(Mission plan) {
@@ -138,31 +94,17 @@ public class MissionParser {
      * @return			The list of vehicles in the Mission plan
      */
     public List<Vehicle> parseVehiclesInMission(Mission plan) {
-        List<Vehicle> vehicles = plan.getVehicles();
-        ArrayList<Integer> vehicelIDList = new ArrayList<>();
-        List<Vehicle> involvedVehicles = new ArrayList<>();
+        List<Vehicle> involvedVehicles = indexMission(plan).getInvolvedVehicles();
 
-        for (Action action : plan.getActions()) {
-            int vehicleID = action.getAssignedVehicleId();
-            if (!vehicelIDList.contains(vehicleID)) {
-                vehicelIDList.add(vehicleID);
-                logger.info("Adding vehicle with id " + vehicleID);
-                involvedVehicles.add(findVehicle(vehicles, vehicleID));
+        for (Vehicle vehicle : involvedVehicles) {
+            if (vehicle != null) {
+                logger.info("Adding vehicle with id " + vehicle.getId());
             }
         }
 
         return involvedVehicles;
     }
 
-    private Vehicle findVehicle(List<Vehicle> vehicles, int vid) {
-        for (Vehicle vehicle : vehicles) {
-            if (vehicle.getId() == vid) {
-                return vehicle;
-            }
-        }
-        return null;
-    }
-
     public LinkedList<Action> parseVehiclePlan(Vehicle vehicle, Mission plan) {
     	List<Action> vehiclePlan = new ArrayList<Action>();
     	LinkedList<Action> filteredVehiclePlan = new LinkedList<Action>();
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.HashMap;
+
+/**
+ * Duplicate detector for the reports received from the vehicles.
+ * 
+ * Each report is identified by (missionId, vehicleId, subtype, seqOp, status),
+ * packed into a single long. For each vehicle only the last windowSize reports
+ * are remembered, so lookups are constant time and memory does not grow along
+ * the mission.
+ * 
+ * Packed layout (from the most significant bits): mission ID (16 bits),
+ * vehicle ID (8 bits), subtype (8 bits), sequence operation (16 bits) and
+ * status (16 bits).
+ *
+ */
+public class ReportDeduplicator {
+	private int windowSize;
+	private HashMap<Byte, ReportWindow> windows = new HashMap<Byte, ReportWindow>();
+	
+	public ReportDeduplicator(int windowSize) {
+		this.windowSize = windowSize;
+	}
+	
+	public static long pack(int missionId, byte vehicleId, byte subtype, int seqOp, int status) {
+		return ((long) (missionId & 0xFFFF) << 48)
+				| ((long) (vehicleId & 0xFF) << 40)
+				| ((long) (subtype & 0xFF) << 32)
+				| ((long) (seqOp & 0xFFFF) << 16)
+				| (status & 0xFFFF);
+	}
+	
+	/**
+	 * Registers a report.
+	 * 
+	 * @return		False if the report is a duplicate of one already registered
+	 */
+	public synchronized boolean register(int missionId, byte vehicleId, byte subtype, int seqOp, int status) {
+		ReportWindow window = windows.get(vehicleId);
+		
+		if (window == null) {
+			window = new ReportWindow(windowSize);
+			windows.put(vehicleId, window);
+		}
+		
+		return window.add(pack(missionId, vehicleId, subtype, seqOp, status));
+	}
+	
+	public synchronized void clear() {
+		windows.clear();
+	}
+	
+	/**
+	 * Sets the number of reports remembered per vehicle. Changing it clears the registered reports.
+	 * 
+	 * @param windowSize	Number of reports remembered per vehicle
+	 */
+	public synchronized void setWindowSize(int windowSize) {
+		if (windowSize != this.windowSize) {
+			this.windowSize = windowSize;
+			windows.clear();
+		}
+	}
+	
+	public synchronized int getWindowSize() {
+		return windowSize;
+	}
+	
+	/**
+	 * Sliding window of packed reports: a ring buffer keeping the arrival order
+	 * plus an open addressing hash set for the lookups.
+	 */
+	private static class ReportWindow {
+		private final long[] ring;
+		private int head = 0;
+		private int size = 0;
+		
+		private final long[] keys;
+		private final boolean[] used;
+		private final int mask;
+		
+		ReportWindow(int capacity) {
+			ring = new long[Math.max(1, capacity)];
+			
+			int tableSize = Integer.highestOneBit(ring.length * 2 - 1) << 1;
+			keys = new long[tableSize];
+			used = new boolean[tableSize];
+			mask = tableSize - 1;
+		}
+		
+		boolean add(long key) {
+			int slot = indexOf(key);
+			
+			if (used[slot]) {
+				return false;
+			}
+
+			if (size == ring.length) {
+				remove(ring[head]);
+				head = (head + 1) % ring.length;
+				size--;
+				slot = indexOf(key);
+			}
+			
+			keys[slot] = key;
+			used[slot] = true;
+			ring[(head + size) % ring.length] = key;
+			size++;
+			return true;
+		}
+		
+		/**
+		 * Returns the slot holding the key, or the empty slot where it should be inserted.
+		 */
+		private int indexOf(long key) {
+			int slot = hash(key);
+			
+			while (used[slot] && (keys[slot] != key)) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+		
+		private void remove(long key) {
+			int slot = indexOf(key);
+			
+			if (!used[slot]) {
+				return;
+			}
+			used[slot] = false;
+			
+			// Shift back the following entries of the probe sequence
+			int next = slot;
+			while (true) {
+				next = (next + 1) & mask;
+				if (!used[next]) {
+					return;
+				}
+				
+				int home = hash(keys[next]);
+				boolean inPlace = (slot <= next) ? ((slot < home) && (home <= next)) : ((slot < home) || (home <= next));
+				if (!inPlace) {
+					keys[slot] = keys[next];
+					used[slot] = true;
+					used[next] = false;
+					slot = next;
+				}
+			}
+		}
+		
+		private int hash(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+}
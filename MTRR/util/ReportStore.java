@@ -0,0 +1,73 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.List;
+
+import org.apache.thrift.TException;
+
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.Vehicle;
+
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+
+/**
+ * Destination of the reports received from the vehicles that have to be persisted
+ * (state vectors, salinity measurements, task reports and events), and of the
+ * missions started by the MTRR.
+ *
+ */
+public interface ReportStore {
+	
+	public void storeStateVectorInDB(int missionId, byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems, int result) throws TException;
+	
+	public void storeStateVector(byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems) throws TException;
+	
+	/**
+	 * Stores a batch of state vectors: every vector goes to the database, but only
+	 * the latest vector of each vehicle in the batch goes to the ontology.
+	 * 
+	 * @param missionId		The mission the state vectors belong to
+	 * @param stateVectors	The state vectors, in arrival order
+	 * @throws TException
+	 */
+	public void storeStateVectors(int missionId, List<ProcessedEnvironmentalData> stateVectors) throws TException;
+	
+	public void storeSalinity(int missionId, byte vehicleId, double latitude, double longitude, double depth, double altitude,
+			double concentration, long timems) throws TException;
+	
+	public void storeTaskReport(byte vehicleId, int missionId, byte subtype, int sequenceOperation, int status, long epochTime) throws TException;
+	
+	public void storeEvent(byte vehicleId, int missionId, byte subtype, byte sequenceOperation, long epochTime, int errorId,
+			String description, int eventId) throws TException;
+	
+	public void storeRefCoords(int missionId, double latitude, double longitude) throws TException;
+	
+	public void storeMission(Mission mission) throws TException;
+	
+	public void storeAssignedVehicles(int missionId, List<Vehicle> vehicles) throws TException;
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.Arrays;
+
+import swarms.MTRR.MessagesCONSTANTS;
+import swarmsPDUs.basic.SWARMsDDSFrame;
+
+/**
+ * A DDS frame together with its data array, so both can be filled again for
+ * each message instead of allocating new ones.
+ * 
+ * The frame can be reused as soon as the publication of the previous message
+ * has returned, since the DDS write copies the sample being published.
+ *
+ */
+public class ReusableFrame {
+	private final SWARMsDDSFrame frame = new SWARMsDDSFrame();
+	private final int[] data = new int[MessagesCONSTANTS.DATA_ARRAY_SIZE];
+	
+	public SWARMsDDSFrame getFrame() {
+		return frame;
+	}
+	
+	public int[] getData() {
+		return data;
+	}
+	
+	/**
+	 * Clears the data array of the frame, to be filled with a new payload.
+	 * 
+	 * @return The cleared data array
+	 */
+	public int[] clearData() {
+		Arrays.fill(data, 0);
+		return data;
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Low overhead timing probes for the SCI log.
+ * 
+ * A probe stores its label, up to four numeric values, the wall clock time and
+ * the System.nanoTime into preallocated arrays of a lock free ring buffer, with
+ * no string building and no locking. A background thread drains the buffer into
+ * the SCI logger, writing one CSV line per probe:
+ * 
+ *     label,value1,...,valueN,currentTimeMillis,nanoTime
+ * 
+ * Probe labels are expected to be string constants, so recording a probe does not
+ * allocate. If the buffer is full the probe is dropped and counted.
+ *
+ */
+public class SCITimingLog {
+	private static final int MAX_VALUES = 4;
+	
+	private final Logger sciLogger;
+	private final int capacity;
+	private final String[] labels;
+	private final int[] valueCounts;
+	private final long[] values;
+	private final long[] millis;
+	private final long[] nanos;
+	
+	// Sequence of the probe stored in each slot, set once the slot is complete
+	private final AtomicLongArray published;
+	private final AtomicLong writeSequence = new AtomicLong(0);
+	private volatile long readSequence = 0;
+	private final AtomicLong droppedProbes = new AtomicLong();
+	private volatile boolean enabled = true;
+	
+	private final ScheduledExecutorService drainer;
+	
+	/**
+	 * @param sciLogger			Logger receiving the drained probes
+	 * @param capacity			Maximum number of probes waiting to be written
+	 * @param drainPeriod		Time between drains of the buffer, in milliseconds
+	 */
+	public SCITimingLog(Logger sciLogger, int capacity, long drainPeriod) {
+		this.sciLogger = sciLogger;
+		this.capacity = Math.max(1, capacity);
+		labels = new String[this.capacity];
+		valueCounts = new int[this.capacity];
+		values = new long[this.capacity * MAX_VALUES];
+		millis = new long[this.capacity];
+		nanos = new long[this.capacity];
+		published = new AtomicLongArray(this.capacity);
+		
+		for (int slot = 0; slot < this.capacity; slot++) {
+			published.set(slot, -1);
+		}
+		
+		drainer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "SCITimingLog-drainer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		drainer.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				drain();
+			}
+		}, drainPeriod, drainPeriod, TimeUnit.MILLISECONDS);
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	public void probe(String label) {
+		record(label, 0, 0, 0, 0, 0);
+	}
+	
+	public void probe(String label, long value1) {
+		record(label, 1, value1, 0, 0, 0);
+	}
+	
+	public void probe(String label, long value1, long value2) {
+		record(label, 2, value1, value2, 0, 0);
+	}
+	
+	public void probe(String label, long value1, long value2, long value3) {
+		record(label, 3, value1, value2, value3, 0);
+	}
+	
+	public void probe(String label, long value1, long value2, long value3, long value4) {
+		record(label, 4, value1, value2, value3, value4);
+	}
+	
+	public long getDroppedProbes() {
+		return droppedProbes.get();
+	}
+	
+	/**
+	 * Writes all the complete probes in the buffer to the SCI logger. Called
+	 * periodically by the drainer thread, and may be called to flush the buffer.
+	 */
+	public synchronized void drain() {
+		StringBuilder line = new StringBuilder(128);
+		long sequence = readSequence;
+		
+		while (true) {
+			int slot = (int) (sequence % capacity);
+			
+			if (published.get(slot) != sequence) {
+				break;
+			}
+			
+			line.setLength(0);
+			line.append(labels[slot]);
+			for (int i = 0; i < valueCounts[slot]; i++) {
+				line.append(',').append(values[slot * MAX_VALUES + i]);
+			}
+			line.append(',').append(millis[slot]).append(',').append(nanos[slot]);
+			
+			// Free the slot before writing, the logger may block
+			labels[slot] = null;
+			sequence++;
+			readSequence = sequence;
+			
+			sciLogger.log(Level.INFO, line.toString());
+		}
+	}
+	
+	/**
+	 * Stops the drainer thread after writing the pending probes.
+	 */
+	public void shutdown() {
+		drainer.shutdown();
+		drain();
+	}
+	
+	private void record(String label, int valueCount, long value1, long value2, long value3, long value4) {
+		if (!enabled) {
+			return;
+		}
+		
+		long nanoTime = System.nanoTime();
+		long sequence;
+		
+		// Claim a free slot, or drop the probe if the buffer is full
+		do {
+			sequence = writeSequence.get();
+			
+			if (sequence - readSequence >= capacity) {
+				droppedProbes.incrementAndGet();
+				return;
+			}
+		} while (!writeSequence.compareAndSet(sequence, sequence + 1));
+		
+		int slot = (int) (sequence % capacity);
+		int base = slot * MAX_VALUES;
+		labels[slot] = label;
+		valueCounts[slot] = valueCount;
+		values[base] = value1;
+		values[base + 1] = value2;
+		values[base + 2] = value3;
+		values[base + 3] = value4;
+		millis[slot] = System.currentTimeMillis();
+		nanos[slot] = nanoTime;
+		
+		// Publish the slot to the drainer
+		published.set(slot, sequence);
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.thrift.TException;
+
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.Vehicle;
+
+import swarms.DAM.SemanticQuery;
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+
+/**
+ * Stores the reports in the ontology and the database through the Semantic Query.
+ *
+ */
+public class SemanticQueryReportStore implements ReportStore {
+
+	@Override
+	public void storeStateVectorInDB(int missionId, byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems, int result) throws TException {
+		SemanticQuery.getInstance().storeStateVectorInDB(missionId, vehicleId, latitude, longitude, altitude, depth, 
+				pitch, roll, yaw, speed, remainingBattery, timems, result);
+	}
+
+	@Override
+	public void storeStateVector(byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems) throws TException {
+		SemanticQuery.getInstance().storeStateVector(vehicleId, latitude, longitude, altitude, depth, 
+				pitch, roll, yaw, speed, remainingBattery, timems);
+	}
+
+	@Override
+	public void storeStateVectors(int missionId, List<ProcessedEnvironmentalData> stateVectors) throws TException {
+		LinkedHashMap<Byte, ProcessedEnvironmentalData> latestStateVectors = new LinkedHashMap<Byte, ProcessedEnvironmentalData>();
+		
+		// The Semantic Query inserts one row per call, so the rows of the batch are inserted back to back
+		for (ProcessedEnvironmentalData data : stateVectors) {
+			SemanticQuery.getInstance().storeStateVectorInDB(missionId, data.getVid(), data.getLatitude(), data.getLongitude(), data.getAltitude(), data.getDepth(), 
+					data.getPitch(), data.getRoll(), data.getYaw(), data.getSpeed(), data.getRemaining_battery(), data.getTimems(), data.getResult());
+			
+			ProcessedEnvironmentalData latest = latestStateVectors.get(data.getVid());
+			if ((latest == null) || (data.getTimems() >= latest.getTimems())) {
+				latestStateVectors.put(data.getVid(), data);
+			}
+		}
+		
+		for (ProcessedEnvironmentalData data : latestStateVectors.values()) {
+			SemanticQuery.getInstance().storeStateVector(data.getVid(), data.getLatitude(), data.getLongitude(), data.getAltitude(), data.getDepth(), 
+					data.getPitch(), data.getRoll(), data.getYaw(), data.getSpeed(), data.getRemaining_battery(), data.getTimems());
+		}
+	}
+
+	@Override
+	public void storeSalinity(int missionId, byte vehicleId, double latitude, double longitude, double depth, double altitude,
+			double concentration, long timems) throws TException {
+		SemanticQuery.getInstance().storeSalinity(missionId, vehicleId, latitude, longitude, depth, altitude, concentration, timems);
+	}
+
+	@Override
+	public void storeTaskReport(byte vehicleId, int missionId, byte subtype, int sequenceOperation, int status, long epochTime) throws TException {
+		SemanticQuery.getInstance().storeTaskReport(vehicleId, missionId, subtype, sequenceOperation, status, epochTime);
+	}
+
+	@Override
+	public void storeEvent(byte vehicleId, int missionId, byte subtype, byte sequenceOperation, long epochTime, int errorId,
+			String description, int eventId) throws TException {
+		SemanticQuery.getInstance().storeEvent(vehicleId, missionId, subtype, sequenceOperation, epochTime, errorId, description, eventId);
+	}
+
+	@Override
+	public void storeRefCoords(int missionId, double latitude, double longitude) throws TException {
+		SemanticQuery.getInstance().storeRefCoords(missionId, latitude, longitude);
+	}
+
+	@Override
+	public void storeMission(Mission mission) throws TException {
+		SemanticQuery.getInstance().storeMission(mission);
+	}
+
+	@Override
+	public void storeAssignedVehicles(int missionId, List<Vehicle> vehicles) throws TException {
+		SemanticQuery.getInstance().storeAssignedVehicles(missionId, vehicles);
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a refresh at most once at a time on its own thread, sharing it among the
+ * concurrent requests.
+ * 
+ * A request made while a refresh is in flight joins it instead of queuing a new one,
+ * and a request made within the freshness window of the last completed refresh is
+ * served by it. Requests can ask to be notified, in which case the refresh serving
+ * them is followed by a single notification, however many requests it served.
+ *
+ */
+public class SingleFlightRefresh {
+	
+	/**
+	 * The refresh shared by the requests.
+	 */
+	public interface Refresh {
+		public void refresh();
+		
+		/**
+		 * Called after a refresh serving at least one request that asked to be notified.
+		 */
+		public void notifyCompleted();
+	}
+	
+	private final Refresh refresh;
+	private final long freshnessNanos;
+	private final ExecutorService executor;
+	private Flight inFlight = null;
+	private long lastCompleted;
+	private boolean completed = false;
+	
+	private final AtomicLong refreshes = new AtomicLong();
+	private final AtomicLong joinedRequests = new AtomicLong();
+	private final AtomicLong freshRequests = new AtomicLong();
+	
+	/**
+	 * @param name			Name of the refreshing thread
+	 * @param refresh		The refresh
+	 * @param freshness		Time a completed refresh serves the new requests, in milliseconds. With 0 or less, never.
+	 */
+	public SingleFlightRefresh(final String name, Refresh refresh, long freshness) {
+		this.refresh = refresh;
+		this.freshnessNanos = TimeUnit.MILLISECONDS.toNanos(freshness);
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Requests a refresh, joining the one in flight or served by the last completed one if it is fresh.
+	 * 
+	 * @param notify	True to notify once the refresh serving the request has completed
+	 * @return			Completes once the refresh (and its notification, if any) serving the request has completed
+	 */
+	public synchronized Future<?> request(boolean notify) {
+		if (inFlight != null) {
+			joinedRequests.incrementAndGet();
+			inFlight.notify |= notify;
+			return inFlight.future;
+		}
+		
+		if (completed && (freshnessNanos > 0) && (System.nanoTime() - lastCompleted < freshnessNanos)) {
+			freshRequests.incrementAndGet();
+			
+			if (notify) {
+				return executor.submit(new Runnable() {
+					public void run() {
+						refresh.notifyCompleted();
+					}
+				});
+			}
+			FutureTask<Void> served = new FutureTask<Void>(new Runnable() {
+				public void run() {
+				}
+			}, null);
+			served.run();
+			return served;
+		}
+		
+		refreshes.incrementAndGet();
+		inFlight = new Flight(notify);
+		inFlight.future = executor.submit(inFlight);
+		return inFlight.future;
+	}
+	
+	public long getRefreshes() {
+		return refreshes.get();
+	}
+	
+	public long getJoinedRequests() {
+		return joinedRequests.get();
+	}
+	
+	public long getFreshRequests() {
+		return freshRequests.get();
+	}
+	
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	private class Flight implements Runnable {
+		private boolean notify;
+		private Future<?> future;
+		
+		private Flight(boolean notify) {
+			this.notify = notify;
+		}
+		
+		public void run() {
+			boolean notifyRequested;
+			boolean succeeded = false;
+			
+			try {
+				refresh.refresh();
+				succeeded = true;
+			} finally {
+				synchronized (SingleFlightRefresh.this) {
+					inFlight = null;
+					notifyRequested = notify;
+					
+					if (succeeded) {
+						completed = true;
+						lastCompleted = System.nanoTime();
+					}
+				}
+			}
+			
+			if (notifyRequested) {
+				refresh.notifyCompleted();
+			}
+		}
+	}
+}
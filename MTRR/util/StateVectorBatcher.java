@@ -0,0 +1,170 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+
+/**
+ * Collects the received state vectors and stores them in batches.
+ * 
+ * A batch is stored when it reaches the batch size, or periodically every flush
+ * interval, whatever happens first. Batches are stored one at a time and in order.
+ *
+ */
+public class StateVectorBatcher {
+	private final int batchSize;
+	private final Logger logger;
+	private volatile ReportStore store;
+	
+	private final Object flushLock = new Object();
+	private List<PendingStateVector> pending = new ArrayList<PendingStateVector>();
+	private final ScheduledExecutorService scheduler;
+	private long storedBatches = 0;
+	
+	/**
+	 * @param store				The store for the batches
+	 * @param batchSize			Maximum number of state vectors per batch
+	 * @param flushInterval		Maximum time between batches, in milliseconds
+	 * @param logger			Logger for the failed batches
+	 */
+	public StateVectorBatcher(ReportStore store, int batchSize, long flushInterval, Logger logger) {
+		this.store = store;
+		this.batchSize = Math.max(1, batchSize);
+		this.logger = logger;
+		
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "StateVectorBatcher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				flush();
+			}
+		}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	public void setReportStore(ReportStore store) {
+		this.store = store;
+	}
+	
+	/**
+	 * Adds a state vector to the current batch, storing the batch if it is full.
+	 * 
+	 * @param missionId		The mission the state vector belongs to
+	 * @param data			The state vector
+	 */
+	public void add(int missionId, ProcessedEnvironmentalData data) {
+		boolean full;
+		
+		synchronized (this) {
+			pending.add(new PendingStateVector(missionId, data));
+			full = pending.size() >= batchSize;
+		}
+		
+		if (full) {
+			flush();
+		}
+	}
+	
+	/**
+	 * Stores the state vectors collected so far.
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			List<PendingStateVector> batch;
+			
+			synchronized (this) {
+				if (pending.isEmpty()) {
+					return;
+				}
+				batch = pending;
+				pending = new ArrayList<PendingStateVector>(batchSize);
+			}
+			
+			// Group the state vectors by mission, keeping the arrival order
+			LinkedHashMap<Integer, List<ProcessedEnvironmentalData>> missionBatches = new LinkedHashMap<Integer, List<ProcessedEnvironmentalData>>();
+			for (PendingStateVector stateVector : batch) {
+				List<ProcessedEnvironmentalData> missionBatch = missionBatches.get(stateVector.missionId);
+				
+				if (missionBatch == null) {
+					missionBatch = new ArrayList<ProcessedEnvironmentalData>();
+					missionBatches.put(stateVector.missionId, missionBatch);
+				}
+				missionBatch.add(stateVector.data);
+			}
+			
+			for (Map.Entry<Integer, List<ProcessedEnvironmentalData>> missionBatch : missionBatches.entrySet()) {
+				try {
+					store.storeStateVectors(missionBatch.getKey(), missionBatch.getValue());
+				} catch (Exception e) {
+					logger.log(Level.WARNING, "+++ Failed to store a batch of {0} state vectors for mission {1}: {2}", new Object[] {missionBatch.getValue().size(), missionBatch.getKey(), e.getMessage()});
+				}
+			}
+			storedBatches++;
+		}
+	}
+	
+	/**
+	 * Stops the periodic flushes after storing the pending state vectors.
+	 */
+	public void shutdown() {
+		scheduler.shutdown();
+		flush();
+	}
+	
+	public synchronized int getPendingStateVectors() {
+		return pending.size();
+	}
+	
+	public long getStoredBatches() {
+		synchronized (flushLock) {
+			return storedBatches;
+		}
+	}
+	
+	private static class PendingStateVector {
+		private final int missionId;
+		private final ProcessedEnvironmentalData data;
+		
+		private PendingStateVector(int missionId, ProcessedEnvironmentalData data) {
+			this.missionId = missionId;
+			this.data = data;
+		}
+	}
+}
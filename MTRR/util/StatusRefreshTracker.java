@@ -0,0 +1,114 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the vehicles expected to answer a status refresh, so the refresh can end
+ * as soon as all of them have answered instead of always waiting for the timeout.
+ * 
+ * It also keeps the time each vehicle took to answer since the refresh started.
+ *
+ */
+public class StatusRefreshTracker {
+	private final Set<Integer> pendingVehicles = new HashSet<Integer>();
+	private final LinkedHashMap<Integer, Long> responseLatencies = new LinkedHashMap<Integer, Long>();
+	private long startNanos;
+	
+	/**
+	 * Starts a new refresh, forgetting the previous one.
+	 * 
+	 * @param vehicleIds	The vehicles expected to answer
+	 */
+	public synchronized void start(Collection<Integer> vehicleIds) {
+		pendingVehicles.clear();
+		pendingVehicles.addAll(vehicleIds);
+		responseLatencies.clear();
+		startNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Records the answer of a vehicle.
+	 * 
+	 * @param vehicleId		The answering vehicle
+	 * @return				The time since the refresh started in nanoseconds, or -1 if the
+	 * 						vehicle was not expected or had already answered
+	 */
+	public synchronized long respond(int vehicleId) {
+		if (!pendingVehicles.remove(vehicleId)) {
+			return -1;
+		}
+		
+		long latency = System.nanoTime() - startNanos;
+		responseLatencies.put(vehicleId, latency);
+		
+		if (pendingVehicles.isEmpty()) {
+			notifyAll();
+		}
+		return latency;
+	}
+	
+	/**
+	 * Waits until all the expected vehicles have answered.
+	 * 
+	 * @param timeout		Maximum time to wait, in milliseconds
+	 * @return				True if all the vehicles answered before the timeout
+	 * @throws InterruptedException
+	 */
+	public synchronized boolean awaitAll(long timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		
+		while (!pendingVehicles.isEmpty()) {
+			long remaining = deadline - System.nanoTime();
+			
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+	
+	public synchronized boolean isPending(int vehicleId) {
+		return pendingVehicles.contains(vehicleId);
+	}
+	
+	public synchronized Set<Integer> getPendingVehicles() {
+		return new HashSet<Integer>(pendingVehicles);
+	}
+	
+	/**
+	 * @return The time each vehicle took to answer in nanoseconds, in order of arrival
+	 */
+	public synchronized Map<Integer, Long> getResponseLatencies() {
+		return new LinkedHashMap<Integer, Long>(responseLatencies);
+	}
+}
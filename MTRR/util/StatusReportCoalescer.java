@@ -0,0 +1,157 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.swarms.thrift.Action;
+import com.swarms.thrift.TaskStatus;
+
+/**
+ * Coalesces the status reports sent to the MMT for each action.
+ * 
+ * Non terminal reports (NotStarted, Running) are held for a time window, and only
+ * the latest one for each action is forwarded when the window expires. Terminal
+ * reports are forwarded right away, discarding any older report still held for
+ * the same action. Reports repeating the last status forwarded for an action are
+ * suppressed, so only status changes are sent, always in order.
+ * 
+ * With no coalescing window, every report is forwarded right away as it is.
+ *
+ */
+public class StatusReportCoalescer {
+	
+	/**
+	 * Receiver of the coalesced status reports.
+	 */
+	public interface ReportSink {
+		public void forward(Action report);
+	}
+	
+	private final long window;
+	private final ReportSink sink;
+	private final HashMap<Integer, Action> heldReports = new HashMap<Integer, Action>();
+	private final HashMap<Integer, TaskStatus> lastForwardedStatus = new HashMap<Integer, TaskStatus>();
+	private ScheduledExecutorService scheduler = null;
+	private long coalescedReports = 0;
+	
+	/**
+	 * @param window		Coalescing window in milliseconds. With 0 or less, reports are never held.
+	 * @param sink			Receiver of the coalesced reports
+	 */
+	public StatusReportCoalescer(long window, ReportSink sink) {
+		this.window = window;
+		this.sink = sink;
+		
+		if (window > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "StatusReportCoalescer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Submits a status report. The report must not be modified afterwards.
+	 * 
+	 * @param report		The status report for an action
+	 */
+	public synchronized void submit(Action report) {
+		final int actionId = report.getActionId();
+		TaskStatus status = report.getStatus();
+		
+		if ((scheduler == null) || isTerminal(status)) {
+			if (heldReports.remove(actionId) != null) {
+				coalescedReports++;
+			}
+			forward(report);
+			
+			if (isTerminal(status)) {
+				lastForwardedStatus.remove(actionId);
+			}
+			return;
+		}
+		
+		// A report for this action is already held: it is replaced, and sent when its window expires
+		if (heldReports.put(actionId, report) != null) {
+			coalescedReports++;
+			return;
+		}
+		
+		scheduler.schedule(new Runnable() {
+			public void run() {
+				release(actionId);
+			}
+		}, window, TimeUnit.MILLISECONDS);
+	}
+	
+	public synchronized long getCoalescedReports() {
+		return coalescedReports;
+	}
+	
+	/**
+	 * Forgets the last status forwarded for each action, as the actions of a finished or
+	 * aborted mission may never get a terminal report. The held reports are still forwarded.
+	 */
+	public synchronized void clear() {
+		lastForwardedStatus.clear();
+	}
+	
+	private synchronized void release(int actionId) {
+		Action report = heldReports.remove(actionId);
+		
+		if (report != null) {
+			forward(report);
+		}
+	}
+	
+	private void forward(Action report) {
+		TaskStatus status = report.getStatus();
+		
+		if (scheduler == null) {
+			sink.forward(report);
+			return;
+		}
+		
+		if ((status != null) && status.equals(lastForwardedStatus.get(report.getActionId()))) {
+			coalescedReports++;
+			return;
+		}
+		
+		lastForwardedStatus.put(report.getActionId(), status);
+		sink.forward(report);
+	}
+	
+	private boolean isTerminal(TaskStatus status) {
+		return (status != null) && !status.equals(TaskStatus.NotStarted) && !status.equals(TaskStatus.Running);
+	}
+}
@@ -25,7 +25,11 @@
  package swarms.MTRR.util;
 
 import java.io.FileInputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -38,26 +42,41 @@ import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSocket;
 import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
 
 import com.swarms.thrift.Action;
 import com.swarms.thrift.Mission;
 import com.swarms.thrift.MmtService;
 import com.swarms.thrift.MmtService.Client;
 import com.swarms.thrift.MtrrService;
+import com.swarms.thrift.TaskStatus;
 
 import swarms.MTRR.MessagesCONSTANTS;
 import swarms.ThriftProxy.ThriftProxyCONSTANTS;
 
 public class ThriftClientToMMT {	
-	private final static long TRYOUT_DELAY = 1000;
-	
 	private static String mmtServerAddress = MessagesCONSTANTS.DEFAULT_MMT_SERVER_ADDRESS;
 	private static int mmtServerPort = MessagesCONSTANTS.DEFAULT_MMT_SERVER_PORT;	
     private FileHandler fh;
     private Logger logger = Logger.getLogger("MyThriftClientLog");
-    private boolean inuse = false;
-    private boolean successful = false;
-    private String methodUsed = "";
+    private int socketTimeout = MessagesCONSTANTS.DEFAULT_MMT_SOCKET_TIMEOUT;
+    private int queueSize = MessagesCONSTANTS.DEFAULT_MMT_QUEUE_SIZE;
+    private long statusCoalescingWindow = MessagesCONSTANTS.DEFAULT_MMT_STATUS_COALESCING_WINDOW;
+    
+    // Coalescing stage for status reports, in front of the outbound queue
+    private StatusReportCoalescer statusReportCoalescer;
+    
+    // Outbound messages, sent to the MMT in order by a dedicated sender thread
+    private BlockingQueue<OutboundMessage> outboundQueue;
+    
+    // Messages that cannot be discarded, held while the outbound queue is full (also its lock)
+    private final LinkedHashMap<String, OutboundMessage> overflow = new LinkedHashMap<String, OutboundMessage>();
+    private long overflowSequence = 0;
+    
+    // Persistent connection to the MMT, only used by the sender thread
+    private TTransport transport = null;
+    private MmtService.Client client = null;
+    private volatile boolean reconnectRequired = false;
 	
     public static ThriftClientToMMT instance = null;
         
@@ -92,42 +111,67 @@ public class ThriftClientToMMT {
             } else {
                 logger.log(Level.INFO, "--- Using default port {0}", mmtServerPort);
             }
+
+            if (thriftProxyProperties.containsKey(MessagesCONSTANTS.MMT_SOCKET_TIMEOUT_PROPERTY_NAME)) {
+            	propertyValue = thriftProxyProperties.getProperty(MessagesCONSTANTS.MMT_SOCKET_TIMEOUT_PROPERTY_NAME).trim();
+            	socketTimeout = Integer.parseInt(propertyValue);
+                logger.log(Level.INFO, "--- Read MMT socket timeout property as '{0}', set to {1}", new Object[] {propertyValue, socketTimeout});
+            } else {
+                logger.log(Level.INFO, "--- Using default MMT socket timeout {0}", socketTimeout);
+            }
+
+            if (thriftProxyProperties.containsKey(MessagesCONSTANTS.MMT_QUEUE_SIZE_PROPERTY_NAME)) {
+            	propertyValue = thriftProxyProperties.getProperty(MessagesCONSTANTS.MMT_QUEUE_SIZE_PROPERTY_NAME).trim();
+            	queueSize = Integer.parseInt(propertyValue);
+                logger.log(Level.INFO, "--- Read MMT queue size property as '{0}', set to {1}", new Object[] {propertyValue, queueSize});
+            } else {
+                logger.log(Level.INFO, "--- Using default MMT queue size {0}", queueSize);
+            }
+
+            if (thriftProxyProperties.containsKey(MessagesCONSTANTS.MMT_STATUS_COALESCING_WINDOW_PROPERTY_NAME)) {
+            	propertyValue = thriftProxyProperties.getProperty(MessagesCONSTANTS.MMT_STATUS_COALESCING_WINDOW_PROPERTY_NAME).trim();
+            	statusCoalescingWindow = Long.parseLong(propertyValue);
+                logger.log(Level.INFO, "--- Read MMT status coalescing window property as '{0}', set to {1}", new Object[] {propertyValue, statusCoalescingWindow});
+            } else {
+                logger.log(Level.INFO, "--- Using default MMT status coalescing window {0}", statusCoalescingWindow);
+            }
 			
 		} catch (Exception e) {
 			logger.warning("+++ Error reading the configuration file. Using default values");
 		}
 
+        outboundQueue = new LinkedBlockingQueue<OutboundMessage>(queueSize);
+        statusReportCoalescer = new StatusReportCoalescer(statusCoalescingWindow, new StatusReportCoalescer.ReportSink() {
+        	public void forward(Action report) {
+        		enqueueStatusReport(report);
+        	}
+        });
+        
+        Thread sender = new Thread(new Runnable() {
+        	public void run() {
+        		processOutboundQueue();
+        	}
+        }, "ThriftClientToMMT-sender");
+        sender.setDaemon(true);
+        sender.start();
 	}
 
-    public static ThriftClientToMMT getInstance() {
+    public static synchronized ThriftClientToMMT getInstance() {
             if(instance == null)
                 instance = new ThriftClientToMMT();
             
             return instance;	
     }
-	
-	public synchronized void setInUse(boolean state) {
-		this.inuse = state;
-	}
-	
-	public synchronized boolean isInUse() {
-		return this.inuse;
-	}
     
-	public synchronized void setMethodUsed(String name) {
-		this.methodUsed = name;
-	}
-	
-	public synchronized String getMethodUsed() {
-		return this.methodUsed;
-	}
-	
-	public synchronized void setSuccessful(boolean state) {
-		this.successful = state;
-	}
-	
-	public synchronized boolean isSuccessful() {
-		return this.successful;
+	/**
+	 * Gets the number of messages awaiting to be sent to the MMT.
+	 * 
+	 * @return The number of queued messages.
+	 */
+	public int getPendingMessages() {
+		synchronized (overflow) {
+			return outboundQueue.size() + overflow.size();
+		}
 	}
     
 	/**
@@ -146,6 +190,7 @@ public class ThriftClientToMMT {
 	 */
 	public void setMmtServerAddress(String mmtServerAddress) {
 		ThriftClientToMMT.mmtServerAddress = mmtServerAddress;
+		reconnectRequired = true;
 	}
 
 	/**
@@ -164,123 +209,268 @@ public class ThriftClientToMMT {
 	 */
 	public void setMmtServerPort(int mmtServerPort) {
 		ThriftClientToMMT.mmtServerPort = mmtServerPort;
+		reconnectRequired = true;
 	}
 
-	public void sendStatusReport(Action action) {
-		if (isInUse()) {
-			logger.log(Level.INFO, "--- Client to MMT is being used by method: {0}. Awaiting for it to finish", getMethodUsed());
-			while(isInUse());
-		}
-		
-		setInUse(true);
-		setSuccessful(false);
-		while (!isSuccessful()) {
-			try {
-				logger.log(Level.INFO, "--- Connecting to {0} ({1})", new Object[] {mmtServerAddress, mmtServerPort});
-				logger.log(Level.INFO, "--- Sending status report to MMT for action {0}...", new Object[] {action.getActionId()});
-
-				TTransport transport;
-
-				transport = new TSocket(mmtServerAddress, mmtServerPort);
-
-				transport.open();
-
-				TProtocol protocol = new TBinaryProtocol(transport);
-				MmtService.Client client = new MmtService.Client(protocol);
-
-				performSendStatusReport(client, action);
+	/**
+	 * Gets the number of status reports that were not sent because they were
+	 * superseded by a newer report for the same action.
+	 * 
+	 * @return The number of coalesced status reports.
+	 */
+	public long getCoalescedStatusReports() {
+		return statusReportCoalescer.getCoalescedReports();
+	}
 
-				logger.log(Level.INFO, "--- Status report to MMT for action {0} sent", new Object[] {action.getActionId()});
+	/**
+	 * Forgets the status reports coalesced for the actions of the previous mission.
+	 */
+	public void clearStatusReports() {
+		statusReportCoalescer.clear();
+	}
 
-				transport.close();
-				setSuccessful(true);
+	/**
+	 * Queues a status report for the given action. A copy of the action is queued, so
+	 * later changes to the action do not modify the report.
+	 * 
+	 * Non terminal reports may be coalesced with newer reports for the same action.
+	 * 
+	 * @param action		The action whose status is reported
+	 */
+	public void sendStatusReport(Action action) {
+		statusReportCoalescer.submit(action.deepCopy());
+	}
+	
+	private void enqueueStatusReport(final Action report) {
+		TaskStatus status = report.getStatus();
+		
+		// Only the non terminal reports can be discarded, as newer reports will supersede them
+		boolean discardable = (status == null) || status.equals(TaskStatus.NotStarted) || status.equals(TaskStatus.Running);
+		
+		enqueue(new OutboundMessage("status report " + report.getStatus() + " for action " + report.getActionId(), "action " + report.getActionId(), discardable) {
+			void send(MmtService.Client client) throws TException {
+				performSendStatusReport(client, report);
 			}
-			catch (TException e) {
-				logger.log(Level.INFO, "--- MMT connection is busy now. Will try to send status report {0} for action {1} again in {2} seconds", new Object[] {action.getStatus(), action.getActionId(), TRYOUT_DELAY/1000});
-				try {
-					Thread.sleep(TRYOUT_DELAY);
-				} catch (InterruptedException e1) { }
+		});
+	}
+	
+	public void sendError(final int errorId, final String errorMessage) {
+		enqueue(new OutboundMessage("error report (" + errorId + ",\"" + errorMessage + "\")", null, false) {
+			void send(MmtService.Client client) throws TException {
+				performSendError(client, errorId, errorMessage);
 			}
-		}
-		setInUse(false);
+		});
 	}
 	
-	public void sendError(int errorId, String errorMessage) {
-		if (isInUse()) {
-			logger.log(Level.INFO, "--- Client to MMT is being used by method: {0}. Awaiting for it to finish", getMethodUsed());
-			while(isInUse());
+	public void sendUpdatedStatusNotification() {
+		enqueue(new OutboundMessage("updated status notification", "updated status notification", false) {
+			void send(MmtService.Client client) throws TException {
+				performSendUpdatedStatusNotification(client);
+			}
+		});
+	}
+	
+	/**
+	 * Adds a message to the outbound queue, never blocking the caller. If the queue is
+	 * full, the oldest discardable message (a non terminal status report) is discarded
+	 * to make room. A discardable message is itself discarded if there is none queued,
+	 * while the others are held in the overflow until there is room, so the terminal
+	 * status reports and the errors always reach the MMT. The overflow only keeps the
+	 * latest report for each action, and a single updated status notification.
+	 * 
+	 * @param message		The message to be sent
+	 */
+	private void enqueue(OutboundMessage message) {
+		synchronized (overflow) {
+			// Once messages are held, the new ones are held behind them to keep the order
+			if (overflow.isEmpty()) {
+				boolean queued;
+				while (!(queued = outboundQueue.offer(message))) {
+					OutboundMessage discarded = discardOldest();
+					
+					if (discarded == null) {
+						break;
+					}
+					logger.log(Level.WARNING, "+++ Outbound queue to MMT is full. Discarding {0}", discarded.description);
+				}
+				
+				if (queued) {
+					logger.log(Level.FINE, "--- Queued {0} ({1} pending)", new Object[] {message.description, outboundQueue.size()});
+					return;
+				}
+			}
+			
+			if (message.discardable) {
+				logger.log(Level.WARNING, "+++ Outbound queue to MMT is full. Discarding {0}", message.description);
+				return;
+			}
+			
+			String key = (message.key != null) ? message.key : "message " + overflowSequence++;
+			OutboundMessage replaced = overflow.put(key, message);
+			
+			if (replaced != null) {
+				logger.log(Level.WARNING, "+++ Outbound queue to MMT is full. Discarding {0}, superseded by {1}", new Object[] {replaced.description, message.description});
+			}
+			else {
+				logger.log(Level.WARNING, "+++ Outbound queue to MMT is full. Holding {0} ({1} held)", new Object[] {message.description, overflow.size()});
+			}
 		}
+	}
+	
+	/**
+	 * Waits for the next message to be sent, moving the held messages to the outbound
+	 * queue as it gets room. The sender never waits while messages are held, since they
+	 * are only held while the queue is full.
+	 * 
+	 * @return							The next message
+	 * @throws InterruptedException		If the sender thread is interrupted
+	 */
+	private OutboundMessage takeNext() throws InterruptedException {
+		OutboundMessage message = outboundQueue.take();
 		
-		setInUse(true);
-		setSuccessful(false);
-		while(!isSuccessful()) {
-			try {
-				logger.log(Level.INFO, "--- Connecting to {0} ({1})", new Object[] {mmtServerAddress, mmtServerPort});			
-				logger.log(Level.INFO, "--- Sending error report to MMT ({0},\"{1}\")...", new Object[] {errorId, errorMessage});
-
-				TTransport transport;
-
-				transport = new TSocket(mmtServerAddress, mmtServerPort);
-
-				transport.open();
-
-				TProtocol protocol = new TBinaryProtocol(transport);
-				MmtService.Client client = new MmtService.Client(protocol);
-
-				performSendError(client, errorId, errorMessage);
-
-				logger.log(Level.INFO, "--- Error report {0} to MMT sent", new Object[] {errorId});
-
-				transport.close();
-				setSuccessful(true);
+		synchronized (overflow) {
+			for (Iterator<OutboundMessage> iterator = overflow.values().iterator(); iterator.hasNext(); ) {
+				if (!outboundQueue.offer(iterator.next())) {
+					break;
+				}
+				iterator.remove();
 			}
-			catch (TException e) {
-				logger.log(Level.INFO, "--- MMT connection is busy now. Will try to send error report {0} again in {1} seconds", new Object[] {errorId, TRYOUT_DELAY/1000});
-				try {
-					Thread.sleep(TRYOUT_DELAY);
-				} catch (InterruptedException e1) { }
-			}		
 		}
-		setInUse(false);
+		return message;
 	}
 	
-	public void sendUpdatedStatusNotification() {
-		if (isInUse()) {
-			logger.log(Level.INFO, "--- Client to MMT is being used by method: {0}. Awaiting for it to finish", getMethodUsed());
-			while(isInUse());
+	/**
+	 * Removes the oldest discardable message from the outbound queue.
+	 * 
+	 * @return The removed message, or null if there are no discardable messages
+	 */
+	private OutboundMessage discardOldest() {
+		for (Iterator<OutboundMessage> iterator = outboundQueue.iterator(); iterator.hasNext(); ) {
+			OutboundMessage queued = iterator.next();
+			
+			if (queued.discardable) {
+				iterator.remove();
+				return queued;
+			}
 		}
+		return null;
+	}
+	
+	/**
+	 * Sender thread loop. Each message is retried until it is sent, reconnecting
+	 * with an exponential backoff while the MMT is not reachable. A message failing
+	 * for any other reason (e.g. rejected by the MMT) is given up after a few attempts,
+	 * so it does not hold back the messages behind it.
+	 */
+	private void processOutboundQueue() {
+		long reconnectDelay = MessagesCONSTANTS.MMT_RECONNECT_MIN_DELAY;
 		
-		setInUse(true);
-		setSuccessful(false);
-		while(!isSuccessful()) {
+		while (true) {
+			OutboundMessage message;
 			try {
-				logger.log(Level.INFO, "--- Connecting to {0} ({1})", new Object[] {mmtServerAddress, mmtServerPort});			
-				logger.log(Level.INFO, "--- Sending updated status notification...");
-
-				TTransport transport;
-
-				transport = new TSocket(mmtServerAddress, mmtServerPort);
-
-				transport.open();
-
-				TProtocol protocol = new TBinaryProtocol(transport);
-				MmtService.Client client = new MmtService.Client(protocol);
-
-				performSendUpdatedStatusNotification(client);
-
-				logger.log(Level.INFO, "--- Updated status notification to MMT sent");
-
-				transport.close();
-				setSuccessful(true);
+				message = takeNext();
+			} catch (InterruptedException e) {
+				logger.warning("+++ Sender thread to MMT interrupted");
+				closeConnection();
+				return;
 			}
-			catch (TException e) {
-				logger.log(Level.INFO, "--- MMT connection is busy now. Will try to send status notification again in {0} seconds", TRYOUT_DELAY/1000);
+
+			boolean sent = false;
+			int failedAttempts = 0;
+			while (!sent) {
+				long start = System.nanoTime();
+				long retryDelay;
+				try {
+					logger.log(Level.INFO, "--- Sending {0} to MMT...", message.description);
+					message.send(getClient());
+					MetricsRegistry.getInstance().recordSince("mmt.send", start);
+					logger.log(Level.INFO, "--- {0} to MMT sent", message.description);
+					sent = true;
+					reconnectDelay = MessagesCONSTANTS.MMT_RECONNECT_MIN_DELAY;
+					continue;
+				}
+				catch (TTransportException e) {
+					MetricsRegistry.getInstance().recordSince("mmt.send", start);
+					MetricsRegistry.getInstance().increment("mmt.send.failures");
+					closeConnection();
+					logger.log(Level.INFO, "--- MMT connection is not available now. Will try to send {0} again in {1} ms", new Object[] {message.description, reconnectDelay});
+					retryDelay = reconnectDelay;
+					reconnectDelay = Math.min(reconnectDelay * 2, MessagesCONSTANTS.MMT_RECONNECT_MAX_DELAY);
+				}
+				catch (TException e) {
+					retryDelay = handleSendFailure(message, e, start, ++failedAttempts);
+				}
+				catch (RuntimeException e) {
+					retryDelay = handleSendFailure(message, e, start, ++failedAttempts);
+				}
+				
+				if (failedAttempts >= MessagesCONSTANTS.MMT_SEND_MAX_ATTEMPTS) {
+					logger.log(Level.SEVERE, "!!! Giving up sending {0} to MMT after {1} attempts", new Object[] {message.description, failedAttempts});
+					MetricsRegistry.getInstance().increment("mmt.send.abandoned");
+					break;
+				}
+				
 				try {
-					Thread.sleep(TRYOUT_DELAY);
-				} catch (InterruptedException e1) { }
-			}		
+					Thread.sleep(retryDelay);
+				} catch (InterruptedException e1) {
+					logger.warning("+++ Sender thread to MMT interrupted");
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Records a failure to send a message other than the MMT not being reachable. The
+	 * connection is closed, since its state is unknown after the failure.
+	 * 
+	 * @param message			The message
+	 * @param e					The failure
+	 * @param start				Start of the attempt, as given by System.nanoTime()
+	 * @param failedAttempts	Number of failed attempts to send the message so far
+	 * @return					Time to wait before the next attempt, in milliseconds
+	 */
+	private long handleSendFailure(OutboundMessage message, Exception e, long start, int failedAttempts) {
+		MetricsRegistry.getInstance().recordSince("mmt.send", start);
+		MetricsRegistry.getInstance().increment("mmt.send.failures");
+		closeConnection();
+		logger.log(Level.WARNING, "+++ Failed to send {0} to MMT (attempt {1}): {2}", new Object[] {message.description, failedAttempts, e});
+		return MessagesCONSTANTS.MMT_RECONNECT_MIN_DELAY;
+	}
+	
+	/**
+	 * Gets the client for the persistent connection to the MMT, opening it if needed.
+	 * 
+	 * @return					The client to the MMT
+	 * @throws TException		If the connection cannot be opened
+	 */
+	private MmtService.Client getClient() throws TException {
+		if (reconnectRequired) {
+			reconnectRequired = false;
+			closeConnection();
 		}
-		setInUse(false);
+		
+		if ((client == null) || !transport.isOpen()) {
+			closeConnection();
+			logger.log(Level.INFO, "--- Connecting to {0} ({1})", new Object[] {mmtServerAddress, mmtServerPort});
+			
+			TTransport newTransport = new TSocket(mmtServerAddress, mmtServerPort, socketTimeout);
+			newTransport.open();
+			
+			TProtocol protocol = new TBinaryProtocol(newTransport);
+			transport = newTransport;
+			client = new MmtService.Client(protocol);
+		}
+		
+		return client;
+	}
+	
+	private void closeConnection() {
+		if (transport != null) {
+			transport.close();
+		}
+		transport = null;
+		client = null;
 	}
 
 	/**
@@ -308,4 +498,26 @@ public class ThriftClientToMMT {
 	private void performSendUpdatedStatusNotification(Client client) throws TException {
 		client.sendUpdatedStatusNotification();
 	}
-}
+	
+	/**
+	 * Message waiting in the outbound queue to be sent to the MMT.
+	 */
+	private static abstract class OutboundMessage {
+		final String description;
+		final String key;
+		final boolean discardable;
+		
+		/**
+		 * @param description		Description of the message, for the logs
+		 * @param key				Key of the message while held, superseding the held message with the same key, or null if none supersedes it
+		 * @param discardable		True if the message can be discarded when the outbound queue is full
+		 */
+		OutboundMessage(String description, String key, boolean discardable) {
+			this.description = description;
+			this.key = key;
+			this.discardable = discardable;
+		}
+		
+		abstract void send(MmtService.Client client) throws TException;
+	}
+}
\ No newline at end of file
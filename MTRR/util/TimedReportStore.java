@@ -0,0 +1,201 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.List;
+
+import org.apache.thrift.TException;
+
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.Vehicle;
+
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+
+/**
+ * Report store decorator measuring the latency of each call to the wrapped store.
+ * 
+ * The latencies are recorded in the metrics registry under the given prefix followed
+ * by the method name, and the calls throwing an exception are counted as failures.
+ *
+ */
+public class TimedReportStore implements ReportStore {
+	private final ReportStore store;
+	private final LatencyHistogram storeStateVectorInDB;
+	private final LatencyHistogram storeStateVector;
+	private final LatencyHistogram storeStateVectors;
+	private final LatencyHistogram storeSalinity;
+	private final LatencyHistogram storeTaskReport;
+	private final LatencyHistogram storeEvent;
+	private final LatencyHistogram storeRefCoords;
+	private final LatencyHistogram storeMission;
+	private final LatencyHistogram storeAssignedVehicles;
+	private final String failuresCounter;
+	
+	public TimedReportStore(ReportStore store, String prefix) {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		
+		this.store = store;
+		storeStateVectorInDB = metrics.getTimer(prefix + ".storeStateVectorInDB");
+		storeStateVector = metrics.getTimer(prefix + ".storeStateVector");
+		storeStateVectors = metrics.getTimer(prefix + ".storeStateVectors");
+		storeSalinity = metrics.getTimer(prefix + ".storeSalinity");
+		storeTaskReport = metrics.getTimer(prefix + ".storeTaskReport");
+		storeEvent = metrics.getTimer(prefix + ".storeEvent");
+		storeRefCoords = metrics.getTimer(prefix + ".storeRefCoords");
+		storeMission = metrics.getTimer(prefix + ".storeMission");
+		storeAssignedVehicles = metrics.getTimer(prefix + ".storeAssignedVehicles");
+		failuresCounter = prefix + ".failures";
+	}
+
+	@Override
+	public void storeStateVectorInDB(int missionId, byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems, int result) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeStateVectorInDB(missionId, vehicleId, latitude, longitude, altitude, depth, 
+					pitch, roll, yaw, speed, remainingBattery, timems, result);
+			failed = false;
+		} finally {
+			finished(storeStateVectorInDB, start, failed);
+		}
+	}
+
+	@Override
+	public void storeStateVector(byte vehicleId, double latitude, double longitude, double altitude, double depth,
+			double pitch, double roll, double yaw, double speed, double remainingBattery, long timems) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeStateVector(vehicleId, latitude, longitude, altitude, depth, 
+					pitch, roll, yaw, speed, remainingBattery, timems);
+			failed = false;
+		} finally {
+			finished(storeStateVector, start, failed);
+		}
+	}
+
+	@Override
+	public void storeStateVectors(int missionId, List<ProcessedEnvironmentalData> stateVectors) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeStateVectors(missionId, stateVectors);
+			failed = false;
+		} finally {
+			finished(storeStateVectors, start, failed);
+		}
+	}
+
+	@Override
+	public void storeSalinity(int missionId, byte vehicleId, double latitude, double longitude, double depth, double altitude,
+			double concentration, long timems) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeSalinity(missionId, vehicleId, latitude, longitude, depth, altitude, concentration, timems);
+			failed = false;
+		} finally {
+			finished(storeSalinity, start, failed);
+		}
+	}
+
+	@Override
+	public void storeTaskReport(byte vehicleId, int missionId, byte subtype, int sequenceOperation, int status, long epochTime) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeTaskReport(vehicleId, missionId, subtype, sequenceOperation, status, epochTime);
+			failed = false;
+		} finally {
+			finished(storeTaskReport, start, failed);
+		}
+	}
+
+	@Override
+	public void storeEvent(byte vehicleId, int missionId, byte subtype, byte sequenceOperation, long epochTime, int errorId,
+			String description, int eventId) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeEvent(vehicleId, missionId, subtype, sequenceOperation, epochTime, errorId, description, eventId);
+			failed = false;
+		} finally {
+			finished(storeEvent, start, failed);
+		}
+	}
+
+	@Override
+	public void storeRefCoords(int missionId, double latitude, double longitude) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeRefCoords(missionId, latitude, longitude);
+			failed = false;
+		} finally {
+			finished(storeRefCoords, start, failed);
+		}
+	}
+
+	@Override
+	public void storeMission(Mission mission) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeMission(mission);
+			failed = false;
+		} finally {
+			finished(storeMission, start, failed);
+		}
+	}
+
+	@Override
+	public void storeAssignedVehicles(int missionId, List<Vehicle> vehicles) throws TException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		
+		try {
+			store.storeAssignedVehicles(missionId, vehicles);
+			failed = false;
+		} finally {
+			finished(storeAssignedVehicles, start, failed);
+		}
+	}
+	
+	private void finished(LatencyHistogram timer, long start, boolean failed) {
+		timer.recordSince(start);
+		if (failed) {
+			MetricsRegistry.getInstance().increment(failuresCounter);
+		}
+	}
+}
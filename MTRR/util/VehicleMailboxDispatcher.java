@@ -0,0 +1,267 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dispatches the reports received from the vehicles to a pool of worker threads,
+ * using one ordered mailbox per vehicle.
+ * 
+ * Reports from the same vehicle are handled one at a time in arrival order, while
+ * reports from different vehicles are handled in parallel. A mailbox is drained by
+ * at most one worker at a time, and gives the worker back after a batch of reports
+ * so a busy vehicle can not monopolize the pool.
+ * 
+ * Mailboxes are bounded: when a mailbox is full the delivering thread waits for room.
+ * Only the droppable reports (the periodic state vectors) are dropped, once they have
+ * waited for the offer timeout, as losing any other report (e.g. a COMPLETED task
+ * report) could stall the vehicle.
+ *
+ */
+public class VehicleMailboxDispatcher {
+	private static final int DRAIN_BATCH_SIZE = 16;
+	
+	private final int capacity;
+	private final long offerTimeout;
+	private final ExecutorService workers;
+	private final Logger logger;
+	private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<Integer, Mailbox>();
+	
+	private final AtomicLong dispatched = new AtomicLong();
+	private final AtomicLong processed = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	
+	/**
+	 * @param workerThreads		Number of worker threads draining the mailboxes
+	 * @param capacity			Maximum number of pending reports per vehicle
+	 * @param offerTimeout		Maximum time a droppable report waits for room in a full mailbox, in milliseconds
+	 * @param logger			Logger for the reports failing to be handled
+	 */
+	public VehicleMailboxDispatcher(int workerThreads, int capacity, long offerTimeout, Logger logger) {
+		this.capacity = capacity;
+		this.offerTimeout = offerTimeout;
+		this.logger = logger;
+		this.workers = Executors.newFixedThreadPool(workerThreads, new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+			
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "VehicleMailbox-worker-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Queues a report in the mailbox of the given vehicle.
+	 * 
+	 * @param vehicleId		The vehicle the report comes from
+	 * @param reportType	The type of the report, for the logs
+	 * @param droppable		True if the report can be dropped when the mailbox is full, false to wait for room
+	 * @param report		The handling of the report
+	 * @return				False if the mailbox was full and the report was dropped
+	 * @throws InterruptedException
+	 */
+	public boolean dispatch(int vehicleId, String reportType, boolean droppable, Runnable report) throws InterruptedException {
+		Mailbox mailbox = mailboxes.get(vehicleId);
+		
+		if (mailbox == null) {
+			Mailbox newMailbox = new Mailbox(vehicleId);
+			mailbox = mailboxes.putIfAbsent(vehicleId, newMailbox);
+			
+			if (mailbox == null) {
+				mailbox = newMailbox;
+			}
+		}
+		
+		if (!droppable) {
+			mailbox.room.acquire();
+		}
+		else if (!mailbox.room.tryAcquire(offerTimeout, TimeUnit.MILLISECONDS)) {
+			mailbox.dropped.incrementAndGet();
+			dropped.incrementAndGet();
+			return false;
+		}
+		
+		mailbox.reports.offer(new Report(reportType, report));
+		mailbox.updateMaxDepth();
+		dispatched.incrementAndGet();
+		
+		if (mailbox.scheduled.compareAndSet(false, true)) {
+			workers.execute(mailbox);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Stops the worker threads once the pending reports have been handled.
+	 */
+	public void shutdown() {
+		workers.shutdown();
+	}
+	
+	/**
+	 * Gets the number of pending reports for each vehicle.
+	 * 
+	 * @return The pending reports, by vehicle ID
+	 */
+	public Map<Integer, Integer> getQueueDepths() {
+		HashMap<Integer, Integer> depths = new HashMap<Integer, Integer>();
+		
+		for (Mailbox mailbox : mailboxes.values()) {
+			depths.put(mailbox.vehicleId, mailbox.getDepth());
+		}
+		
+		return depths;
+	}
+	
+	/**
+	 * Gets the number of pending reports for the given vehicle.
+	 * 
+	 * @param vehicleId		The vehicle ID
+	 * @return				The number of pending reports
+	 */
+	public int getQueueDepth(int vehicleId) {
+		Mailbox mailbox = mailboxes.get(vehicleId);
+		return (mailbox == null) ? 0 : mailbox.getDepth();
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public long getDispatched() {
+		return dispatched.get();
+	}
+	
+	public long getProcessed() {
+		return processed.get();
+	}
+	
+	public long getDropped() {
+		return dropped.get();
+	}
+	
+	public long getFailed() {
+		return failed.get();
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder summary = new StringBuilder();
+		summary.append("dispatched=").append(dispatched.get())
+			.append(" processed=").append(processed.get())
+			.append(" dropped=").append(dropped.get())
+			.append(" failed=").append(failed.get());
+		
+		for (Mailbox mailbox : mailboxes.values()) {
+			summary.append(" | vehicle ").append(mailbox.vehicleId)
+				.append(": depth=").append(mailbox.getDepth())
+				.append(" max=").append(mailbox.maxDepth.get())
+				.append(" dropped=").append(mailbox.dropped.get());
+		}
+		
+		return summary.toString();
+	}
+	
+	private class Mailbox implements Runnable {
+		private final int vehicleId;
+		private final ConcurrentLinkedQueue<Report> reports = new ConcurrentLinkedQueue<Report>();
+		private final Semaphore room = new Semaphore(capacity);
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		private final AtomicInteger maxDepth = new AtomicInteger();
+		private final AtomicLong dropped = new AtomicLong();
+		
+		private Mailbox(int vehicleId) {
+			this.vehicleId = vehicleId;
+		}
+		
+		private int getDepth() {
+			return capacity - room.availablePermits();
+		}
+		
+		private void updateMaxDepth() {
+			int depth = getDepth();
+			int max = maxDepth.get();
+			
+			while ((depth > max) && !maxDepth.compareAndSet(max, depth)) {
+				max = maxDepth.get();
+			}
+		}
+		
+		public void run() {
+			for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+				Report report = reports.poll();
+				
+				if (report == null) {
+					break;
+				}
+				
+				room.release();
+				
+				try {
+					report.handling.run();
+				} catch (RuntimeException e) {
+					failed.incrementAndGet();
+					logger.log(Level.SEVERE, "!!! Exception while handling a {0} report for vehicle {1}: {2}", new Object[] {report.type, vehicleId, e});
+				}
+				processed.incrementAndGet();
+			}
+			
+			// Give the worker back, and reschedule if there are reports left
+			scheduled.set(false);
+			
+			if (!reports.isEmpty() && scheduled.compareAndSet(false, true)) {
+				workers.execute(this);
+			}
+		}
+	}
+	
+	private static class Report {
+		private final String type;
+		private final Runnable handling;
+		
+		private Report(String type, Runnable handling) {
+			this.type = type;
+			this.handling = handling;
+		}
+	}
+}
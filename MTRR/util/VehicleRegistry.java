@@ -0,0 +1,228 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.swarms.thrift.Vehicle;
+
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+
+/**
+ * MTRR side cache of the vehicles registered in the ontology, together with the
+ * latest state vector received from each of them.
+ * 
+ * Reads never lock: single vehicles are kept in a concurrent map, and the list of
+ * all the vehicles is an immutable snapshot replaced as a whole (copy on write).
+ * Cached entries expire after the time to live, and can be invalidated explicitly.
+ *
+ */
+public class VehicleRegistry {
+	
+	/**
+	 * Source of the vehicles metadata, used on cache misses.
+	 */
+	public interface VehicleSource {
+		public Vehicle getVehicle(int vehicleId);
+		
+		public List<Vehicle> getAllVehicles();
+	}
+	
+	private final VehicleSource source;
+	private volatile long ttl;
+	private final ConcurrentHashMap<Integer, CachedVehicle> vehicles = new ConcurrentHashMap<Integer, CachedVehicle>();
+	private final ConcurrentHashMap<Integer, ProcessedEnvironmentalData> latestStateVectors = new ConcurrentHashMap<Integer, ProcessedEnvironmentalData>();
+	private volatile VehicleList allVehicles = null;
+	
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	
+	/**
+	 * @param source		Source of the vehicles metadata
+	 * @param ttl			Time to live of the cached vehicles, in milliseconds. With 0 or less, they never expire.
+	 */
+	public VehicleRegistry(VehicleSource source, long ttl) {
+		this.source = source;
+		this.ttl = ttl;
+	}
+	
+	/**
+	 * Gets a vehicle, asking the source only if it is not cached or has expired.
+	 * 
+	 * @param vehicleId		The vehicle ID
+	 * @return				The vehicle, or null if the source does not know it
+	 */
+	public Vehicle getVehicle(int vehicleId) {
+		CachedVehicle cached = vehicles.get(vehicleId);
+		
+		if ((cached != null) && !isExpired(cached.loadedAt)) {
+			hits.incrementAndGet();
+			return cached.vehicle;
+		}
+		
+		misses.incrementAndGet();
+		Vehicle vehicle = source.getVehicle(vehicleId);
+		
+		if (vehicle != null) {
+			vehicles.put(vehicleId, new CachedVehicle(vehicle, System.currentTimeMillis()));
+		}
+		
+		return vehicle;
+	}
+	
+	/**
+	 * Gets all the vehicles, asking the source only if the list is not cached or has expired.
+	 * 
+	 * @return An unmodifiable list with all the vehicles
+	 */
+	public List<Vehicle> getAllVehicles() {
+		VehicleList cached = allVehicles;
+		
+		if ((cached != null) && !isExpired(cached.loadedAt)) {
+			hits.incrementAndGet();
+			return cached.vehicles;
+		}
+		
+		misses.incrementAndGet();
+		List<Vehicle> loaded = source.getAllVehicles();
+		long now = System.currentTimeMillis();
+		
+		if (loaded == null) {
+			return Collections.<Vehicle>emptyList();
+		}
+		
+		cached = new VehicleList(Collections.unmodifiableList(new ArrayList<Vehicle>(loaded)), now);
+		allVehicles = cached;
+		
+		for (Vehicle vehicle : cached.vehicles) {
+			vehicles.put(vehicle.getId(), new CachedVehicle(vehicle, now));
+		}
+		
+		return cached.vehicles;
+	}
+	
+	/**
+	 * Keeps the given state vector if it is the latest one received from its vehicle.
+	 * 
+	 * @param data		The received state vector
+	 */
+	public void updateStateVector(ProcessedEnvironmentalData data) {
+		int vehicleId = data.getVid();
+		
+		while (true) {
+			ProcessedEnvironmentalData latest = latestStateVectors.get(vehicleId);
+			
+			if (latest == null) {
+				if (latestStateVectors.putIfAbsent(vehicleId, data) == null) {
+					return;
+				}
+			}
+			else if (data.getTimems() < latest.getTimems()) {
+				return;
+			}
+			else if (latestStateVectors.replace(vehicleId, latest, data)) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the latest state vector received from a vehicle.
+	 * 
+	 * @param vehicleId		The vehicle ID
+	 * @return				The latest state vector, or null if none has been received
+	 */
+	public ProcessedEnvironmentalData getLatestStateVector(int vehicleId) {
+		return latestStateVectors.get(vehicleId);
+	}
+	
+	/**
+	 * Removes a vehicle from the cache, so it is read again from the source on next use.
+	 * 
+	 * @param vehicleId		The vehicle ID
+	 */
+	public void invalidate(int vehicleId) {
+		vehicles.remove(vehicleId);
+		allVehicles = null;
+	}
+	
+	/**
+	 * Removes all the vehicles from the cache. The latest state vectors are kept.
+	 */
+	public void invalidateAll() {
+		vehicles.clear();
+		allVehicles = null;
+	}
+	
+	public void setTtl(long ttl) {
+		this.ttl = ttl;
+	}
+	
+	public long getTtl() {
+		return ttl;
+	}
+	
+	public long getHits() {
+		return hits.get();
+	}
+	
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "vehicles=" + vehicles.size() + " stateVectors=" + latestStateVectors.size() + " hits=" + hits.get() + " misses=" + misses.get();
+	}
+	
+	private boolean isExpired(long loadedAt) {
+		long currentTtl = ttl;
+		return (currentTtl > 0) && (System.currentTimeMillis() - loadedAt > currentTtl);
+	}
+	
+	private static class CachedVehicle {
+		private final Vehicle vehicle;
+		private final long loadedAt;
+		
+		private CachedVehicle(Vehicle vehicle, long loadedAt) {
+			this.vehicle = vehicle;
+			this.loadedAt = loadedAt;
+		}
+	}
+	
+	private static class VehicleList {
+		private final List<Vehicle> vehicles;
+		private final long loadedAt;
+		
+		private VehicleList(List<Vehicle> vehicles, long loadedAt) {
+			this.vehicles = vehicles;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
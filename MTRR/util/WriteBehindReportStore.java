@@ -0,0 +1,317 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.MTRR.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.thrift.TException;
+
+import com.swarms.thrift.Mission;
+import com.swarms.thrift.Vehicle;
+
+import swarms.environment_reporter.ProcessedEnvironmentalData;
+
+/**
+ * Write-behind stage in front of a report store.
+ * 
+ * Store operations are queued and return immediately, and a writer thread applies
+ * them to the target store in order, in batches. A batch is flushed when it reaches
+ * the batch size, or when the flush interval has elapsed since its first write.
+ * 
+ * Durability: queued writes are never dropped. When the queue is full the caller
+ * waits for room, so the database still paces the ingestion under sustained load.
+ * Writes still queued are lost if the process dies; use {@link #flush(long)} to wait
+ * until everything queued so far has been written.
+ *
+ */
+public class WriteBehindReportStore implements ReportStore {
+	private final ReportStore target;
+	private final int batchSize;
+	private final long flushInterval;
+	private final Logger logger;
+	private final BlockingQueue<PendingWrite> queue;
+	private final Thread writer;
+	private volatile boolean running = true;
+	
+	private final AtomicLong queuedWrites = new AtomicLong();
+	private final AtomicLong appliedWrites = new AtomicLong();
+	private final AtomicLong failedWrites = new AtomicLong();
+	private final AtomicLong flushedBatches = new AtomicLong();
+	
+	/**
+	 * @param target			The store the writes are applied to
+	 * @param queueSize			Maximum number of queued writes
+	 * @param batchSize			Maximum number of writes per batch
+	 * @param flushInterval		Maximum time a write waits for its batch to fill, in milliseconds
+	 * @param logger			Logger for the failed writes
+	 */
+	public WriteBehindReportStore(ReportStore target, int queueSize, int batchSize, long flushInterval, Logger logger) {
+		this.target = target;
+		this.batchSize = Math.max(1, batchSize);
+		this.flushInterval = flushInterval;
+		this.logger = logger;
+		this.queue = new LinkedBlockingQueue<PendingWrite>(queueSize);
+		
+		writer = new Thread(new Runnable() {
+			public void run() {
+				processQueue();
+			}
+		}, "WriteBehindReportStore-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public void storeStateVectorInDB(final int missionId, final byte vehicleId, final double latitude, final double longitude, final double altitude, final double depth,
+			final double pitch, final double roll, final double yaw, final double speed, final double remainingBattery, final long timems, final int result) throws TException {
+		enqueue(new PendingWrite("state vector in DB", vehicleId) {
+			void apply(ReportStore store) throws TException {
+				store.storeStateVectorInDB(missionId, vehicleId, latitude, longitude, altitude, depth, pitch, roll, yaw, speed, remainingBattery, timems, result);
+			}
+		});
+	}
+
+	@Override
+	public void storeStateVector(final byte vehicleId, final double latitude, final double longitude, final double altitude, final double depth,
+			final double pitch, final double roll, final double yaw, final double speed, final double remainingBattery, final long timems) throws TException {
+		enqueue(new PendingWrite("state vector", vehicleId) {
+			void apply(ReportStore store) throws TException {
+				store.storeStateVector(vehicleId, latitude, longitude, altitude, depth, pitch, roll, yaw, speed, remainingBattery, timems);
+			}
+		});
+	}
+
+	@Override
+	public void storeStateVectors(final int missionId, List<ProcessedEnvironmentalData> stateVectors) throws TException {
+		final List<ProcessedEnvironmentalData> batch = new ArrayList<ProcessedEnvironmentalData>(stateVectors);
+		
+		enqueue(new PendingWrite("state vectors batch", (byte) 0) {
+			void apply(ReportStore store) throws TException {
+				store.storeStateVectors(missionId, batch);
+			}
+		});
+	}
+
+	@Override
+	public void storeSalinity(final int missionId, final byte vehicleId, final double latitude, final double longitude, final double depth, final double altitude,
+			final double concentration, final long timems) throws TException {
+		enqueue(new PendingWrite("salinity", vehicleId) {
+			void apply(ReportStore store) throws TException {
+				store.storeSalinity(missionId, vehicleId, latitude, longitude, depth, altitude, concentration, timems);
+			}
+		});
+	}
+
+	@Override
+	public void storeTaskReport(final byte vehicleId, final int missionId, final byte subtype, final int sequenceOperation, final int status, final long epochTime) throws TException {
+		enqueue(new PendingWrite("task report", vehicleId) {
+			void apply(ReportStore store) throws TException {
+				store.storeTaskReport(vehicleId, missionId, subtype, sequenceOperation, status, epochTime);
+			}
+		});
+	}
+
+	@Override
+	public void storeEvent(final byte vehicleId, final int missionId, final byte subtype, final byte sequenceOperation, final long epochTime, final int errorId,
+			final String description, final int eventId) throws TException {
+		enqueue(new PendingWrite("event", vehicleId) {
+			void apply(ReportStore store) throws TException {
+				store.storeEvent(vehicleId, missionId, subtype, sequenceOperation, epochTime, errorId, description, eventId);
+			}
+		});
+	}
+
+	@Override
+	public void storeRefCoords(final int missionId, final double latitude, final double longitude) throws TException {
+		enqueue(new PendingWrite("reference coordinates", (byte) 0) {
+			void apply(ReportStore store) throws TException {
+				store.storeRefCoords(missionId, latitude, longitude);
+			}
+		});
+	}
+
+	@Override
+	public void storeMission(Mission mission) throws TException {
+		final Mission copy = mission.deepCopy();
+		
+		enqueue(new PendingWrite("mission", (byte) 0) {
+			void apply(ReportStore store) throws TException {
+				store.storeMission(copy);
+			}
+		});
+	}
+
+	@Override
+	public void storeAssignedVehicles(final int missionId, List<Vehicle> vehicles) throws TException {
+		final List<Vehicle> assignedVehicles = new ArrayList<Vehicle>(vehicles);
+		
+		enqueue(new PendingWrite("assigned vehicles", (byte) 0) {
+			void apply(ReportStore store) throws TException {
+				store.storeAssignedVehicles(missionId, assignedVehicles);
+			}
+		});
+	}
+	
+	/**
+	 * Waits until all the writes queued before the call have been applied.
+	 * 
+	 * @param timeout		Maximum time to wait, in milliseconds
+	 * @return				True if all the writes were applied before the timeout
+	 * @throws InterruptedException
+	 */
+	public boolean flush(long timeout) throws InterruptedException {
+		FlushMarker marker = new FlushMarker();
+		
+		if (!queue.offer(marker, timeout, TimeUnit.MILLISECONDS)) {
+			return false;
+		}
+		
+		return marker.flushed.await(timeout, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops the writer thread after applying the writes already queued.
+	 * 
+	 * @param timeout		Maximum time to wait for the pending writes, in milliseconds
+	 * @throws InterruptedException
+	 */
+	public void shutdown(long timeout) throws InterruptedException {
+		flush(timeout);
+		running = false;
+		writer.interrupt();
+	}
+	
+	public int getPendingWrites() {
+		return queue.size();
+	}
+	
+	public long getQueuedWrites() {
+		return queuedWrites.get();
+	}
+	
+	public long getAppliedWrites() {
+		return appliedWrites.get();
+	}
+	
+	public long getFailedWrites() {
+		return failedWrites.get();
+	}
+	
+	public long getFlushedBatches() {
+		return flushedBatches.get();
+	}
+	
+	private void enqueue(PendingWrite write) throws TException {
+		try {
+			queue.put(write);
+			queuedWrites.incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TException("Interrupted while queueing the " + write.description + " write for vehicle " + write.vehicleId);
+		}
+	}
+	
+	private void processQueue() {
+		List<PendingWrite> batch = new ArrayList<PendingWrite>(batchSize);
+		
+		while (running) {
+			try {
+				batch.add(queue.take());
+				
+				// Fill the batch until it is full or the flush interval expires
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+				while (batch.size() < batchSize) {
+					queue.drainTo(batch, batchSize - batch.size());
+					long remaining = deadline - System.nanoTime();
+					
+					if ((batch.size() >= batchSize) || (remaining <= 0)) {
+						break;
+					}
+					
+					PendingWrite write = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (write == null) {
+						break;
+					}
+					batch.add(write);
+				}
+			} catch (InterruptedException e) {
+				if (!running) {
+					break;
+				}
+			}
+			
+			for (PendingWrite write : batch) {
+				if (write instanceof FlushMarker) {
+					((FlushMarker) write).flushed.countDown();
+					continue;
+				}
+				
+				try {
+					write.apply(target);
+					appliedWrites.incrementAndGet();
+				} catch (Exception e) {
+					failedWrites.incrementAndGet();
+					logger.log(Level.WARNING, "+++ Write-behind store failed to store {0} for vehicle {1}: {2}", new Object[] {write.description, write.vehicleId, e.getMessage()});
+				}
+			}
+			
+			if (!batch.isEmpty()) {
+				flushedBatches.incrementAndGet();
+				batch.clear();
+			}
+		}
+	}
+	
+	private abstract static class PendingWrite {
+		private final String description;
+		private final byte vehicleId;
+		
+		PendingWrite(String description, byte vehicleId) {
+			this.description = description;
+			this.vehicleId = vehicleId;
+		}
+		
+		abstract void apply(ReportStore store) throws TException;
+	}
+	
+	private static class FlushMarker extends PendingWrite {
+		private final CountDownLatch flushed = new CountDownLatch(1);
+		
+		FlushMarker() {
+			super("flush marker", (byte) 0);
+		}
+		
+		void apply(ReportStore store) {
+		}
+	}
+}
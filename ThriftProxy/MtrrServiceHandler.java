@@ -29,6 +29,7 @@ import java.io.ObjectOutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import org.apache.thrift.TException;
@@ -42,6 +43,9 @@ import swarms.MTRR.MTRR;
 public class MtrrServiceHandler implements MtrrService.Iface {
 
     private Logger logger;
+    
+    // Tells apart the plans stored within the same millisecond
+    private final AtomicInteger storedPlans = new AtomicInteger();
 
     public void setLogger(Logger logger) {
         this.logger = logger;
@@ -51,13 +55,8 @@ public class MtrrServiceHandler implements MtrrService.Iface {
     public void requestUpdateStatus() throws TException {
         try {
             logger.info("[MtrrService] >>> Received new requestUpdatedStatus request");
-            // Just a try for checking the release of the Thrift connection
-            (new Thread() {
-            	public void run() {
-                    MTRR.getInstance().requestUpdatedStatus();            		
-            	}
-            }).start();
-//            MTRR.getInstance().requestUpdatedStatus();
+            // Returns right away, releasing the Thrift connection while the update runs
+            MTRR.getInstance().requestUpdatedStatusAsync();
         } catch (Exception e) {
             logger.log(Level.WARNING, "### Exception requesting updated status to the MTRR {0}", e.getMessage());
             e.printStackTrace();
@@ -70,8 +69,8 @@ public class MtrrServiceHandler implements MtrrService.Iface {
         try {
             logger.info("[MtrrService] >>> Received new mission plan");
             Date date = Calendar.getInstance().getTime();
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd-hhmmss");
-            FileOutputStream fos = new FileOutputStream("StoredMission-" + sdf.format(date));
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS");
+            FileOutputStream fos = new FileOutputStream("StoredMission-" + plan.getMissionId() + "-" + sdf.format(date) + "-" + storedPlans.incrementAndGet());
             ObjectOutputStream oos = new ObjectOutputStream(fos);
 
             oos.writeObject(plan);
@@ -100,13 +99,13 @@ public class MtrrServiceHandler implements MtrrService.Iface {
     @Override
     public String abortVehiclePlanHard(int vehicleId) {
         logger.log(Level.INFO, "[MtrrService] >>> Received ABORT VEHICLE PLAN (HARD) for vehicle ID {0}", vehicleId);        
-    	return MTRR.getInstance().abortVehiclePlan(vehicleId);
+    	return MTRR.getInstance().abortVehiclePlanHard(vehicleId);
     }
     
     @Override
     public String abortMissionPlanHard(int missionId) {
         logger.log(Level.INFO, "[MtrrService] >>> Received ABORT MISSION PLAN (HARD) for mission ID {0}", missionId);        
-    	return MTRR.getInstance().abortMissionPlan(missionId);
+    	return MTRR.getInstance().abortMissionPlanHard(missionId);
     }
 
     
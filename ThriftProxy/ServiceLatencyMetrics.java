@@ -0,0 +1,96 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.ThriftProxy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and throughput counters for the calls served by a Thrift service.
+ * 
+ * The counters are lock free so they can be updated concurrently by the server
+ * worker threads.
+ *
+ */
+public class ServiceLatencyMetrics {
+	private final String serviceName;
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicLong inFlight = new AtomicLong();
+	
+	public ServiceLatencyMetrics(String serviceName) {
+		this.serviceName = serviceName;
+	}
+	
+	public void callStarted() {
+		inFlight.incrementAndGet();
+	}
+	
+	public void callFinished(long elapsedNanos, boolean failed) {
+		inFlight.decrementAndGet();
+		calls.incrementAndGet();
+		totalNanos.addAndGet(elapsedNanos);
+		if (failed) {
+			failures.incrementAndGet();
+		}
+		
+		long max = maxNanos.get();
+		while ((elapsedNanos > max) && !maxNanos.compareAndSet(max, elapsedNanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	public String getServiceName() {
+		return serviceName;
+	}
+
+	public long getCalls() {
+		return calls.get();
+	}
+
+	public long getFailures() {
+		return failures.get();
+	}
+
+	public long getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public long getMeanNanos() {
+		long count = calls.get();
+		return (count == 0) ? 0 : totalNanos.get() / count;
+	}
+	
+	@Override
+	public String toString() {
+		return serviceName + ": calls=" + getCalls() + ", failures=" + getFailures() + ", inFlight=" + getInFlight()
+				+ ", mean=" + (getMeanNanos() / 1000) + "us, max=" + (getMaxNanos() / 1000) + "us";
+	}
+}
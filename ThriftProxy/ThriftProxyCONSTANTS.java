@@ -29,9 +29,28 @@ public class ThriftProxyCONSTANTS {
 	public static String THRIFT_CONFIGURATION_FILENAME = "swarms.properties";
 	
 	public static String THRIFT_PORT_PROPERTY_NAME = "ThriftPort";
+	public static String THRIFT_SERVER_MODE_PROPERTY_NAME = "ThriftServerMode";
+	public static String THRIFT_MIN_WORKER_THREADS_PROPERTY_NAME = "ThriftMinWorkerThreads";
+	public static String THRIFT_MAX_WORKER_THREADS_PROPERTY_NAME = "ThriftMaxWorkerThreads";
+	public static String THRIFT_WORKER_QUEUE_SIZE_PROPERTY_NAME = "ThriftWorkerQueueSize";
+	public static String THRIFT_SELECTOR_THREADS_PROPERTY_NAME = "ThriftSelectorThreads";
+	public static String THRIFT_METRICS_LOG_PERIOD_PROPERTY_NAME = "ThriftMetricsLogPeriod";
+	
+	// Server modes
+	public static String SERVER_MODE_SIMPLE = "simple";
+	public static String SERVER_MODE_THREAD_POOL = "threadpool";
+	public static String SERVER_MODE_NON_BLOCKING = "nonblocking";
+	public static String SERVER_MODE_HSHA = "hsha";
+	public static String SERVER_MODE_THREADED_SELECTOR = "threadedselector";
 
 	public static int DEFAULT_THRIFT_PORT = 9090;
 	public static String DEFAULT_THRIFT_ADDRESS = "localhost";
+	public static String DEFAULT_SERVER_MODE = SERVER_MODE_SIMPLE;
+	public static int DEFAULT_MIN_WORKER_THREADS = 2;
+	public static int DEFAULT_MAX_WORKER_THREADS = 16;
+	public static int DEFAULT_WORKER_QUEUE_SIZE = 64;
+	public static int DEFAULT_SELECTOR_THREADS = 2;
+	public static int DEFAULT_METRICS_LOG_PERIOD = 60;	// seconds, 0 disables the periodic log
 	
 	public static String MTRR_SERVICE_NAME = "MtrrService";
 	public static String SEMANTIC_QUERY_SERVICE_NAME = "SemanticQueryService";
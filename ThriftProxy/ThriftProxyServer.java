@@ -27,15 +27,31 @@ package swarms.ThriftProxy;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 
 import org.apache.thrift.TMultiplexedProcessor;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.server.THsHaServer;
+import org.apache.thrift.server.TNonblockingServer;
 import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TSimpleServer;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.server.TThreadedSelectorServer;
 import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TNonblockingServerSocket;
 import org.apache.thrift.transport.TServerSocket;
 import org.apache.thrift.transport.TServerTransport;
 import org.apache.thrift.transport.TTransportException;
@@ -48,6 +64,14 @@ import java.util.logging.Level;
 public class ThriftProxyServer {
 
     private int thriftPort = ThriftProxyCONSTANTS.DEFAULT_THRIFT_PORT;
+    private String serverMode = ThriftProxyCONSTANTS.DEFAULT_SERVER_MODE;
+    private int minWorkerThreads = ThriftProxyCONSTANTS.DEFAULT_MIN_WORKER_THREADS;
+    private int maxWorkerThreads = ThriftProxyCONSTANTS.DEFAULT_MAX_WORKER_THREADS;
+    private int workerQueueSize = ThriftProxyCONSTANTS.DEFAULT_WORKER_QUEUE_SIZE;
+    private int selectorThreads = ThriftProxyCONSTANTS.DEFAULT_SELECTOR_THREADS;
+    private int metricsLogPeriod = ThriftProxyCONSTANTS.DEFAULT_METRICS_LOG_PERIOD;
+    
+    private List<ServiceLatencyMetrics> serviceMetrics = new ArrayList<ServiceLatencyMetrics>();
 
     private FileHandler fh;
     private Logger logger = Logger.getLogger("MyThriftLog");
@@ -79,6 +103,25 @@ public class ThriftProxyServer {
                 logger.log(Level.INFO, "--- Using default port {0}", thriftPort);
             }
 
+            if (thriftProxyProperties.containsKey(ThriftProxyCONSTANTS.THRIFT_SERVER_MODE_PROPERTY_NAME)) {
+            	propertyValue = thriftProxyProperties.getProperty(ThriftProxyCONSTANTS.THRIFT_SERVER_MODE_PROPERTY_NAME).trim();
+            	serverMode = propertyValue.toLowerCase();
+                logger.log(Level.INFO, "--- Read thrift server mode property as {0}, set to {1}", new Object[] {propertyValue, serverMode});
+            } else {
+                logger.log(Level.INFO, "--- Using default server mode {0}", serverMode);
+            }
+
+            minWorkerThreads = readIntProperty(thriftProxyProperties, ThriftProxyCONSTANTS.THRIFT_MIN_WORKER_THREADS_PROPERTY_NAME, minWorkerThreads);
+            maxWorkerThreads = readIntProperty(thriftProxyProperties, ThriftProxyCONSTANTS.THRIFT_MAX_WORKER_THREADS_PROPERTY_NAME, maxWorkerThreads);
+            workerQueueSize = readIntProperty(thriftProxyProperties, ThriftProxyCONSTANTS.THRIFT_WORKER_QUEUE_SIZE_PROPERTY_NAME, workerQueueSize);
+            selectorThreads = readIntProperty(thriftProxyProperties, ThriftProxyCONSTANTS.THRIFT_SELECTOR_THREADS_PROPERTY_NAME, selectorThreads);
+            metricsLogPeriod = readIntProperty(thriftProxyProperties, ThriftProxyCONSTANTS.THRIFT_METRICS_LOG_PERIOD_PROPERTY_NAME, metricsLogPeriod);
+            
+            if (maxWorkerThreads < minWorkerThreads) {
+                logger.log(Level.WARNING, "+++ Max worker threads {0} lower than min worker threads {1}. Using {1}", new Object[] {maxWorkerThreads, minWorkerThreads});
+                maxWorkerThreads = minWorkerThreads;
+            }
+
         } catch (NumberFormatException e) {
             logger.log(Level.WARNING, "+++ Invalid port number. Using default port {0}", thriftPort);
         } catch (SecurityException e) {
@@ -90,6 +133,32 @@ public class ThriftProxyServer {
         }
     }
 
+    private int readIntProperty(Properties properties, String name, int defaultValue) {
+    	if (!properties.containsKey(name)) {
+            logger.log(Level.INFO, "--- Using default {0} {1}", new Object[] {name, defaultValue});
+            return defaultValue;
+    	}
+    	
+    	String propertyValue = properties.getProperty(name).trim();
+    	try {
+    		int value = Integer.parseInt(propertyValue);
+            logger.log(Level.INFO, "--- Read {0} property as {1}, set to {2}", new Object[] {name, propertyValue, value});
+            return value;
+    	} catch (NumberFormatException e) {
+            logger.log(Level.WARNING, "+++ Invalid {0} value {1}. Using default {2}", new Object[] {name, propertyValue, defaultValue});
+            return defaultValue;
+    	}
+    }
+    
+    /**
+     * Gets the latency metrics for each service registered in the proxy.
+     * 
+     * @return The latency metrics per service
+     */
+    public List<ServiceLatencyMetrics> getServiceMetrics() {
+    	return serviceMetrics;
+    }
+    
     /**
      * Starts the Thrift service as a new thread
      */
@@ -110,30 +179,129 @@ public class ThriftProxyServer {
         mtrrServiceHandler.setLogger(logger);
 
         try {
-            processor.registerProcessor(
+            registerProcessor(processor,
                     ThriftProxyCONSTANTS.MTRR_SERVICE_NAME,
                     new MtrrService.Processor(mtrrServiceHandler)
             );
 
-            processor.registerProcessor(
+            registerProcessor(processor,
                     ThriftProxyCONSTANTS.SEMANTIC_QUERY_SERVICE_NAME,
                     new SemanticQueryService.Processor(new SemanticQueryServiceHandler())
             );
 
-            TServerTransport serverTransport = new TServerSocket(thriftPort);
-
-            TTransportFactory factory = new TFramedTransport.Factory();
-
-            TServer.Args args = new TServer.Args(serverTransport);
-            args.processor(processor);
-            args.transportFactory(factory);
-            TSimpleServer server = new TSimpleServer(args);
+            TServer server = createServer(processor);
+            startMetricsLog();
 
-            logger.info("--- Starting Thrift Proxy V2");
+            logger.log(Level.INFO, "--- Starting Thrift Proxy V2 ({0} server)", serverMode);
             server.serve();
         } catch (TTransportException e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
         }
     }
+
+    private void registerProcessor(TMultiplexedProcessor processor, String serviceName, TProcessor serviceProcessor) {
+    	ServiceLatencyMetrics metrics = new ServiceLatencyMetrics(serviceName);
+    	serviceMetrics.add(metrics);
+    	processor.registerProcessor(serviceName, new TimedProcessor(serviceProcessor, metrics));
+    }
+    
+    /**
+     * Creates the Thrift server according to the configured server mode.
+     * 
+     * All the modes use framed transport, as expected by the MMT clients.
+     * 
+     * @param processor		The multiplexed processor to be served
+     * @return				The Thrift server
+     * @throws TTransportException
+     */
+    private TServer createServer(TMultiplexedProcessor processor) throws TTransportException {
+    	if (serverMode.equals(ThriftProxyCONSTANTS.SERVER_MODE_THREAD_POOL)) {
+    		TThreadPoolServer.Args args = new TThreadPoolServer.Args(new TServerSocket(thriftPort));
+    		args.processor(processor);
+    		args.transportFactory(new TFramedTransport.Factory());
+    		args.minWorkerThreads(minWorkerThreads);
+    		args.maxWorkerThreads(maxWorkerThreads);
+    		return new TThreadPoolServer(args);
+    	}
+    	else if (serverMode.equals(ThriftProxyCONSTANTS.SERVER_MODE_NON_BLOCKING)) {
+    		// Non blocking servers read the frames by themselves, no transport factory is needed
+    		TNonblockingServer.Args args = new TNonblockingServer.Args(new TNonblockingServerSocket(thriftPort));
+    		args.processor(processor);
+    		return new TNonblockingServer(args);
+    	}
+    	else if (serverMode.equals(ThriftProxyCONSTANTS.SERVER_MODE_HSHA)) {
+    		THsHaServer.Args args = new THsHaServer.Args(new TNonblockingServerSocket(thriftPort));
+    		args.processor(processor);
+    		args.executorService(createWorkerPool());
+    		return new THsHaServer(args);
+    	}
+    	else if (serverMode.equals(ThriftProxyCONSTANTS.SERVER_MODE_THREADED_SELECTOR)) {
+    		TThreadedSelectorServer.Args args = new TThreadedSelectorServer.Args(new TNonblockingServerSocket(thriftPort));
+    		args.processor(processor);
+    		args.selectorThreads(selectorThreads);
+    		args.executorService(createWorkerPool());
+    		return new TThreadedSelectorServer(args);
+    	}
+    	
+    	if (!serverMode.equals(ThriftProxyCONSTANTS.SERVER_MODE_SIMPLE)) {
+    		logger.log(Level.WARNING, "+++ Unknown server mode {0}. Using {1}", new Object[] {serverMode, ThriftProxyCONSTANTS.SERVER_MODE_SIMPLE});
+    		serverMode = ThriftProxyCONSTANTS.SERVER_MODE_SIMPLE;
+    	}
+    	
+        TServerTransport serverTransport = new TServerSocket(thriftPort);
+
+        TTransportFactory factory = new TFramedTransport.Factory();
+
+        TServer.Args args = new TServer.Args(serverTransport);
+        args.processor(processor);
+        args.transportFactory(factory);
+        return new TSimpleServer(args);
+    }
+    
+    /**
+     * Creates the bounded worker pool used by the half-sync/half-async servers.
+     * 
+     * Requests exceeding the pool and queue capacity are rejected, so the
+     * selector threads are never blocked by slow calls.
+     * 
+     * @return The worker pool
+     */
+    private ExecutorService createWorkerPool() {
+    	return new ThreadPoolExecutor(minWorkerThreads, maxWorkerThreads, 60, TimeUnit.SECONDS,
+    			new ArrayBlockingQueue<Runnable>(workerQueueSize), new ProxyThreadFactory("ThriftProxyWorker"));
+    }
+    
+    private void startMetricsLog() {
+    	if (metricsLogPeriod <= 0) {
+    		return;
+    	}
+    	
+    	ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ProxyThreadFactory("ThriftProxyMetrics"));
+    	scheduler.scheduleAtFixedRate(new Runnable() {
+    		public void run() {
+    			for (ServiceLatencyMetrics metrics : serviceMetrics) {
+    				if (metrics.getCalls() > 0) {
+    					logger.log(Level.INFO, "--- Service metrics > {0}", metrics);
+    				}
+    			}
+    		}
+    	}, metricsLogPeriod, metricsLogPeriod, TimeUnit.SECONDS);
+    }
+    
+    private static class ProxyThreadFactory implements ThreadFactory {
+    	private final String prefix;
+    	private final AtomicInteger counter = new AtomicInteger();
+    	
+    	ProxyThreadFactory(String prefix) {
+    		this.prefix = prefix;
+    	}
+    	
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+    }
 }
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2016-2018 Universidad Politécnica de Madrid (UPM).
+ *
+ * Authors:
+ *    José-Fernan Martínez Ortega
+ *    Néstor Lucas Martínez
+ *    Jesús Rodríguez Molina
+ * 
+ * This software is distributed under a dual-license scheme:
+ *
+ * - For academic uses: Licensed under GNU Affero General Public License as
+ *                      published by the Free Software Foundation, either
+ *                      version 3 of the License, or (at your option) any
+ *                      later version.
+ * 
+ * - For any other use: Licensed under the Apache License, Version 2.0.
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * You can get a copy of the license terms in licences/LICENSE.
+ * 
+ */
+package swarms.ThriftProxy;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TProtocol;
+
+/**
+ * Processor decorator measuring the latency of each call served by the wrapped processor.
+ *
+ */
+public class TimedProcessor implements TProcessor {
+	private final TProcessor processor;
+	private final ServiceLatencyMetrics metrics;
+	
+	public TimedProcessor(TProcessor processor, ServiceLatencyMetrics metrics) {
+		this.processor = processor;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public boolean process(TProtocol in, TProtocol out) throws TException {
+		boolean failed = true;
+		long start = System.nanoTime();
+		metrics.callStarted();
+		
+		try {
+			boolean result = processor.process(in, out);
+			failed = !result;
+			return result;
+		} finally {
+			metrics.callFinished(System.nanoTime() - start, failed);
+		}
+	}
+	
+	public ServiceLatencyMetrics getMetrics() {
+		return metrics;
+	}
+}